@@ -1,13 +1,13 @@
 package dist;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
+import util.ParallelRange;
+import util.RangeTask;
 import util.linalg.DenseVector;
-import util.graph.DFSTree;
-import util.graph.Graph;
-import util.graph.KruskalsMST;
 import util.graph.Node;
 import util.graph.Tree;
-import util.graph.WeightedEdge;
 
 import shared.DataSet;
 import shared.DataSetDescription;
@@ -15,11 +15,28 @@ import shared.Instance;
 
 
 /**
- * A discrete dependency distribution
+ * A discrete dependency distribution.  The mutual information
+ * between attributes can be computed on a fork join pool.
+ * Once estimated, the tree is compiled into flat tables so
+ * that a sample is drawn in one loop over the attributes,
+ * with the table of an attribute with many values kept in alias
+ * form so each of its draws takes constant time.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class DiscreteDependencyTree extends AbstractDistribution {   
+    /**
+     * The largest product of the ranges of a pair of attributes
+     * for which joint counts are found from bit sets
+     */
+    private static final int BITWISE_PAIRS = 16;
+
+    /**
+     * The largest range of an attribute that
+     * is sampled by searching cumulative tables
+     */
+    private static final int ALIAS_RANGE = 16;
+
     /**
      * The dependency tree root
      */
@@ -39,6 +56,95 @@ public class DiscreteDependencyTree extends AbstractDistribution {
      * Description the data set
      */
     private DataSetDescription description;
+
+    /**
+     * The attributes in the order they are sampled,
+     * each after its parent
+     */
+    private int[] order;
+
+    /**
+     * The parent of each attribute, or -1 for the root
+     */
+    private int[] parents;
+
+    /**
+     * The range of each attribute
+     */
+    private int[] sampleRanges;
+
+    /**
+     * Where the table of each attribute starts,
+     * one row for each value of its parent
+     */
+    private int[] tableStarts;
+
+    /**
+     * The cumulative probabilities of each row, or for
+     * wide attributes the probability of keeping each column
+     */
+    private double[] tables;
+
+    /**
+     * The alias of each column of the rows of wide attributes
+     */
+    private int[] aliases;
+
+    /**
+     * The pool to compute mutual information on, or null
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * The mutual information between each pair of attributes
+     */
+    private transient double[] mutualI;
+
+    /**
+     * The range of each attribute of the packed observations
+     */
+    private transient int[] ranges;
+
+    /**
+     * The largest range of the packed observations
+     */
+    private transient int maxRange;
+
+    /**
+     * The number of packed observations
+     */
+    private transient int sampleCount;
+
+    /**
+     * The number of words in a bit set over the observations
+     */
+    private transient int wordCount;
+
+    /**
+     * The packed observations, one attribute after another
+     */
+    private transient int[] columns;
+
+    /**
+     * For each attribute with few values and each of its values,
+     * a bit set of the observations having that value
+     */
+    private transient long[] bits;
+
+    /**
+     * Where the bit sets of each attribute start, or -1 if it has none
+     */
+    private transient int[] bitStarts;
+
+    /**
+     * The number of observations having each value of each attribute
+     */
+    private transient int[] totals;
+
+    /**
+     * Where the counts of each attribute start
+     */
+    private transient int[] totalStarts;
     
     /**
      * Make a new discrete dependency tree distribution
@@ -63,6 +169,14 @@ public class DiscreteDependencyTree extends AbstractDistribution {
         description.setMaxVector(max);
     }
 
+    /**
+     * Set the pool to compute mutual information on
+     * @param pool the pool, or null to compute it on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * @see dist.Distribution#probabilityOf(shared.Instance)
      */
@@ -74,9 +188,52 @@ public class DiscreteDependencyTree extends AbstractDistribution {
      * @see dist.Distribution#generateRandom(shared.Instance)
      */
     public Instance sample(Instance ignored) {
-        Instance i = new Instance(new DenseVector(dt.getNodeCount()));
-        root.generateRandom(i);
-        return i;
+        int[] values = new int[order.length];
+        generateRandom(values);
+        DenseVector data = new DenseVector(values.length);
+        for (int i = 0; i < values.length; i++) {
+            data.set(i, values[i]);
+        }
+        return new Instance(data);
+    }
+
+    /**
+     * Draw a sample into an array, without allocating
+     * @param values the array to write the value of each attribute to
+     */
+    public void generateRandom(int[] values) {
+        for (int k = 0; k < order.length; k++) {
+            int a = order[k];
+            int range = sampleRanges[a];
+            int row = tableStarts[a];
+            if (parents[a] >= 0) {
+                row += values[parents[a]] * range;
+            }
+            double rand = random.nextDouble();
+            int value;
+            if (range > ALIAS_RANGE) {
+                double x = rand * range;
+                value = (int) x;
+                if (x - value >= tables[row + value]) {
+                    value = aliases[row + value];
+                }
+            } else {
+                // the same search as ABAGAILArrays.search on one row
+                int high = range;
+                int low = -1;
+                while (high - low > 1) {
+                    int mid = (high + low) / 2;
+                    if (tables[row + mid] < rand) {
+                        low = mid;
+                    } else {
+                        high = mid;
+                    }
+                }
+                // rounding can leave the last cumulative below one
+                value = Math.min(high, range - 1);
+            }
+            values[a] = value;
+        }
     }
 
     /**
@@ -97,64 +254,204 @@ public class DiscreteDependencyTree extends AbstractDistribution {
         } else if (observations.getDescription() == null) {
             observations.setDescription(new DataSetDescription(observations));
         }
-        double[][] mutualI = calculateMutualInformation(observations);
-        // construct the graph
-        Tree rg = buildDirectedMST(observations, mutualI);
+        double[] mutualI = calculateMutualInformation(observations);
+        int attributeCount = observations.get(0).size();
+        // find the maximum spanning tree rooted at the first attribute
+        int[] parents = buildDirectedMST(mutualI, attributeCount);
+        // list the children of each attribute, in order
+        int[] childStarts = new int[attributeCount + 1];
+        for (int i = 1; i < attributeCount; i++) {
+            childStarts[parents[i] + 1]++;
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            childStarts[i + 1] += childStarts[i];
+        }
+        int[] children = new int[attributeCount];
+        int[] next = (int[]) childStarts.clone();
+        for (int i = 1; i < attributeCount; i++) {
+            children[next[parents[i]]++] = i;
+        }
         // make the dependency tree
         dt = new Tree();
-        root = new DiscreteDependencyTreeRootNode(observations, rg.getRoot(), m, dt);
+        root = new DiscreteDependencyTreeRootNode(observations, 0,
+            childStarts, children, m, dt);
         dt.setRoot(root);
-        
+        compile();
     }
 
     /**
-     * Build the directed mst from the mutual information
-     * and ranges
-     * @param ranges the ranges
-     * @param mutualI the mutual information values
-     * @return the directed mst
+     * Compile the tree into flat tables for sampling.  The attributes
+     * are visited in the same order a recursive walk of the tree takes.
      */
-    private Tree buildDirectedMST(DataSet observations, double[][] mutualI) {
-        Graph g = new Graph();
-        for (int i = 0; i < observations.get(0).size(); i++) {
-            Node n = new Node(i);
-            g.addNode(n);
+    private void compile() {
+        int n = dt.getNodeCount();
+        order = new int[n];
+        parents = new int[n];
+        sampleRanges = new int[n];
+        tableStarts = new int[n];
+        Node[] stack = new Node[n];
+        int top = 0;
+        stack[top++] = root;
+        int size = 0;
+        int k = 0;
+        while (top > 0) {
+            Node node = stack[--top];
+            int a = node.getLabel();
+            order[k++] = a;
+            tableStarts[a] = size;
+            if (node == root) {
+                parents[a] = -1;
+                sampleRanges[a] = root.getProbabilities().length;
+                size += sampleRanges[a];
+            } else {
+                DiscreteDependencyTreeNode dtn = (DiscreteDependencyTreeNode) node;
+                parents[a] = dtn.getParent();
+                sampleRanges[a] = dtn.getProbabilities()[0].length;
+                size += dtn.getProbabilities().length * sampleRanges[a];
+            }
+            for (int i = node.getEdgeCount() - 1; i >= 0; i--) {
+                stack[top++] = node.getEdge(i).getOther(node);
+            }
         }
-        for (int i = 0; i < observations.get(0).size(); i++) {
-            for (int j = 0; j < i; j++) {
-                Node a = g.getNode(i);
-                Node b = g.getNode(j);
-                a.connect(b, new WeightedEdge(-mutualI[i][j]));
+        tables = new double[size];
+        aliases = new int[size];
+        for (int i = 0; i < n; i++) {
+            Node node = dt.getNode(i);
+            int a = node.getLabel();
+            if (node == root) {
+                fillRow(root.getProbabilities(), tableStarts[a]);
+            } else {
+                double[][] probabilities = ((DiscreteDependencyTreeNode) node).getProbabilities();
+                for (int j = 0; j < probabilities.length; j++) {
+                    fillRow(probabilities[j], tableStarts[a] + j * sampleRanges[a]);
+                }
             }
         }
-        // find the mst
-        g = new KruskalsMST().transform(g);
-        // direct it
-        Tree rg = (Tree) new DFSTree().transform(g);
-        return rg;
     }
 
     /**
-     * Calculate the mutual information from the data
-     * @param ranges the ranges of the data
-     * @param data the data itself
-     * @return the mutual informations
+     * Fill in the sampling table of one row, as cumulative
+     * probabilities or, for wide rows, as an alias table
+     * @param probabilities the probabilities of the row
+     * @param start where the row starts
      */
-    private double[][] calculateMutualInformation(DataSet observations) {
+    private void fillRow(double[] probabilities, int start) {
+        int range = probabilities.length;
+        if (range <= ALIAS_RANGE) {
+            // summed the same way as DiscreteDistribution
+            tables[start] = probabilities[0];
+            for (int i = 1; i < range; i++) {
+                tables[start + i] = tables[start + i - 1] + probabilities[i];
+            }
+            return;
+        }
+        // Vose's alias method
+        double sum = 0;
+        for (int i = 0; i < range; i++) {
+            sum += probabilities[i];
+        }
+        double[] scaled = new double[range];
+        int[] small = new int[range];
+        int[] large = new int[range];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < range; i++) {
+            scaled[i] = probabilities[i] * range / sum;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            tables[start + s] = scaled[s];
+            aliases[start + s] = l;
+            scaled[l] -= 1 - scaled[s];
+            if (scaled[l] < 1) {
+                small[smallCount++] = l;
+            } else {
+                large[largeCount++] = l;
+            }
+        }
+        // whatever is left over is full up to rounding
+        while (largeCount > 0) {
+            int l = large[--largeCount];
+            tables[start + l] = 1;
+            aliases[start + l] = l;
+        }
+        while (smallCount > 0) {
+            int s = small[--smallCount];
+            tables[start + s] = 1;
+            aliases[start + s] = s;
+        }
+    }
+
+    /**
+     * Build the directed tree that maximizes the total mutual
+     * information, with Prim's algorithm on the dense matrix
+     * @param mutualI the mutual information of i and j at i * n + j
+     * @param n the number of attributes
+     * @return the parent of each attribute, with the
+     * first attribute as the root and its own parent
+     */
+    private int[] buildDirectedMST(double[] mutualI, int n) {
+        int[] parents = new int[n];
+        boolean[] inTree = new boolean[n];
+        inTree[0] = true;
+        // best[i] is the largest mutual information
+        // between i and the tree so far
+        double[] best = new double[n];
+        for (int i = 1; i < n; i++) {
+            best[i] = mutualI[i];
+        }
+        for (int added = 1; added < n; added++) {
+            int next = -1;
+            for (int i = 1; i < n; i++) {
+                if (!inTree[i] && (next == -1 || best[i] > best[next])) {
+                    next = i;
+                }
+            }
+            inTree[next] = true;
+            int row = next * n;
+            for (int i = 1; i < n; i++) {
+                if (!inTree[i] && mutualI[row + i] > best[i]) {
+                    best[i] = mutualI[row + i];
+                    parents[i] = next;
+                }
+            }
+        }
+        return parents;
+    }
+
+    /**
+     * Calculate the mutual information from the data.  The
+     * observations are first packed into a column for each
+     * attribute and, for attributes with few values, a bit set
+     * for each value, so that the joint counts of a pair are
+     * found with popcounts or one tight pass over two columns.
+     * @param observations the data itself
+     * @return the mutual information of i and j at i * n + j
+     * for n attributes, in a buffer reused between estimates
+     */
+    private double[] calculateMutualInformation(DataSet observations) {
         DataSetDescription dsd = observations.getDescription();
+        int attributeCount = observations.get(0).size();
+        pack(observations, dsd);
         // probs[i][j] is the probability that x_i = j
-        double[][] probs = new double[observations.get(0).size()][];
+        double[][] probs = new double[attributeCount][];
         for (int i = 0; i < probs.length; i++) {
             probs[i] = new double[dsd.getDiscreteRange(i)];
         }
         double weightSum = 0;
         // fill in probs
         for (int i = 0; i < observations.size(); i++) {
-            for (int j = 0; j < observations.get(i).size(); j++) {
-                probs[j][observations.get(i).getDiscrete(j)] +=
-                    observations.get(i).getWeight();
+            Instance instance = observations.get(i);
+            for (int j = 0; j < instance.size(); j++) {
+                probs[j][instance.getDiscrete(j)] += instance.getWeight();
             }
-            weightSum += observations.get(i).getWeight();
+            weightSum += instance.getWeight();
         }
         // normalize
         for (int i = 0; i < probs.length; i++) {
@@ -163,8 +460,8 @@ public class DiscreteDependencyTree extends AbstractDistribution {
             }
         }
         // calculate the entropies of the different variables
-        double[] entropies = new double[observations.get(0).size()];
-        for (int i = 0; i < observations.get(0).size(); i++) {
+        double[] entropies = new double[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
             for (int j = 0; j < dsd.getDiscreteRange(i); j++) {
                 if (probs[i][j] != 0) {
                     entropies[i] -= probs[i][j] * Math.log(probs[i][j]);
@@ -172,40 +469,159 @@ public class DiscreteDependencyTree extends AbstractDistribution {
             }
         }
         // calculate the mutual information between all variables
-        double[][] mutualI = new double[observations.get(0).size()][];
-        for (int i = 0; i < mutualI.length; i++) {
-            mutualI[i] = new double[i];
+        if (mutualI == null || mutualI.length != attributeCount * attributeCount) {
+            mutualI = new double[attributeCount * attributeCount];
+        }
+        final int shards = pool == null ? 1 : Math.min(pool.getParallelism(), attributeCount);
+        final double[] fEntropies = entropies;
+        final double fWeightSum = weightSum;
+        // every entry is written by exactly one shard
+        // so the result does not depend on timing
+        ParallelRange.run(pool, shards, 1, new RangeTask() {
+            public Object run(int first, int next) {
+                fillMutualInformation(fEntropies, fWeightSum, first, shards);
+                return null;
+            }
+        });
+        return mutualI;
+    }
+
+    /**
+     * Fill in every step'th row of the mutual information,
+     * starting from a given row.  Rows are dealt out this way
+     * so that the shards get about the same number of pairs.
+     * @param entropies the entropies of the variables
+     * @param weightSum the total weight of the observations
+     * @param first the first row
+     * @param step the distance between rows
+     */
+    private void fillMutualInformation(double[] entropies,
+            double weightSum, int first, int step) {
+        int n = entropies.length;
+        int[] joints = new int[maxRange * maxRange];
+        for (int i = first; i < n; i += step) {
             for (int j = 0; j < i; j++) {
-                // the joint probabilities
-                // joints[a][b] is the probability that x_i = a && x_j = b
-                double[][] joints = new double[dsd.getDiscreteRange(i)][dsd.getDiscreteRange(j)];
-                // fill in the joints
-                for (int k = 0; k < observations.size(); k++) {
-                    Instance instance = observations.get(k);
-                    joints[instance.getDiscrete(i)][instance.getDiscrete(j)] ++;
-                }
-                // normalize
-                for (int k = 0; k < joints.length; k++) {
-                    for (int l = 0; l < joints[k].length; l++) {
-                        joints[k][l] /= weightSum;
-                    }
-                }
+                // joints[a * range_j + b] is the number of times x_i = a && x_j = b
+                countJoints(i, j, joints);
                 // calculate the mutual information I(x_i; x_j)
                 // add the entropy of x_i
-                mutualI[i][j] += entropies[i];
+                double information = entropies[i];
                 // and the entropy of x_j
-                mutualI[i][j] += entropies[j];
+                information += entropies[j];
                 // subtract the joint entropy
-                for (int k = 0; k < joints.length; k++) {
-                    for (int l = 0; l < joints[k].length; l++) {
-                        if (joints[k][l] != 0) {
-                            mutualI[i][j] += joints[k][l] * Math.log(joints[k][l]);
-                        }
+                int count = ranges[i] * ranges[j];
+                for (int k = 0; k < count; k++) {
+                    if (joints[k] != 0) {
+                        double joint = joints[k] / weightSum;
+                        information += joint * Math.log(joint);
                     }
                 }
+                mutualI[i * n + j] = information;
+                mutualI[j * n + i] = information;
+            }
+        }
+    }
+
+    /**
+     * Count how often each pair of values of two attributes occurs
+     * @param i the first attribute
+     * @param j the second attribute
+     * @param joints filled with the count for x_i = a && x_j = b
+     * at a * range_j + b
+     */
+    private void countJoints(int i, int j, int[] joints) {
+        int ri = ranges[i];
+        int rj = ranges[j];
+        if (ri * rj <= BITWISE_PAIRS) {
+            // count all but the last value of each with popcounts,
+            // the rest follow from the counts of the single values
+            for (int a = 0; a < ri - 1; a++) {
+                int rowStart = bitStarts[i] + a * wordCount;
+                int rest = totals[totalStarts[i] + a];
+                for (int b = 0; b < rj - 1; b++) {
+                    int colStart = bitStarts[j] + b * wordCount;
+                    int count = 0;
+                    for (int w = 0; w < wordCount; w++) {
+                        count += Long.bitCount(bits[rowStart + w] & bits[colStart + w]);
+                    }
+                    joints[a * rj + b] = count;
+                    rest -= count;
+                }
+                joints[a * rj + rj - 1] = rest;
+            }
+            for (int b = 0; b < rj; b++) {
+                int rest = totals[totalStarts[j] + b];
+                for (int a = 0; a < ri - 1; a++) {
+                    rest -= joints[a * rj + b];
+                }
+                joints[(ri - 1) * rj + b] = rest;
+            }
+        } else {
+            for (int k = 0; k < ri * rj; k++) {
+                joints[k] = 0;
+            }
+            int rowStart = i * sampleCount;
+            int colStart = j * sampleCount;
+            for (int k = 0; k < sampleCount; k++) {
+                joints[columns[rowStart + k] * rj + columns[colStart + k]]++;
+            }
+        }
+    }
+
+    /**
+     * Pack the observations into columns, bit sets and value counts,
+     * reusing the buffers from the last estimate when they are big enough
+     * @param observations the observations
+     * @param dsd the description of the observations
+     */
+    private void pack(DataSet observations, DataSetDescription dsd) {
+        int attributeCount = observations.get(0).size();
+        sampleCount = observations.size();
+        wordCount = (sampleCount + 63) / 64;
+        if (ranges == null || ranges.length != attributeCount) {
+            ranges = new int[attributeCount];
+            bitStarts = new int[attributeCount];
+            totalStarts = new int[attributeCount];
+        }
+        maxRange = 0;
+        int bitCount = 0;
+        int totalCount = 0;
+        for (int i = 0; i < attributeCount; i++) {
+            ranges[i] = dsd.getDiscreteRange(i);
+            maxRange = Math.max(maxRange, ranges[i]);
+            totalStarts[i] = totalCount;
+            totalCount += ranges[i];
+            if (ranges[i] <= BITWISE_PAIRS) {
+                bitStarts[i] = bitCount;
+                bitCount += ranges[i] * wordCount;
+            } else {
+                bitStarts[i] = -1;
+            }
+        }
+        if (columns == null || columns.length < attributeCount * sampleCount) {
+            columns = new int[attributeCount * sampleCount];
+        }
+        if (bits == null || bits.length < bitCount) {
+            bits = new long[bitCount];
+        }
+        if (totals == null || totals.length < totalCount) {
+            totals = new int[totalCount];
+        }
+        Arrays.fill(bits, 0, bitCount, 0);
+        Arrays.fill(totals, 0, totalCount, 0);
+        for (int k = 0; k < sampleCount; k++) {
+            Instance instance = observations.get(k);
+            long bit = 1L << (k & 63);
+            int word = k >>> 6;
+            for (int i = 0; i < attributeCount; i++) {
+                int value = instance.getDiscrete(i);
+                columns[i * sampleCount + k] = value;
+                totals[totalStarts[i] + value]++;
+                if (bitStarts[i] >= 0) {
+                    bits[bitStarts[i] + value * wordCount + word] |= bit;
+                }
             }
         }
-        return mutualI;
     }
 
     /**
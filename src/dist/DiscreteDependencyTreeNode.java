@@ -35,13 +35,54 @@ public class DiscreteDependencyTreeNode extends Node {
      */
     public DiscreteDependencyTreeNode(DataSet dataSet,
                Node node, int parent, double m, Tree t) {
+        estimate(dataSet, node.getLabel(), parent, m);
+        t.addNode(this);
+        setLabel(node.getLabel());
+        for (int i = 0; i < node.getEdgeCount(); i++) {
+            DiscreteDependencyTreeNode dtc = new DiscreteDependencyTreeNode(
+                dataSet, node.getEdge(i).getOther(node), node.getLabel(), m, t);
+            connectDirected(dtc, new Edge());
+        }
+    }
+
+    /**
+     * Make a dependency tree node from lists of children
+     * @param dataSet the data itself
+     * @param label the attribute at this node
+     * @param parent the parent node index
+     * @param childStarts where the children of each attribute start
+     * in children, followed by the end of the last attribute's children
+     * @param children the children of each attribute, one attribute after another
+     * @param m the bayesian estimate parameter
+     * @param t the tree
+     */
+    public DiscreteDependencyTreeNode(DataSet dataSet, int label, int parent,
+            int[] childStarts, int[] children, double m, Tree t) {
+        estimate(dataSet, label, parent, m);
+        t.addNode(this);
+        setLabel(label);
+        for (int i = childStarts[label]; i < childStarts[label + 1]; i++) {
+            DiscreteDependencyTreeNode dtc = new DiscreteDependencyTreeNode(
+                dataSet, children[i], label, childStarts, children, m, t);
+            connectDirected(dtc, new Edge());
+        }
+    }
+
+    /**
+     * Estimate the conditional probabilities
+     * @param dataSet the data itself
+     * @param label the attribute at this node
+     * @param parent the parent node index
+     * @param m the bayesian estimate parameter
+     */
+    private void estimate(DataSet dataSet, int label, int parent, double m) {
         DataSetDescription dsd = dataSet.getDescription();
         double[][] probabilities = 
-            new double[dsd.getDiscreteRange(parent)][dsd.getDiscreteRange(node.getLabel())];
+            new double[dsd.getDiscreteRange(parent)][dsd.getDiscreteRange(label)];
         double[] sums = new double[dsd.getDiscreteRange(parent)];
         for (int i = 0; i < dataSet.size(); i++) {
             probabilities[dataSet.get(i).getDiscrete(parent)]
-                [dataSet.get(i).getDiscrete(node.getLabel())] += dataSet.get(i).getWeight();
+                [dataSet.get(i).getDiscrete(label)] += dataSet.get(i).getWeight();
             sums[dataSet.get(i).getDiscrete(parent)] += dataSet.get(i).getWeight();
         }
         for (int i = 0; i < probabilities.length; i++) {
@@ -52,15 +93,24 @@ public class DiscreteDependencyTreeNode extends Node {
         }
         this.probabilities = probabilities;
         this.parent = parent;
-        t.addNode(this);
-        setLabel(node.getLabel());
-        for (int i = 0; i < node.getEdgeCount(); i++) {
-            DiscreteDependencyTreeNode dtc = new DiscreteDependencyTreeNode(
-                dataSet, node.getEdge(i).getOther(node), node.getLabel(), m, t);
-            connectDirected(dtc, new Edge());
-        }
     }
     
+    /**
+     * Get the conditional probabilities
+     * @return the probabilities of each value given each value of the parent
+     */
+    double[][] getProbabilities() {
+        return probabilities;
+    }
+
+    /**
+     * Get the parent attribute
+     * @return the parent
+     */
+    int getParent() {
+        return parent;
+    }
+
     /**
      * Calculate the probability
      * @param instance the instance
@@ -27,11 +27,50 @@ public class DiscreteDependencyTreeRootNode extends Node {
      * @param data the data itself
      */
     public DiscreteDependencyTreeRootNode(DataSet dataSet, Node node, double m,  Tree t) {
+        estimate(dataSet, node.getLabel(), m);
+        t.addNode(this);
+        setLabel(node.getLabel());
+        for (int i = 0; i < node.getEdgeCount(); i++) {
+            DiscreteDependencyTreeNode dtn = new DiscreteDependencyTreeNode(dataSet,
+                node.getEdge(i).getOther(node), node.getLabel(), m, t);
+            connectDirected(dtn, new Edge());
+        }
+    }
+
+    /**
+     * Build a dependency tree root from lists of children
+     * @param dataSet the data itself
+     * @param label the attribute at the root
+     * @param childStarts where the children of each attribute start
+     * in children, followed by the end of the last attribute's children
+     * @param children the children of each attribute, one attribute after another
+     * @param m the bayesian estimate parameter
+     * @param t the tree
+     */
+    public DiscreteDependencyTreeRootNode(DataSet dataSet, int label,
+            int[] childStarts, int[] children, double m, Tree t) {
+        estimate(dataSet, label, m);
+        t.addNode(this);
+        setLabel(label);
+        for (int i = childStarts[label]; i < childStarts[label + 1]; i++) {
+            DiscreteDependencyTreeNode dtn = new DiscreteDependencyTreeNode(dataSet,
+                children[i], label, childStarts, children, m, t);
+            connectDirected(dtn, new Edge());
+        }
+    }
+
+    /**
+     * Estimate the unconditional probabilities
+     * @param dataSet the data itself
+     * @param label the attribute at the root
+     * @param m the bayesian estimate parameter
+     */
+    private void estimate(DataSet dataSet, int label, double m) {
         DataSetDescription dsd = dataSet.getDescription();
-        probabilities = new double[dsd.getDiscreteRange(node.getLabel())];
+        probabilities = new double[dsd.getDiscreteRange(label)];
         double weightSum = 0;
         for (int i = 0; i < dataSet.size(); i++) {
-            probabilities[dataSet.get(i).getDiscrete(node.getLabel())]
+            probabilities[dataSet.get(i).getDiscrete(label)]
                 += dataSet.get(i).getWeight();
             weightSum += dataSet.get(i).getWeight();
         }
@@ -39,13 +78,6 @@ public class DiscreteDependencyTreeRootNode extends Node {
             probabilities[i] = (probabilities[i] + m / probabilities.length)
                 / (weightSum + m);
         }
-        t.addNode(this);
-        setLabel(node.getLabel());
-        for (int i = 0; i < node.getEdgeCount(); i++) {
-            DiscreteDependencyTreeNode dtn = new DiscreteDependencyTreeNode(dataSet,
-                node.getEdge(i).getOther(node), node.getLabel(), m, t);
-            connectDirected(dtn, new Edge());
-        }
     }
     
     /**
@@ -63,6 +95,14 @@ public class DiscreteDependencyTreeRootNode extends Node {
         return p;
     }
     
+    /**
+     * Get the unconditional probabilities
+     * @return the probabilities
+     */
+    double[] getProbabilities() {
+        return probabilities;
+    }
+
     /**
      * Sample from the root of the tree
      * @param node the root of the tree
@@ -2,10 +2,15 @@ package dist;
 
 import shared.DataSet;
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.ByteVector;
+import util.linalg.Vector;
 
 /**
  * A distribution of all of the permutations
- * of a set size.
+ * of a set size.  Samples are packed a bit per value
+ * when every range is two, and a byte per value when
+ * every range fits in a byte.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -14,6 +19,11 @@ public class DiscreteUniformDistribution extends AbstractDistribution {
      * The ranges of the data
      */
     private int[] n;
+
+    /**
+     * The largest range
+     */
+    private int maxRange;
     
     /**
      * The probability
@@ -31,6 +41,9 @@ public class DiscreteUniformDistribution extends AbstractDistribution {
             p *= n[i];
         }
         p = 1 / p;
+        for (int i = 0; i < n.length; i++) {
+            maxRange = Math.max(maxRange, n[i]);
+        }
     }
 
     /**
@@ -44,6 +57,19 @@ public class DiscreteUniformDistribution extends AbstractDistribution {
      * @see dist.Distribution#generateRandom(shared.Instance)
      */
     public Instance sample(Instance ignored) {
+        if (maxRange <= 2) {
+            long[] words = new long[(n.length + 63) >>> 6];
+            for (int i = 0; i < n.length; i++) {
+                words[i >>> 6] |= (long) random.nextInt(n[i]) << i;
+            }
+            return new Instance(new BitVector(words, n.length));
+        } else if (maxRange <= ByteVector.MAX_VALUE + 1) {
+            Vector d = new ByteVector(n.length);
+            for (int i = 0; i < n.length; i++) {
+                d.set(i, random.nextInt(n[i]));
+            }
+            return new Instance(d);
+        }
         double[] d  = new double[n.length];
         for (int i = 0; i < d.length; i++) {
             d[i] = random.nextInt(n[i]);
@@ -5,6 +5,7 @@ import java.util.Random;
 
 import shared.DataSet;
 import shared.Instance;
+import util.ABAGAILArrays;
 
 /**
  * A interface for distributions
@@ -13,9 +14,11 @@ import shared.Instance;
  */
 public interface Distribution extends Serializable { 
     /**
-     * A random number generator
+     * A random number generator, the same one
+     * as ABAGAILArrays.random so seeding either
+     * seeds the calling thread's stream for both
      */
-    public static final Random random = new Random();  
+    public static final Random random = ABAGAILArrays.random;
     /**
      * Get the probability of i
      * @param i the discrete value to get the probability of
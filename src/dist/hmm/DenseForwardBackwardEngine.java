@@ -0,0 +1,342 @@
+package dist.hmm;
+
+import dist.Distribution;
+import shared.DataSet;
+
+/**
+ * The forward backward algorithm for simple hidden markov models,
+ * whose transitions do not depend on the observations.  The
+ * transition matrix is copied out of the model into one array and
+ * the probability of each observation in each state is computed once
+ * per sequence, so each step of either pass is a dense matrix vector
+ * product with unit stride and no calls into the model.  The
+ * probabilities are scaled at each step the same way as in the
+ * forward backward probability calculator.  All of the buffers are
+ * kept and reused from one sequence to the next, growing when a
+ * longer sequence comes along.  In log space mode the observation
+ * probabilities are computed as logs and shifted so the largest at
+ * each step is one, which keeps sequences with very small emission
+ * densities from underflowing; the shifts are added back into the
+ * log probability and cancel out of the expectations.
+ * @version 1.0
+ */
+public class DenseForwardBackwardEngine {
+
+    /**
+     * The model
+     */
+    private SimpleHiddenMarkovModel model;
+
+    /**
+     * Whether to compute the observation probabilities in log space
+     */
+    private boolean logSpace;
+
+    /**
+     * The number of states
+     */
+    private int stateCount;
+
+    /**
+     * The initial state probabilities
+     */
+    private double[] initial;
+
+    /**
+     * The transition probabilities, one row after another
+     */
+    private double[] transitions;
+
+    /**
+     * The sums over time of the transition expectations
+     * divided by the transition probabilities
+     */
+    private double[] transitionSums;
+
+    /**
+     * The probability of each observation in each state,
+     * one time step after another, scaled in log space mode
+     */
+    private double[] emissions;
+
+    /**
+     * The log of the shift applied to the emissions at
+     * each time step, all zero when not in log space mode
+     */
+    private double[] shifts;
+
+    /**
+     * The scaled forward probabilities, one time step after another
+     */
+    private double[] forward;
+
+    /**
+     * The scaled backward probabilities, one time step after another
+     */
+    private double[] backward;
+
+    /**
+     * The scaling value of each time step
+     */
+    private double[] scales;
+
+    /**
+     * A vector of one value per state
+     */
+    private double[] work;
+
+    /**
+     * Make a new engine
+     * @param model the model, whose transition and initial
+     * distributions must be simple state distributions
+     */
+    public DenseForwardBackwardEngine(SimpleHiddenMarkovModel model) {
+        if (!supports(model)) {
+            throw new IllegalArgumentException(
+                "the model's state distributions are not simple state distributions");
+        }
+        this.model = model;
+        stateCount = model.getStateCount();
+        initial = new double[stateCount];
+        transitions = new double[stateCount * stateCount];
+        transitionSums = new double[stateCount * stateCount];
+        work = new double[stateCount];
+    }
+
+    /**
+     * Check whether an engine can be made for a model
+     * @param model the model
+     * @return true if the model is a simple hidden markov model
+     * with simple state distributions for transitions
+     */
+    public static boolean supports(HiddenMarkovModel model) {
+        if (!(model instanceof SimpleHiddenMarkovModel)) {
+            return false;
+        }
+        SimpleHiddenMarkovModel simple = (SimpleHiddenMarkovModel) model;
+        if (!(simple.getInitialStateDistribution() instanceof SimpleStateDistribution)) {
+            return false;
+        }
+        StateDistribution[] distributions = simple.getTransitionDistributions();
+        for (int i = 0; i < distributions.length; i++) {
+            if (!(distributions[i] instanceof SimpleStateDistribution)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the model
+     * @return the model
+     */
+    public SimpleHiddenMarkovModel getModel() {
+        return model;
+    }
+
+    /**
+     * Set whether to compute the observation probabilities in log space
+     * @param logSpace true for log space
+     */
+    public void setLogSpace(boolean logSpace) {
+        this.logSpace = logSpace;
+    }
+
+    /**
+     * Compute the log probability of an observation sequence
+     * @param sequence the observation sequence
+     * @return the log probability
+     */
+    public double calculateLogProbability(DataSet sequence) {
+        load(sequence);
+        calculateForward(sequence.size());
+        return logProbability(sequence.size());
+    }
+
+    /**
+     * Compute the expected number of times in each state at each time step,
+     * and add the expected number of transitions between each pair of states
+     * @param sequence the observation sequence
+     * @param states the [t][i] value is set to the expected number
+     * of times in state i at time t
+     * @param transitions the [i][j] value is added to by the expected
+     * number of transitions from state i to state j
+     * @return the log probability of the sequence
+     */
+    public double calculateExpectations(DataSet sequence,
+            double[][] states, double[][] transitions) {
+        int length = sequence.size();
+        load(sequence);
+        calculateForward(length);
+        calculateBackward(length, states);
+        for (int i = 0; i < stateCount; i++) {
+            int row = i * stateCount;
+            for (int j = 0; j < stateCount; j++) {
+                transitions[i][j] += this.transitions[row + j] * transitionSums[row + j];
+            }
+        }
+        return logProbability(length);
+    }
+
+    /**
+     * Copy the model's probabilities and compute the
+     * emissions of a sequence, growing the buffers if needed
+     * @param sequence the observation sequence
+     */
+    private void load(DataSet sequence) {
+        for (int i = 0; i < stateCount; i++) {
+            initial[i] = model.initialStateProbability(i);
+            int row = i * stateCount;
+            for (int j = 0; j < stateCount; j++) {
+                transitions[row + j] = model.transitionProbability(i, j);
+            }
+        }
+        int length = sequence.size();
+        if (scales == null || scales.length < length) {
+            emissions = new double[length * stateCount];
+            forward = new double[length * stateCount];
+            backward = new double[length * stateCount];
+            shifts = new double[length];
+            scales = new double[length];
+        }
+        Distribution[] outputs = model.getOutputDistributions();
+        for (int t = 0; t < length; t++) {
+            int row = t * stateCount;
+            if (logSpace) {
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < stateCount; i++) {
+                    emissions[row + i] = outputs[i].logp(sequence.get(t));
+                    max = Math.max(max, emissions[row + i]);
+                }
+                for (int i = 0; i < stateCount; i++) {
+                    emissions[row + i] = Math.exp(emissions[row + i] - max);
+                }
+                shifts[t] = max;
+            } else {
+                for (int i = 0; i < stateCount; i++) {
+                    emissions[row + i] = outputs[i].p(sequence.get(t));
+                }
+                shifts[t] = 0;
+            }
+        }
+    }
+
+    /**
+     * Compute the scaled forward probabilities
+     * @param length the length of the sequence
+     */
+    private void calculateForward(int length) {
+        // initial step
+        for (int i = 0; i < stateCount; i++) {
+            forward[i] = initial[i] * emissions[i];
+        }
+        scale(0);
+        // recursion
+        for (int t = 1; t < length; t++) {
+            int previous = (t - 1) * stateCount;
+            int row = t * stateCount;
+            // the prior is the previous forward vector times the transitions
+            for (int i = 0; i < stateCount; i++) {
+                forward[row + i] = 0;
+            }
+            for (int j = 0; j < stateCount; j++) {
+                double a = forward[previous + j];
+                if (a == 0) {
+                    continue;
+                }
+                int from = j * stateCount;
+                for (int i = 0; i < stateCount; i++) {
+                    forward[row + i] += a * transitions[from + i];
+                }
+            }
+            // factor in current observation
+            for (int i = 0; i < stateCount; i++) {
+                forward[row + i] *= emissions[row + i];
+            }
+            scale(t);
+        }
+    }
+
+    /**
+     * Apply the scaling factor of a time step to the forward probabilities
+     * @param t the time step
+     */
+    private void scale(int t) {
+        int row = t * stateCount;
+        double sum = 0;
+        for (int i = 0; i < stateCount; i++) {
+            sum += forward[row + i];
+        }
+        scales[t] = 1 / sum;
+        for (int i = 0; i < stateCount; i++) {
+            forward[row + i] *= scales[t];
+        }
+    }
+
+    /**
+     * Compute the scaled backward probabilities along with the
+     * state expectations and the sums of transition expectations
+     * @param length the length of the sequence
+     * @param states the state expectations to fill in
+     */
+    private void calculateBackward(int length, double[][] states) {
+        for (int k = 0; k < transitionSums.length; k++) {
+            transitionSums[k] = 0;
+        }
+        // initial step
+        int last = (length - 1) * stateCount;
+        for (int i = 0; i < stateCount; i++) {
+            backward[last + i] = scales[length - 1];
+        }
+        // recursion
+        for (int t = length - 2; t >= 0; t--) {
+            int row = t * stateCount;
+            int next = (t + 1) * stateCount;
+            // the sum over states of forward times backward at t + 1 is both
+            // the normalizer of the state expectations at t + 1 and, with the
+            // scaling undone, of the transition expectations from t to t + 1
+            double sum = 0;
+            for (int j = 0; j < stateCount; j++) {
+                double stateExpectation = forward[next + j] * backward[next + j];
+                states[t + 1][j] = stateExpectation;
+                sum += stateExpectation;
+                work[j] = emissions[next + j] * backward[next + j];
+            }
+            for (int j = 0; j < stateCount; j++) {
+                states[t + 1][j] /= sum;
+            }
+            double norm = sum / scales[t + 1];
+            for (int i = 0; i < stateCount; i++) {
+                int from = i * stateCount;
+                double a = forward[row + i] / norm;
+                double futureSum = 0;
+                for (int j = 0; j < stateCount; j++) {
+                    futureSum += transitions[from + j] * work[j];
+                    transitionSums[from + j] += a * work[j];
+                }
+                backward[row + i] = futureSum * scales[t];
+            }
+        }
+        double sum = 0;
+        for (int i = 0; i < stateCount; i++) {
+            states[0][i] = forward[i] * backward[i];
+            sum += states[0][i];
+        }
+        for (int i = 0; i < stateCount; i++) {
+            states[0][i] /= sum;
+        }
+    }
+
+    /**
+     * Compute the log probability from the scales and shifts
+     * @param length the length of the sequence
+     * @return the log probability
+     */
+    private double logProbability(int length) {
+        double sum = 0;
+        for (int t = 0; t < length; t++) {
+            sum += shifts[t] - Math.log(scales[t]);
+        }
+        return sum;
+    }
+}
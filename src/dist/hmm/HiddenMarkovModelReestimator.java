@@ -9,7 +9,10 @@ import shared.Trainer;
  * Takes in a hidden markov model and set of observation sequences,
  * then re estimates the parameters of the hidden markov model
  * based on expected values calculated through the use
- * of forward backward calculator
+ * of forward backward calculator.  Simple models are
+ * re estimated with a dense forward backward engine,
+ * which sums the transition expectations over time
+ * as it goes instead of storing them for every time step.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -53,6 +56,16 @@ public class HiddenMarkovModelReestimator implements Trainer {
      */
     private DataSet initialObservations;
 
+    /**
+     * The engine for simple models
+     */
+    private DenseForwardBackwardEngine engine;
+
+    /**
+     * Whether simple models are re estimated in log space
+     */
+    private boolean logSpace;
+
     /**
      * Make a new reestimator
      * @param model the hidden markov model
@@ -128,11 +141,24 @@ public class HiddenMarkovModelReestimator implements Trainer {
             observationSequences[0].getDescription());
     }
     
+    /**
+     * Set whether simple models are re estimated with observation
+     * probabilities in log space, for very long sequences or
+     * observation densities small enough to underflow
+     * @param logSpace true for log space
+     */
+    public void setLogSpace(boolean logSpace) {
+        this.logSpace = logSpace;
+    }
+
     /**
      * Restimate the model
      * @return the sum of log probabilities for the model / sequences
      */
     public double train() {
+        if (DenseForwardBackwardEngine.supports(model)) {
+            return trainSimple();
+        }
         double probability = 0;
         for (int k = 0; k < observationSequences.length; k++) {
             DataSet observationSequence = observationSequences[k];
@@ -154,6 +180,38 @@ public class HiddenMarkovModelReestimator implements Trainer {
         return probability / observationSequences.length;
     }
     
+    /**
+     * Restimate a simple model with the dense engine
+     * @return the sum of log probabilities for the model / sequences
+     */
+    private double trainSimple() {
+        if (engine == null || engine.getModel() != model) {
+            engine = new DenseForwardBackwardEngine((SimpleHiddenMarkovModel) model);
+        }
+        engine.setLogSpace(logSpace);
+        double[][] transitions = new double[model.getStateCount()][model.getStateCount()];
+        double probability = 0;
+        for (int k = 0; k < observationSequences.length; k++) {
+            DataSet observationSequence = observationSequences[k];
+            if (stateExpectations[k] == null
+                    || stateExpectations[k].length != observationSequence.size()
+                    || stateExpectations[k][0].length != model.getStateCount()) {
+                stateExpectations[k] = new double[observationSequence.size()]
+                    [model.getStateCount()];
+            }
+            probability += engine.calculateExpectations(observationSequence,
+                stateExpectations[k], transitions);
+            transitionExpectations[k] = null;
+        }
+        reestimateInitialStateDistribution();
+        for (int i = 0; i < model.getStateCount(); i++) {
+            model.estimateTransitionDistribution(i, new double[][] { transitions[i] },
+                transitionObservations);
+        }
+        reestimateOutputDistributions();
+        return probability / observationSequences.length;
+    }
+
     /**
      * Calculate the transition probabilities for observation sequence k
      */
@@ -0,0 +1,98 @@
+package dist.test;
+
+import dist.DiscreteDistribution;
+import dist.Distribution;
+import dist.hmm.HiddenMarkovModelReestimator;
+import dist.hmm.SimpleHiddenMarkovModel;
+import shared.DataSet;
+import shared.Instance;
+
+/**
+ * Trains a model on a sequence long enough that its probability
+ * underflows a double, once with scaled probabilities and once
+ * in log space, and checks that the two agree
+ * @version 1.0
+ */
+public class HMMLogSpaceTest {
+    /** The length of the sequence */
+    private static final int LENGTH = 10000;
+    /** The number of re estimations */
+    private static final int ITERATIONS = 50;
+    /** How far the two may differ */
+    private static final double TOLERANCE = 1E-9;
+
+    /**
+     * The main method
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        Distribution.random.setSeed(0);
+        SimpleHiddenMarkovModel truth = makeModel(new double[][] {
+            { .9, .1 }, { .2, .8 }
+        }, new double[][] {
+            { .7, .2, .1 }, { .1, .3, .6 }
+        });
+        Instance[] observations = new Instance[LENGTH];
+        int state = truth.sampleInitialState();
+        for (int t = 0; t < LENGTH; t++) {
+            observations[t] = truth.sampleObservation(state);
+            state = truth.sampleState(state);
+        }
+        DataSet[] sequences = { new DataSet(observations) };
+
+        double[][] transitions = { { .6, .4 }, { .5, .5 } };
+        double[][] outputs = { { .4, .3, .3 }, { .3, .3, .4 } };
+        SimpleHiddenMarkovModel scaled = makeModel(transitions, outputs);
+        SimpleHiddenMarkovModel log = makeModel(transitions, outputs);
+        HiddenMarkovModelReestimator scaledTrainer =
+            new HiddenMarkovModelReestimator(scaled, sequences);
+        HiddenMarkovModelReestimator logTrainer =
+            new HiddenMarkovModelReestimator(log, sequences);
+        logTrainer.setLogSpace(true);
+        double likelihood = 0;
+        double likelihoodDifference = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            likelihood = scaledTrainer.train();
+            likelihoodDifference = Math.max(likelihoodDifference,
+                Math.abs(likelihood - logTrainer.train()));
+        }
+        double transitionDifference = 0;
+        double[][] a = scaled.getTransitionProbabilities();
+        double[][] b = log.getTransitionProbabilities();
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[i].length; j++) {
+                transitionDifference = Math.max(transitionDifference,
+                    Math.abs(a[i][j] - b[i][j]));
+            }
+        }
+        System.out.println(scaled + "\n");
+        System.out.println("Log likelihood of the sequence: " + likelihood);
+        System.out.println("Its probability as a double: " + Math.exp(likelihood));
+        System.out.println("Largest log likelihood difference: " + likelihoodDifference);
+        System.out.println("Largest transition difference: " + transitionDifference);
+        System.out.println("Log space matches scaled: "
+            + (likelihoodDifference < TOLERANCE * Math.abs(likelihood)
+                && transitionDifference < TOLERANCE));
+    }
+
+    /**
+     * Make a model starting in either state with equal probability
+     * @param transitions the transition probabilities
+     * @param outputs the output probabilities of each state
+     * @return the model
+     */
+    private static SimpleHiddenMarkovModel makeModel(double[][] transitions,
+            double[][] outputs) {
+        SimpleHiddenMarkovModel model = new SimpleHiddenMarkovModel(transitions.length);
+        model.setInitialStateProbabilities(new double[] { .5, .5 });
+        Distribution[] distributions = new Distribution[outputs.length];
+        double[][] copies = new double[transitions.length][];
+        for (int i = 0; i < outputs.length; i++) {
+            distributions[i] = new DiscreteDistribution((double[]) outputs[i].clone());
+            copies[i] = (double[]) transitions[i].clone();
+        }
+        model.setOutputDistributions(distributions);
+        model.setTransitionProbabilities(copies);
+        return model;
+    }
+}
@@ -3,7 +3,11 @@ package func;
 import dist.*;
 import dist.Distribution;
 import dist.DiscreteDistribution;
+import java.util.concurrent.ForkJoinPool;
+
+import func.inst.FlatKDTree;
 import func.inst.KDTree;
+import func.inst.RandomProjectionForest;
 import shared.*;
 import shared.DataSet;
 import shared.DataSetDescription;
@@ -42,10 +46,38 @@ public class KNNClassifier extends AbstractConditionalDistribution implements Fu
     private int classRange;
     
     /**
-     * The tree
+     * The tree, for distance measures other than euclidean
      */
     private KDTree tree;
     
+    /**
+     * The flat tree, for the euclidean distance
+     */
+    private FlatKDTree flatTree;
+    
+    /**
+     * The approximate index, used instead of the trees
+     * when the number of index trees is positive
+     */
+    private RandomProjectionForest forest;
+    
+    /**
+     * The number of trees in the approximate index,
+     * or zero to find neighbors exactly
+     */
+    private int indexTreeCount;
+    
+    /**
+     * The number of candidates an approximate search looks
+     * at, or zero for k times the number of index trees
+     */
+    private int indexSearchCount;
+    
+    /**
+     * The pool to build the index on, or null
+     */
+    private ForkJoinPool pool;
+    
     /**
      * Make a new knn classifier
      */
@@ -102,7 +134,46 @@ public class KNNClassifier extends AbstractConditionalDistribution implements Fu
             examples.setDescription(new DataSetDescription(examples));
         }
         classRange = examples.getDescription().getLabelDescription().getDiscreteRange();
-        tree = new KDTree(examples, distanceMeasure);
+        tree = null;
+        flatTree = null;
+        forest = null;
+        if (indexTreeCount > 0) {
+            forest = new RandomProjectionForest(examples, distanceMeasure, indexTreeCount, pool);
+            forest.setSearchCount(indexSearchCount);
+        } else if (distanceMeasure instanceof EuclideanDistance) {
+            flatTree = new FlatKDTree(examples, pool);
+        } else {
+            tree = new KDTree(examples, distanceMeasure);
+        }
+    }
+    
+    /**
+     * Find neighbors approximately with a random projection forest
+     * instead of exactly with a tree, from the next estimate on.
+     * Exact trees do little better than a linear scan on high
+     * dimensional data, where the forest's search time is set by
+     * the number of candidates it looks at.  More trees or more
+     * candidates find more of the true neighbors in more time.
+     * A new search count applies at once to an index already built.
+     * @param treeCount the number of trees, or zero to search exactly
+     * @param searchCount the number of candidates to look at,
+     * or zero for k times the number of trees
+     */
+    public void setApproximate(int treeCount, int searchCount) {
+        indexTreeCount = treeCount;
+        indexSearchCount = searchCount;
+        if (forest != null) {
+            forest.setSearchCount(searchCount);
+        }
+    }
+    
+    /**
+     * Set the pool to build the index on.  To classify a whole
+     * test set on a pool, use a function approximater tester.
+     * @param pool the pool, or null to work on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
     
     /**
@@ -113,7 +184,19 @@ public class KNNClassifier extends AbstractConditionalDistribution implements Fu
     public Distribution distributionFor(Instance data) {
         double[] distribution = new double[classRange];
         Object[] results;
-        if (range > 0) {
+        if (forest != null) {
+            if (range > 0) {
+                results = forest.knnrange(data, k, range);
+            } else {
+                results = forest.knn(data, k);
+            }
+        } else if (flatTree != null) {
+            if (range > 0) {
+                results = flatTree.knnrange(data, k, range);
+            } else {
+                results = flatTree.knn(data, k);
+            }
+        } else if (range > 0) {
             results = tree.knnrange(data, k, range);
         } else {
             results = tree.knn(data, k);
@@ -12,8 +12,8 @@ import shared.SumOfSquaresError;
 import shared.Trainer;
 import func.nn.activation.DifferentiableActivationFunction;
 import func.nn.activation.HyperbolicTangentSigmoid;
-import func.nn.backprop.BackPropagationNetwork;
-import func.nn.backprop.BackPropagationNetworkFactory;
+import func.nn.backprop.DenseBackPropagationNetwork;
+import func.nn.backprop.DenseBackPropagationNetworkFactory;
 import func.nn.backprop.BatchBackPropagationTrainer;
 import func.nn.backprop.RPROPUpdateRule;
 import func.nn.backprop.WeightUpdateRule;
@@ -43,7 +43,7 @@ public class NeuralNetworkClassifier extends AbstractConditionalDistribution imp
     /**
      * The network
      */
-    private BackPropagationNetwork network;
+    private DenseBackPropagationNetwork network;
     
     /**
      * Make a new nn classifier
@@ -87,7 +87,7 @@ public class NeuralNetworkClassifier extends AbstractConditionalDistribution imp
             topology[topology.length - 1] = 
                 set.getDescription().getLabelDescription().getDiscreteRange();
         }
-        network = (new BackPropagationNetworkFactory())
+        network = (new DenseBackPropagationNetworkFactory())
             .createClassificationNetwork(topology, activationFunction);
         GradientErrorMeasure errorMeasure = new SumOfSquaresError();
         Trainer trainer = new ConvergenceTrainer(
@@ -104,7 +104,7 @@ public class NeuralNetworkClassifier extends AbstractConditionalDistribution imp
     public Distribution distributionFor(Instance input) {
         network.setInputValues(input.getData());
         network.run();
-        if (network.getOutputLayer().getNodeCount() > 1) {
+        if (network.getOutputValues().size() > 1) {
             return new DiscreteDistribution(
                 network.getOutputValues());            
         } else {
@@ -0,0 +1,400 @@
+package func.inst;
+
+import java.io.Serializable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import shared.DataSet;
+import shared.Instance;
+import util.ParallelRange;
+import util.RangeTask;
+
+/**
+ * A kd tree kept in flat arrays.  The keys are copied into one
+ * array in tree order, the nodes are laid out implicitly with the
+ * children of node i at 2i + 1 and 2i + 2, and each leaf holds a
+ * bucket of up to LEAF_SIZE keys.  Each node splits at the median
+ * of the dimension its keys are most spread along.  Distances are
+ * squared euclidean distances, the same as EuclideanDistance.
+ * The tree can be built and queried in batches on a fork join pool.
+ * @version 1.0
+ */
+public class FlatKDTree implements Serializable {
+
+    /**
+     * The most keys in a leaf
+     */
+    private static final int LEAF_SIZE = 16;
+
+    /**
+     * The fewest keys for which a subtree is built as its own task
+     */
+    private static final int PARALLEL_BUILD = 1 << 14;
+
+    /**
+     * The number of queries in a batch task
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * The keys
+     */
+    private Instance[] keys;
+
+    /**
+     * The number of dimensions
+     */
+    private int dimensions;
+
+    /**
+     * The keys' coordinates one key after another, in tree order
+     */
+    private double[] coordinates;
+
+    /**
+     * The index of the key at each place in tree order
+     */
+    private int[] order;
+
+    /**
+     * The dimension each node splits on, or -1 for a leaf
+     */
+    private int[] splitDimensions;
+
+    /**
+     * The value each node splits at
+     */
+    private double[] splitValues;
+
+    /**
+     * The pool to build and answer batches on, or null
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Build a tree
+     * @param keys the keys
+     */
+    public FlatKDTree(DataSet keys) {
+        this(keys, null);
+    }
+
+    /**
+     * Build a tree
+     * @param keys the keys
+     * @param pool the pool to build and answer batches on, or null
+     */
+    public FlatKDTree(DataSet keys, ForkJoinPool pool) {
+        this.pool = pool;
+        int n = keys.size();
+        this.keys = new Instance[n];
+        dimensions = keys.get(0).size();
+        // the keys' coordinates in their original order, while building
+        double[] original = new double[n * dimensions];
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.keys[i] = keys.get(i);
+            for (int j = 0; j < dimensions; j++) {
+                original[i * dimensions + j] = this.keys[i].getContinuous(j);
+            }
+            order[i] = i;
+        }
+        // the deepest leaves are at the first depth whose
+        // nodes have at most LEAF_SIZE keys
+        int depth = 0;
+        while ((n + (1L << depth) - 1) >> depth > LEAF_SIZE) {
+            depth++;
+        }
+        int nodeCount = (1 << (depth + 1)) - 1;
+        splitDimensions = new int[nodeCount];
+        splitValues = new double[nodeCount];
+        BuildTask root = new BuildTask(original, 0, 0, n);
+        if (pool == null || n < PARALLEL_BUILD) {
+            root.compute();
+        } else {
+            pool.invoke(root);
+        }
+        coordinates = new double[n * dimensions];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(original, order[i] * dimensions,
+                coordinates, i * dimensions, dimensions);
+        }
+    }
+
+    /**
+     * Set the pool to answer batches on
+     * @param pool the pool, or null to answer them on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Split the keys of a node and build its children
+     * @param original the coordinates in original order
+     * @param node the node
+     * @param start the start of its keys in tree order
+     * @param end the end of its keys in tree order
+     * @param parallel the task to fork big children from, or null
+     */
+    private void build(double[] original, int node, int start, int end, BuildTask parallel) {
+        if (end - start <= LEAF_SIZE) {
+            splitDimensions[node] = -1;
+            return;
+        }
+        // split along the dimension the keys are most spread along
+        int dimension = 0;
+        double widest = -1;
+        for (int j = 0; j < dimensions; j++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                double value = original[order[i] * dimensions + j];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                dimension = j;
+            }
+        }
+        int middle = (start + end) >>> 1;
+        select(original, dimension, start, end, middle);
+        splitDimensions[node] = dimension;
+        splitValues[node] = original[order[middle] * dimensions + dimension];
+        BuildTask left = new BuildTask(original, 2 * node + 1, start, middle);
+        BuildTask right = new BuildTask(original, 2 * node + 2, middle, end);
+        if (parallel != null && end - start >= PARALLEL_BUILD) {
+            RecursiveAction.invokeAll(left, right);
+        } else {
+            left.compute();
+            right.compute();
+        }
+    }
+
+    /**
+     * Reorder keys so that the one at a place is the one that would
+     * be there if they were sorted along a dimension, with none after
+     * it smaller and none before it larger
+     * @param original the coordinates in original order
+     * @param dimension the dimension
+     * @param start the start of the keys in tree order
+     * @param end the end of the keys in tree order
+     * @param place the place
+     */
+    private void select(double[] original, int dimension, int start, int end, int place) {
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            // median of three pivot
+            int mid = (low + high) >>> 1;
+            double a = original[order[low] * dimensions + dimension];
+            double b = original[order[mid] * dimensions + dimension];
+            double c = original[order[high] * dimensions + dimension];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            // three way partition into less, equal, and greater
+            int lt = low;
+            int gt = high;
+            int i = low;
+            while (i <= gt) {
+                double value = original[order[i] * dimensions + dimension];
+                if (value < pivot) {
+                    swap(lt++, i++);
+                } else if (value > pivot) {
+                    swap(i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (place < lt) {
+                high = lt - 1;
+            } else if (place > gt) {
+                low = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Swap two keys in tree order
+     * @param i the first place
+     * @param j the second place
+     */
+    private void swap(int i, int j) {
+        int temp = order[i];
+        order[i] = order[j];
+        order[j] = temp;
+    }
+
+    /**
+     * Perform a k nearest neighbor search
+     * @param target the target of the search
+     * @param k how many neighbors to find
+     * @return the neighbors, nearest first
+     */
+    public Instance[] knn(Instance target, int k) {
+        return knnrange(target, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Perform a nearest neighbor search
+     * @param target the target
+     * @return the neighbor
+     */
+    public Instance[] nn(Instance target) {
+        return knn(target, 1);
+    }
+
+    /**
+     * Perform a range search
+     * @param target the target
+     * @param range the range
+     * @return the neighbors in the range, nearest first
+     */
+    public Instance[] range(Instance target, double range) {
+        return knnrange(target, Integer.MAX_VALUE, range);
+    }
+
+    /**
+     * Perform a k nearest neighbor range search
+     * @param target the target
+     * @param k the k value, with no neighbors found if it is not positive
+     * @param range the range
+     * @return the neighbors, nearest first
+     */
+    public Instance[] knnrange(Instance target, int k, double range) {
+        if (k <= 0) {
+            return new Instance[0];
+        }
+        double[] point = new double[dimensions];
+        for (int j = 0; j < dimensions; j++) {
+            point[j] = target.getContinuous(j);
+        }
+        NeighborHeap neighbors = new NeighborHeap(k, range);
+        search(0, 0, keys.length, point, neighbors);
+        int[] places = neighbors.sorted();
+        Instance[] result = new Instance[places.length];
+        for (int i = 0; i < places.length; i++) {
+            result[i] = keys[order[places[i]]];
+        }
+        return result;
+    }
+
+    /**
+     * Perform k nearest neighbor searches for every target of a
+     * data set, in chunks on the pool if there is one
+     * @param targets the targets
+     * @param k how many neighbors to find
+     * @return the neighbors of each target, nearest first
+     */
+    public Instance[][] knn(DataSet targets, int k) {
+        return knnrange(targets, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Perform k nearest neighbor range searches for every target of
+     * a data set, in chunks on the pool if there is one
+     * @param targets the targets
+     * @param k the k value
+     * @param range the range
+     * @return the neighbors of each target, nearest first
+     */
+    public Instance[][] knnrange(final DataSet targets, final int k, final double range) {
+        final Instance[][] results = new Instance[targets.size()][];
+        ParallelRange.run(pool, results.length, CHUNK, new RangeTask() {
+            public Object run(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    results[i] = knnrange(targets.get(i), k, range);
+                }
+                return null;
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Search a subtree, nearer child first, skipping
+     * children on the far side of a splitting plane
+     * that is further than the neighbors found
+     * @param node the node
+     * @param start the start of its keys in tree order
+     * @param end the end of its keys in tree order
+     * @param target the target
+     * @param neighbors the neighbors so far
+     */
+    private void search(int node, int start, int end, double[] target, NeighborHeap neighbors) {
+        int dimension = splitDimensions[node];
+        if (dimension < 0) {
+            for (int i = start; i < end; i++) {
+                int row = i * dimensions;
+                double sum = 0;
+                for (int j = 0; j < dimensions; j++) {
+                    double difference = coordinates[row + j] - target[j];
+                    sum += difference * difference;
+                }
+                neighbors.add(i, sum);
+            }
+            return;
+        }
+        int middle = (start + end) >>> 1;
+        double difference = target[dimension] - splitValues[node];
+        if (difference < 0) {
+            search(2 * node + 1, start, middle, target, neighbors);
+            if (difference * difference <= neighbors.bound()) {
+                search(2 * node + 2, middle, end, target, neighbors);
+            }
+        } else {
+            search(2 * node + 2, middle, end, target, neighbors);
+            if (difference * difference <= neighbors.bound()) {
+                search(2 * node + 1, start, middle, target, neighbors);
+            }
+        }
+    }
+
+    /**
+     * A task building the subtree under a node
+     */
+    private class BuildTask extends RecursiveAction {
+        /**
+         * The coordinates in original order
+         */
+        private double[] original;
+
+        /**
+         * The node
+         */
+        private int node;
+
+        /**
+         * The start of its keys in tree order
+         */
+        private int start;
+
+        /**
+         * The end of its keys in tree order
+         */
+        private int end;
+
+        /**
+         * Make a new task
+         * @param original the coordinates in original order
+         * @param node the node
+         * @param start the start of its keys in tree order
+         * @param end the end of its keys in tree order
+         */
+        private BuildTask(double[] original, int node, int start, int end) {
+            this.original = original;
+            this.node = node;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        protected void compute() {
+            build(original, node, start, end, pool == null ? null : this);
+        }
+    }
+}
@@ -2,11 +2,11 @@ package func.inst;
 import java.io.Serializable;
 
 import java.util.Arrays;
-import java.util.Random;
 
 import shared.*;
 import shared.DataSet;
 import shared.Instance;
+import util.ABAGAILArrays;
 
 /**
  * A KDTree implementation
@@ -16,11 +16,6 @@ import shared.Instance;
  */
 public class KDTree implements Serializable {
 
-    /**
-     * Random number generator
-     */
-    private static final Random random = new Random();
-
     /**
      * The head node of the kd tree
      */
@@ -142,8 +137,8 @@ public class KDTree implements Serializable {
      * @return the splitter
      */
     private int chooseSplitterRandom(KDTreeNode[] nodes, int start, int end) {
-      int splitter = random.nextInt(end - start) + start;
-      int dimension = random.nextInt(dimensions);
+      int splitter = ABAGAILArrays.random.nextInt(end - start) + start;
+      int dimension = ABAGAILArrays.random.nextInt(dimensions);
       nodes[splitter].setDimension(dimension);
       return splitter;
     }
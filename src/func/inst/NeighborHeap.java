@@ -0,0 +1,134 @@
+package func.inst;
+
+/**
+ * The nearest points found so far by a search, kept in
+ * a max heap on distance in primitive arrays.  Points
+ * are named by int indices that mean whatever the
+ * searching class wants them to mean.
+ * @version 1.0
+ */
+class NeighborHeap {
+    /**
+     * The starting capacity
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The most neighbors to keep
+     */
+    private int k;
+
+    /**
+     * The furthest a neighbor may be
+     */
+    private double range;
+
+    /**
+     * The distances
+     */
+    private double[] distances;
+
+    /**
+     * The indices of the points
+     */
+    private int[] indices;
+
+    /**
+     * The number of neighbors
+     */
+    private int size;
+
+    /**
+     * Make a new empty set of neighbors
+     * @param k the most neighbors to keep
+     * @param range the furthest a neighbor may be
+     */
+    NeighborHeap(int k, double range) {
+        this.k = k;
+        this.range = range;
+        int capacity = Math.min(k, INITIAL_CAPACITY);
+        distances = new double[capacity];
+        indices = new int[capacity];
+    }
+
+    /**
+     * Get the furthest a new neighbor may be
+     * @return the distance
+     */
+    double bound() {
+        return size < k ? range : distances[0];
+    }
+
+    /**
+     * Offer a point as a neighbor
+     * @param index the index of the point
+     * @param distance its distance
+     */
+    void add(int index, double distance) {
+        if (size < k) {
+            if (distance > range) {
+                return;
+            }
+            if (size == distances.length) {
+                int capacity = (int) Math.min(k, 2L * size);
+                double[] newDistances = new double[capacity];
+                int[] newIndices = new int[capacity];
+                System.arraycopy(distances, 0, newDistances, 0, size);
+                System.arraycopy(indices, 0, newIndices, 0, size);
+                distances = newDistances;
+                indices = newIndices;
+            }
+            // sift up
+            int i = size++;
+            while (i > 0 && distances[(i - 1) / 2] < distance) {
+                distances[i] = distances[(i - 1) / 2];
+                indices[i] = indices[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            distances[i] = distance;
+            indices[i] = index;
+        } else if (distance < distances[0]) {
+            siftDown(0, index, distance, size);
+        }
+    }
+
+    /**
+     * Put a neighbor at a place in the heap and sift it down
+     * @param i the place in the heap
+     * @param index the index of the point
+     * @param distance its distance
+     * @param size the size of the heap
+     */
+    private void siftDown(int i, int index, double distance, int size) {
+        int child = 2 * i + 1;
+        while (child < size) {
+            if (child + 1 < size && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (distances[child] <= distance) {
+                break;
+            }
+            distances[i] = distances[child];
+            indices[i] = indices[child];
+            i = child;
+            child = 2 * i + 1;
+        }
+        distances[i] = distance;
+        indices[i] = index;
+    }
+
+    /**
+     * Empty the heap into an array, nearest first
+     * @return the indices of the neighbors
+     */
+    int[] sorted() {
+        int[] result = new int[size];
+        for (int n = size - 1; n >= 0; n--) {
+            result[n] = indices[0];
+            // move the last to the top and sift it down
+            siftDown(0, indices[n], distances[n], n);
+        }
+        size = 0;
+        return result;
+    }
+}
@@ -0,0 +1,444 @@
+package func.inst;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import dist.Distribution;
+import shared.DataSet;
+import shared.DistanceMeasure;
+import shared.Instance;
+import util.ParallelRange;
+import util.PerThreadRandom;
+import util.RangeTask;
+
+/**
+ * An approximate nearest neighbor index made of several random
+ * trees.  Each node of a tree picks two of its keys at random and
+ * splits its keys at the median of the difference between their
+ * distances to the two.  With the euclidean distance this is a
+ * projection onto the line through the two keys, and with other
+ * distance measures it is a generalized hyperplane.  A search walks
+ * all the trees at once, best first by how near the target is to
+ * the splits it skipped, until it has seen a given number of
+ * candidates, and returns the nearest of those.  More trees or
+ * more candidates give better recall in more time.
+ * @version 1.0
+ */
+public class RandomProjectionForest implements Serializable {
+
+    /**
+     * The most keys in a leaf
+     */
+    private static final int LEAF_SIZE = 16;
+
+    /**
+     * The keys
+     */
+    private Instance[] keys;
+
+    /**
+     * The distance measure
+     */
+    private DistanceMeasure measure;
+
+    /**
+     * The number of nodes in each tree
+     */
+    private int nodeCount;
+
+    /**
+     * The index of the key at each place in tree order, for each tree
+     */
+    private int[][] orders;
+
+    /**
+     * The two keys each node splits by, one node after
+     * another, with -1 for the first of a leaf, for each tree
+     */
+    private int[][] pivots;
+
+    /**
+     * The value each node splits at, for each tree
+     */
+    private double[][] thresholds;
+
+    /**
+     * The number of candidates to look at in a search,
+     * or zero for k times the number of trees
+     */
+    private int searchCount;
+
+    /**
+     * Build a forest
+     * @param keys the keys
+     * @param measure the distance measure
+     * @param treeCount the number of trees
+     */
+    public RandomProjectionForest(DataSet keys, DistanceMeasure measure, int treeCount) {
+        this(keys, measure, treeCount, null);
+    }
+
+    /**
+     * Build a forest
+     * @param keys the keys
+     * @param measure the distance measure
+     * @param treeCount the number of trees
+     * @param pool the pool to build the trees on, or null
+     */
+    public RandomProjectionForest(DataSet keys, DistanceMeasure measure,
+            int treeCount, ForkJoinPool pool) {
+        if (treeCount < 1) {
+            throw new IllegalArgumentException("treeCount must be positive");
+        }
+        this.measure = measure;
+        this.keys = new Instance[keys.size()];
+        for (int i = 0; i < this.keys.length; i++) {
+            this.keys[i] = keys.get(i);
+        }
+        int depth = 0;
+        while ((this.keys.length + (1L << depth) - 1) >> depth > LEAF_SIZE) {
+            depth++;
+        }
+        nodeCount = (1 << (depth + 1)) - 1;
+        orders = new int[treeCount][];
+        pivots = new int[treeCount][];
+        thresholds = new double[treeCount][];
+        // each tree draws from its own stream so the
+        // trees are the same however they are built
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        final PerThreadRandom.Stream[] streams = new PerThreadRandom.Stream[treeCount];
+        for (int t = 0; t < treeCount; t++) {
+            streams[t] = random.newStream(random.nextLong());
+        }
+        ParallelRange.run(pool, treeCount, 1, new RangeTask() {
+            public Object run(int tree, int next) {
+                buildTree(tree, streams[tree]);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Set the number of candidates to look at in a search
+     * @param searchCount the number, or zero for k times the number of trees
+     */
+    public void setSearchCount(int searchCount) {
+        this.searchCount = searchCount;
+    }
+
+    /**
+     * Get the number of candidates to look at in a search
+     * @return the number, or zero for k times the number of trees
+     */
+    public int getSearchCount() {
+        return searchCount;
+    }
+
+    /**
+     * Get the number of trees
+     * @return the number of trees
+     */
+    public int getTreeCount() {
+        return orders.length;
+    }
+
+    /**
+     * Build a tree
+     * @param tree the tree
+     * @param stream the random stream to build it with
+     */
+    private void buildTree(int tree, PerThreadRandom.Stream stream) {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        PerThreadRandom.Stream previous = random.setStream(stream);
+        try {
+            orders[tree] = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                orders[tree][i] = i;
+            }
+            pivots[tree] = new int[2 * nodeCount];
+            thresholds[tree] = new double[nodeCount];
+            build(tree, 0, 0, keys.length, new double[keys.length]);
+        } finally {
+            random.setStream(previous);
+        }
+    }
+
+    /**
+     * Split the keys of a node and build its children
+     * @param tree the tree
+     * @param node the node
+     * @param start the start of its keys in tree order
+     * @param end the end of its keys in tree order
+     * @param values space for the keys' split values
+     */
+    private void build(int tree, int node, int start, int end, double[] values) {
+        int[] order = orders[tree];
+        if (end - start <= LEAF_SIZE) {
+            pivots[tree][2 * node] = -1;
+            return;
+        }
+        // two different places at random
+        int first = start + Distribution.random.nextInt(end - start);
+        int second = start + Distribution.random.nextInt(end - start - 1);
+        if (second >= first) {
+            second++;
+        }
+        Instance a = keys[order[first]];
+        Instance b = keys[order[second]];
+        pivots[tree][2 * node] = order[first];
+        pivots[tree][2 * node + 1] = order[second];
+        for (int i = start; i < end; i++) {
+            values[i] = measure.value(keys[order[i]], a) - measure.value(keys[order[i]], b);
+        }
+        int middle = (start + end) >>> 1;
+        select(order, values, start, end, middle);
+        thresholds[tree][node] = values[middle];
+        build(tree, 2 * node + 1, start, middle, values);
+        build(tree, 2 * node + 2, middle, end, values);
+    }
+
+    /**
+     * Reorder keys so that the one at a place is the one that would
+     * be there if they were sorted by value, with none after it
+     * smaller and none before it larger
+     * @param order the keys in tree order
+     * @param values the keys' values, reordered with them
+     * @param start the start of the keys
+     * @param end the end of the keys
+     * @param place the place
+     */
+    private static void select(int[] order, double[] values, int start, int end, int place) {
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            // median of three pivot
+            int mid = (low + high) >>> 1;
+            double a = values[low];
+            double b = values[mid];
+            double c = values[high];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            // three way partition into less, equal, and greater
+            int lt = low;
+            int gt = high;
+            int i = low;
+            while (i <= gt) {
+                if (values[i] < pivot) {
+                    swap(order, values, lt++, i++);
+                } else if (values[i] > pivot) {
+                    swap(order, values, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (place < lt) {
+                high = lt - 1;
+            } else if (place > gt) {
+                low = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Swap two keys and their values
+     * @param order the keys
+     * @param values the values
+     * @param i the first place
+     * @param j the second place
+     */
+    private static void swap(int[] order, double[] values, int i, int j) {
+        int tempKey = order[i];
+        order[i] = order[j];
+        order[j] = tempKey;
+        double tempValue = values[i];
+        values[i] = values[j];
+        values[j] = tempValue;
+    }
+
+    /**
+     * Perform an approximate k nearest neighbor search
+     * @param target the target of the search
+     * @param k how many neighbors to find
+     * @return the neighbors, nearest first
+     */
+    public Instance[] knn(Instance target, int k) {
+        return knnrange(target, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Perform an approximate nearest neighbor search
+     * @param target the target
+     * @return the neighbor
+     */
+    public Instance[] nn(Instance target) {
+        return knn(target, 1);
+    }
+
+    /**
+     * Perform an approximate k nearest neighbor range search
+     * @param target the target
+     * @param k the k value, with no neighbors found if it is not positive
+     * @param range the range
+     * @return the neighbors, nearest first
+     */
+    public Instance[] knnrange(Instance target, int k, double range) {
+        if (k <= 0) {
+            return new Instance[0];
+        }
+        long wanted = searchCount > 0 ? searchCount : (long) k * orders.length;
+        wanted = Math.min(wanted, keys.length);
+        NodeQueue queue = new NodeQueue();
+        for (int t = 0; t < orders.length; t++) {
+            queue.push(Double.POSITIVE_INFINITY, t * nodeCount, 0, keys.length);
+        }
+        int[] candidates = new int[(int) Math.min(wanted + LEAF_SIZE, keys.length)];
+        int candidateCount = 0;
+        while (queue.size > 0 && candidateCount < wanted) {
+            double priority = queue.priorities[0];
+            int tree = queue.nodes[0] / nodeCount;
+            int node = queue.nodes[0] % nodeCount;
+            int start = queue.starts[0];
+            int end = queue.ends[0];
+            queue.pop();
+            // walk down to a leaf, queueing the children passed by
+            while (pivots[tree][2 * node] >= 0) {
+                int middle = (start + end) >>> 1;
+                double value = measure.value(target, keys[pivots[tree][2 * node]])
+                    - measure.value(target, keys[pivots[tree][2 * node + 1]])
+                    - thresholds[tree][node];
+                if (value < 0) {
+                    queue.push(Math.min(priority, value),
+                        tree * nodeCount + 2 * node + 2, middle, end);
+                    node = 2 * node + 1;
+                    end = middle;
+                } else {
+                    queue.push(Math.min(priority, -value),
+                        tree * nodeCount + 2 * node + 1, start, middle);
+                    node = 2 * node + 2;
+                    start = middle;
+                }
+            }
+            if (candidateCount + end - start > candidates.length) {
+                candidates = Arrays.copyOf(candidates,
+                    Math.max(2 * candidates.length, candidateCount + end - start));
+            }
+            for (int i = start; i < end; i++) {
+                candidates[candidateCount++] = orders[tree][i];
+            }
+        }
+        // the same key may be in a leaf of every tree
+        Arrays.sort(candidates, 0, candidateCount);
+        NeighborHeap neighbors = new NeighborHeap(k, range);
+        for (int i = 0; i < candidateCount; i++) {
+            if (i == 0 || candidates[i] != candidates[i - 1]) {
+                neighbors.add(candidates[i], measure.value(keys[candidates[i]], target));
+            }
+        }
+        int[] indices = neighbors.sorted();
+        Instance[] result = new Instance[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = keys[indices[i]];
+        }
+        return result;
+    }
+
+    /**
+     * The nodes left to search, in a max heap on priority
+     */
+    private static class NodeQueue {
+        /**
+         * The priorities
+         */
+        private double[] priorities = new double[LEAF_SIZE];
+
+        /**
+         * The nodes, numbered across the trees
+         */
+        private int[] nodes = new int[LEAF_SIZE];
+
+        /**
+         * The start of each node's keys in tree order
+         */
+        private int[] starts = new int[LEAF_SIZE];
+
+        /**
+         * The end of each node's keys in tree order
+         */
+        private int[] ends = new int[LEAF_SIZE];
+
+        /**
+         * The number of nodes
+         */
+        private int size;
+
+        /**
+         * Add a node
+         * @param priority its priority
+         * @param node the node
+         * @param start the start of its keys
+         * @param end the end of its keys
+         */
+        private void push(double priority, int node, int start, int end) {
+            if (size == priorities.length) {
+                priorities = Arrays.copyOf(priorities, 2 * size);
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                starts = Arrays.copyOf(starts, 2 * size);
+                ends = Arrays.copyOf(ends, 2 * size);
+            }
+            int i = size++;
+            while (i > 0 && priorities[(i - 1) / 2] < priority) {
+                move((i - 1) / 2, i);
+                i = (i - 1) / 2;
+            }
+            set(i, priority, node, start, end);
+        }
+
+        /**
+         * Remove the node with the highest priority
+         */
+        private void pop() {
+            size--;
+            double priority = priorities[size];
+            int i = 0;
+            int child = 1;
+            while (child < size) {
+                if (child + 1 < size && priorities[child + 1] > priorities[child]) {
+                    child++;
+                }
+                if (priorities[child] <= priority) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+                child = 2 * i + 1;
+            }
+            move(size, i);
+        }
+
+        /**
+         * Copy an entry from one place to another
+         * @param from the place to copy from
+         * @param to the place to copy to
+         */
+        private void move(int from, int to) {
+            set(to, priorities[from], nodes[from], starts[from], ends[from]);
+        }
+
+        /**
+         * Set the entry at a place
+         * @param i the place
+         * @param priority the priority
+         * @param node the node
+         * @param start the start of its keys
+         * @param end the end of its keys
+         */
+        private void set(int i, double priority, int node, int start, int end) {
+            priorities[i] = priority;
+            nodes[i] = node;
+            starts[i] = start;
+            ends[i] = end;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package func.nn;
+
+import util.linalg.Vector;
+
+/**
+ * A network that keeps its weights and activations in the flat
+ * arrays of an engine instead of in node, link and layer objects.
+ * Its weights are ordered the same way as those of the equivalent
+ * layered network, so weight vectors can be moved between the two.
+ * @version 1.0
+ */
+public abstract class DenseNetwork extends NeuralNetwork {
+
+    /**
+     * The engine doing the work
+     */
+    private DenseNetworkEngine engine;
+
+    /**
+     * Make a new network around an engine
+     * @param engine the engine
+     */
+    protected DenseNetwork(DenseNetworkEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Get the engine backing this network
+     * @return the engine
+     */
+    public DenseNetworkEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Get the number of hidden layers
+     * @return the number of hidden layers
+     */
+    public int getHiddenLayerCount() {
+        return engine.getLayerCount() - 2;
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#run()
+     */
+    public void run() {
+        engine.run();
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#setInputValues(util.linalg.Vector)
+     */
+    public void setInputValues(Vector values) {
+        engine.setInputValues(values);
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#getOutputValues()
+     */
+    public Vector getOutputValues() {
+        return engine.getOutputValues();
+    }
+
+    /**
+     * Get the index of the output with the largest value
+     * @return the index
+     */
+    public int getDiscreteOutputValue() {
+        return engine.getGreatestOutputIndex();
+    }
+
+    /**
+     * Get the binary output value
+     * @return the binary output value
+     */
+    public boolean getBinaryOutputValue() {
+        return engine.getOutputArray()[0] > .5;
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#getWeights()
+     */
+    public double[] getWeights() {
+        return (double[]) engine.getWeightArray().clone();
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#setWeights(double[])
+     */
+    public void setWeights(double[] weights) {
+        System.arraycopy(weights, 0, engine.getWeightArray(), 0, weights.length);
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#setWeights(util.linalg.Vector)
+     */
+    public void setWeights(Vector weights) {
+        double[] w = engine.getWeightArray();
+        for (int i = 0; i < weights.size(); i++) {
+            w[i] = weights.get(i);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package func.nn;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import util.ABAGAILArrays;
+import util.linalg.DenseVector;
+import util.linalg.Vector;
+
+import func.nn.activation.ActivationFunction;
+import func.nn.activation.DifferentiableActivationFunction;
+
+/**
+ * The storage and arithmetic behind the array backed networks.
+ * Every layer but the output layer ends with a bias unit, and
+ * all of the weights live in one array laid out in exactly the
+ * order the object networks list their links: for each layer,
+ * for each node in order, the weights of its incoming links.
+ * That includes the unused links the object networks make into
+ * the bias node of every hidden layer, so that weight vectors
+ * can be moved freely between the two kinds of network.
+ * @version 1.0
+ */
+public class DenseNetworkEngine implements Serializable {
+
+    /**
+     * The number of nodes in each layer, not counting bias nodes
+     */
+    private int[] nodeCounts;
+
+    /**
+     * The activation function of each layer, null for the input
+     */
+    private ActivationFunction[] functions;
+
+    /**
+     * Whether the output layer is a soft max layer
+     */
+    private boolean softmax;
+
+    /**
+     * All of the weights
+     */
+    private double[] weights;
+
+    /**
+     * The offset of the weights into each layer
+     */
+    private int[] offsets;
+
+    /**
+     * The activations of each layer, bias unit last
+     */
+    private double[][] activations;
+
+    /**
+     * The weighted input sums of each layer
+     */
+    private double[][] sums;
+
+    /**
+     * The error with respect to the weighted input
+     * sum of each node, null if this is not trainable
+     */
+    private double[][] deltas;
+
+    /**
+     * The error derivative of each weight
+     */
+    private double[] errors;
+
+    /**
+     * The last error derivative of each weight
+     */
+    private double[] lastErrors;
+
+    /**
+     * The last change made to each weight
+     */
+    private double[] lastChanges;
+
+    /**
+     * The learning rate of each weight
+     */
+    private double[] learningRates;
+
+    /**
+     * Make a new engine with random weights in [-1, 1)
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the hidden layer activation function
+     * @param outputFunction the output layer activation function
+     * @param softmax whether to normalize the outputs with soft max
+     * @param trainable whether to keep back propagation state
+     */
+    public DenseNetworkEngine(int[] nodeCounts, ActivationFunction transfer,
+            ActivationFunction outputFunction, boolean softmax, boolean trainable) {
+        if (nodeCounts.length < 2) {
+            throw new IllegalArgumentException();
+        }
+        int layers = nodeCounts.length;
+        this.nodeCounts = (int[]) nodeCounts.clone();
+        this.softmax = softmax;
+        functions = new ActivationFunction[layers];
+        activations = new double[layers][];
+        sums = new double[layers][];
+        offsets = new int[layers];
+        int count = 0;
+        for (int l = 0; l < layers; l++) {
+            boolean output = l == layers - 1;
+            activations[l] = new double[output ? nodeCounts[l] : nodeCounts[l] + 1];
+            if (!output) {
+                activations[l][nodeCounts[l]] = 1;
+            }
+            sums[l] = new double[nodeCounts[l]];
+            if (l > 0) {
+                functions[l] = output ? outputFunction : transfer;
+                offsets[l] = count;
+                count += nodeCounts[l] * (nodeCounts[l - 1] + 1);
+                if (!output) {
+                    count += nodeCounts[l - 1];
+                }
+            }
+        }
+        weights = new double[count];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = ABAGAILArrays.random.nextDouble() * 2 - 1;
+        }
+        if (trainable) {
+            deltas = new double[layers][];
+            for (int l = 0; l < layers; l++) {
+                deltas[l] = new double[nodeCounts[l]];
+            }
+            errors = new double[count];
+            lastErrors = new double[count];
+            lastChanges = new double[count];
+            learningRates = new double[count];
+        }
+    }
+
+    /**
+     * Make an empty engine for copying into
+     */
+    private DenseNetworkEngine() {
+    }
+
+    /**
+     * Make a deep copy of this engine
+     * @return the copy
+     */
+    public DenseNetworkEngine copy() {
+        DenseNetworkEngine copy = new DenseNetworkEngine();
+        copy.nodeCounts = nodeCounts;
+        copy.functions = functions;
+        copy.softmax = softmax;
+        copy.offsets = offsets;
+        copy.weights = (double[]) weights.clone();
+        copy.activations = copy(activations);
+        copy.sums = copy(sums);
+        if (deltas != null) {
+            copy.deltas = copy(deltas);
+            copy.errors = (double[]) errors.clone();
+            copy.lastErrors = (double[]) lastErrors.clone();
+            copy.lastChanges = (double[]) lastChanges.clone();
+            copy.learningRates = (double[]) learningRates.clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Copy a jagged array
+     * @param a the array
+     * @return the copy
+     */
+    private static double[][] copy(double[][] a) {
+        double[][] copy = new double[a.length][];
+        for (int i = 0; i < a.length; i++) {
+            copy[i] = (double[]) a[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Get the number of layers
+     * @return the number of layers
+     */
+    public int getLayerCount() {
+        return nodeCounts.length;
+    }
+
+    /**
+     * Get the number of nodes in a layer, not counting the bias node
+     * @param layer the layer
+     * @return the number of nodes
+     */
+    public int getNodeCount(int layer) {
+        return nodeCounts[layer];
+    }
+
+    /**
+     * Get the number of weights
+     * @return the number of weights
+     */
+    public int getWeightCount() {
+        return weights.length;
+    }
+
+    /**
+     * Get the array holding the weights, not a copy
+     * @return the weights
+     */
+    public double[] getWeightArray() {
+        return weights;
+    }
+
+    /**
+     * Get the array holding the error derivatives, not a copy
+     * @return the error derivatives
+     */
+    public double[] getErrorArray() {
+        return errors;
+    }
+
+    /**
+     * Get the array holding the last error derivatives, not a copy
+     * @return the last error derivatives
+     */
+    public double[] getLastErrorArray() {
+        return lastErrors;
+    }
+
+    /**
+     * Get the array holding the last changes in weight, not a copy
+     * @return the last changes
+     */
+    public double[] getLastChangeArray() {
+        return lastChanges;
+    }
+
+    /**
+     * Get the array holding the learning rates, not a copy
+     * @return the learning rates
+     */
+    public double[] getLearningRateArray() {
+        return learningRates;
+    }
+
+    /**
+     * Get the offset of the first weight into a layer
+     * @param layer the layer, at least one
+     * @return the offset
+     */
+    public int getWeightOffset(int layer) {
+        return offsets[layer];
+    }
+
+    /**
+     * Get the activation of the node a weight comes from
+     * @param index the index of the weight
+     * @return the activation
+     */
+    public double getInValue(int index) {
+        int layer = layerOf(index);
+        return activations[layer - 1][inNodeOf(index, layer)];
+    }
+
+    /**
+     * Get the activation of the node a weight leads into
+     * @param index the index of the weight
+     * @return the activation, one for the bias node of a hidden layer
+     */
+    public double getOutValue(int index) {
+        int layer = layerOf(index);
+        return activations[layer][outNodeOf(index, layer)];
+    }
+
+    /**
+     * Get the error of the node a weight comes from,
+     * as of the last back propagation
+     * @param index the index of the weight
+     * @return the error, zero for input and bias nodes
+     */
+    public double getInError(int index) {
+        int layer = layerOf(index);
+        int node = inNodeOf(index, layer);
+        return node < nodeCounts[layer - 1] ? deltas[layer - 1][node] : 0;
+    }
+
+    /**
+     * Get the error of the node a weight leads into,
+     * as of the last back propagation
+     * @param index the index of the weight
+     * @return the error, zero for bias nodes
+     */
+    public double getOutError(int index) {
+        int layer = layerOf(index);
+        int node = outNodeOf(index, layer);
+        return node < nodeCounts[layer] ? deltas[layer][node] : 0;
+    }
+
+    /**
+     * Add the error derivative of one weight from the current node
+     * errors, as back propagating through one link would
+     * @param index the index of the weight
+     */
+    public void backpropagate(int index) {
+        errors[index] += getInValue(index) * getOutError(index);
+    }
+
+    /**
+     * Find the layer a weight leads into
+     * @param index the index of the weight
+     * @return the layer
+     */
+    private int layerOf(int index) {
+        if (index < 0 || index >= weights.length) {
+            throw new IndexOutOfBoundsException("no weight " + index);
+        }
+        int layer = offsets.length - 1;
+        while (offsets[layer] > index) {
+            layer--;
+        }
+        return layer;
+    }
+
+    /**
+     * Find the node in the layer before that a weight comes from
+     * @param index the index of the weight
+     * @param layer the layer the weight leads into
+     * @return the node, the bias node being last
+     */
+    private int inNodeOf(int index, int layer) {
+        int inCount = activations[layer - 1].length;
+        int position = index - offsets[layer];
+        int regular = nodeCounts[layer] * inCount;
+        // weights into a hidden bias node come after the rest
+        return position < regular ? position % inCount : position - regular;
+    }
+
+    /**
+     * Find the node a weight leads into
+     * @param index the index of the weight
+     * @param layer the layer the weight leads into
+     * @return the node, the bias node being last
+     */
+    private int outNodeOf(int index, int layer) {
+        int inCount = activations[layer - 1].length;
+        int position = index - offsets[layer];
+        return Math.min(position / inCount, nodeCounts[layer]);
+    }
+
+    /**
+     * Get the activation function of a layer
+     * @param layer the layer
+     * @return the function, null for the input layer
+     */
+    public ActivationFunction getActivationFunction(int layer) {
+        return functions[layer];
+    }
+
+    /**
+     * Whether the output layer is a soft max layer
+     * @return true if it is
+     */
+    public boolean isSoftMax() {
+        return softmax;
+    }
+
+    /**
+     * Set the input values
+     * @param values the values
+     */
+    public void setInputValues(Vector values) {
+        double[] input = activations[0];
+        for (int i = 0; i < values.size(); i++) {
+            input[i] = values.get(i);
+        }
+    }
+
+    /**
+     * Set the input values
+     * @param values the values
+     */
+    public void setInputValues(double[] values) {
+        System.arraycopy(values, 0, activations[0], 0, values.length);
+    }
+
+    /**
+     * Get a copy of the output values
+     * @return the output values
+     */
+    public Vector getOutputValues() {
+        return new DenseVector((double[]) activations[activations.length - 1].clone());
+    }
+
+    /**
+     * Get the array of output values, not a copy
+     * @return the output values
+     */
+    public double[] getOutputArray() {
+        return activations[activations.length - 1];
+    }
+
+    /**
+     * Run the input values through the network
+     */
+    public void run() {
+        int last = nodeCounts.length - 1;
+        for (int l = 1; l <= last; l++) {
+            double[] in = activations[l - 1];
+            double[] out = activations[l];
+            double[] sum = sums[l];
+            int inCount = in.length;
+            int n = nodeCounts[l];
+            int k = offsets[l];
+            boolean linear = softmax && l == last;
+            ActivationFunction f = functions[l];
+            for (int j = 0; j < n; j++) {
+                double s = 0;
+                for (int i = 0; i < inCount; i++) {
+                    s += in[i] * weights[k + i];
+                }
+                k += inCount;
+                sum[j] = s;
+                out[j] = linear ? s : f.value(s);
+            }
+        }
+        if (softmax) {
+            double[] out = activations[last];
+            // trick stolen from Torch library for preventing overflows
+            double shift = out[0];
+            for (int j = 1; j < out.length; j++) {
+                shift = Math.max(shift, out[j]);
+            }
+            double total = 0;
+            for (int j = 0; j < out.length; j++) {
+                out[j] = Math.exp(out[j] - shift);
+                total += out[j];
+            }
+            for (int j = 0; j < out.length; j++) {
+                out[j] /= total;
+            }
+        }
+    }
+
+    /**
+     * Set the errors of the output nodes
+     * @param outputErrors the output errors
+     */
+    public void setOutputErrors(double[] outputErrors) {
+        double[] delta = deltas[deltas.length - 1];
+        System.arraycopy(outputErrors, 0, delta, 0, delta.length);
+    }
+
+    /**
+     * Back propagate the output errors and add
+     * the resulting weight derivatives to the errors
+     */
+    public void backpropagate() {
+        int last = nodeCounts.length - 1;
+        for (int l = last; l >= 1; l--) {
+            double[] delta = deltas[l];
+            int n = nodeCounts[l];
+            if (l < last) {
+                // the weighted errors of the next layer
+                double[] next = deltas[l + 1];
+                int stride = activations[l].length;
+                int k = offsets[l + 1];
+                for (int j = 0; j < n; j++) {
+                    delta[j] = 0;
+                }
+                for (int m = 0; m < next.length; m++) {
+                    double d = next[m];
+                    for (int j = 0; j < n; j++) {
+                        delta[j] += d * weights[k + j];
+                    }
+                    k += stride;
+                }
+                DifferentiableActivationFunction f =
+                    (DifferentiableActivationFunction) functions[l];
+                double[] sum = sums[l];
+                for (int j = 0; j < n; j++) {
+                    delta[j] = f.derivative(sum[j]) * delta[j];
+                }
+            }
+            double[] in = activations[l - 1];
+            int inCount = in.length;
+            int k = offsets[l];
+            for (int j = 0; j < n; j++) {
+                double d = delta[j];
+                for (int i = 0; i < inCount; i++) {
+                    errors[k + i] += in[i] * d;
+                }
+                k += inCount;
+            }
+        }
+    }
+
+    /**
+     * Make the current errors the last errors and clear them
+     */
+    public void clearError() {
+        System.arraycopy(errors, 0, lastErrors, 0, errors.length);
+        Arrays.fill(errors, 0);
+    }
+
+    /**
+     * Get the index of the output with the largest value
+     * @return the index
+     */
+    public int getGreatestOutputIndex() {
+        double[] out = activations[activations.length - 1];
+        int largest = 0;
+        for (int i = 1; i < out.length; i++) {
+            if (out[i] > out[largest]) {
+                largest = i;
+            }
+        }
+        return largest;
+    }
+
+}
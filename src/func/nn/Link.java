@@ -3,7 +3,8 @@
 package func.nn;
 
 import java.io.Serializable;
-import java.util.Random;
+
+import util.ABAGAILArrays;
 
 /**
  * A link between two nodes in a neural network
@@ -11,11 +12,6 @@ import java.util.Random;
  * @version 1.0
  */
 public class Link implements Serializable {
-    /**
-     * The random number generator
-     */
-    private static Random random = new Random();
-	
 	/**
 	 * The weight
 	 */
@@ -36,7 +32,15 @@ public class Link implements Serializable {
      * initializes the weight to a random value
      */
     public Link() {
-        weight = random.nextDouble() * 2 - 1;
+        weight = ABAGAILArrays.random.nextDouble() * 2 - 1;
+    }
+    
+    /**
+     * Create a new link with the given weight
+     * @param weight the weight
+     */
+    protected Link(double weight) {
+        this.weight = weight;
     }
 	
 	/**
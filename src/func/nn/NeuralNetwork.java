@@ -2,9 +2,15 @@
 
 package func.nn;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.List;
 
+import shared.Copyable;
 import util.linalg.Vector;
 
 /**
@@ -12,7 +18,7 @@ import util.linalg.Vector;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public abstract class NeuralNetwork implements Serializable {
+public abstract class NeuralNetwork implements Serializable, Copyable {
 	
 	/**
 	 * Get the output values
@@ -76,4 +82,26 @@ public abstract class NeuralNetwork implements Serializable {
         }
     }
 
+    /**
+     * Make a deep copy of this network, weights included.
+     * The default implementation round trips the network
+     * through serialization.
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(this);
+            out.close();
+            ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()));
+            return (NeuralNetwork) in.readObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
@@ -42,6 +42,20 @@ public class BackPropagationLink extends Link {
      */
     private double learningRate;
     
+    /**
+     * Create a new link with a random weight
+     */
+    public BackPropagationLink() {
+    }
+    
+    /**
+     * Create a new link with the given weight
+     * @param weight the weight
+     */
+    protected BackPropagationLink(double weight) {
+        super(weight);
+    }
+    
     /**
      * @see nn.Link#changeWeight(double)
      */
@@ -9,7 +9,7 @@ import func.nn.feedfwd.FeedForwardNetwork;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class BackPropagationNetwork extends FeedForwardNetwork {
+public class BackPropagationNetwork extends FeedForwardNetwork implements TrainableNetwork {
 
     /**
      * Backpropagte through the network.
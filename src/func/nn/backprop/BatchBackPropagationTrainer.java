@@ -1,12 +1,25 @@
 package func.nn.backprop;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import shared.DataSet;
 import shared.GradientErrorMeasure;
 import shared.Instance;
+import func.nn.DenseNetworkEngine;
 import func.nn.NetworkTrainer;
+import func.nn.NeuralNetwork;
+import util.ParallelRange;
+import util.RangeTask;
 
 /**
- * A standard batch back propagation trainer
+ * A standard batch back propagation trainer.
+ * It can also update the weights after every mini batch
+ * instead of once per pass, and can split each batch
+ * across copies of the network on a fork join pool,
+ * adding up their error derivatives before the update.
+ * The error measure must be safe to use from several
+ * threads at once when a pool is given.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -17,31 +30,90 @@ public class BatchBackPropagationTrainer extends NetworkTrainer {
      */
     private WeightUpdateRule rule;
     
+    /**
+     * The number of patterns per weight update,
+     * or zero to use all of them
+     */
+    private int batchSize;
+    
+    /**
+     * The pool to compute derivatives on, or null
+     */
+    private transient ForkJoinPool pool;
+    
+    /**
+     * The copies of the network used by the pool
+     */
+    private transient TrainableNetwork[] replicas;
+    
     /**
      * Make a new back propagation trainer
      * @param patterns the patterns to train on
      * @param network the network to train
      * @param errorMeasure the error measure to use
      */
-    public BatchBackPropagationTrainer(DataSet patterns, 
-            BackPropagationNetwork network, 
+    public <N extends NeuralNetwork & TrainableNetwork> BatchBackPropagationTrainer(
+            DataSet patterns, N network, 
             GradientErrorMeasure errorMeasure,
             WeightUpdateRule rule) {
+        this(patterns, network, errorMeasure, rule, 0, null);
+    }
+    
+    /**
+     * Make a new back propagation trainer
+     * @param patterns the patterns to train on
+     * @param network the network to train
+     * @param errorMeasure the error measure to use
+     * @param rule the weight update rule
+     * @param batchSize the number of patterns per update, zero for all
+     * @param pool the pool to split each batch over, or null
+     */
+    public <N extends NeuralNetwork & TrainableNetwork> BatchBackPropagationTrainer(
+            DataSet patterns, N network, 
+            GradientErrorMeasure errorMeasure,
+            WeightUpdateRule rule, int batchSize, ForkJoinPool pool) {
         super(patterns, network, errorMeasure);
         this.rule = rule;
+        this.batchSize = batchSize;
+        this.pool = pool;
     }
 
     /**
      * @see nn.Trainer#train()
      */
     public double train() {
-        BackPropagationNetwork network =
-            (BackPropagationNetwork) getNetwork();
+        TrainableNetwork network = (TrainableNetwork) getNetwork();
+        DataSet patterns = getDataSet();
+        int size = patterns.size();
+        int batch = batchSize <= 0 ? size : batchSize;
+        double error = 0;
+        for (int start = 0; start < size; start += batch) {
+            int end = Math.min(size, start + batch);
+            if (pool == null) {
+                error += backpropagate(network, start, end);
+            } else {
+                error += backpropagateInParallel(network, start, end);
+            }
+            network.updateWeights(rule);
+            network.clearError();
+        }
+        return error / size;
+    }
+    
+    /**
+     * Run a range of patterns through a network and
+     * add up the error derivatives in its links
+     * @param network the network
+     * @param start the first pattern
+     * @param end one past the last pattern
+     * @return the total error over the range
+     */
+    private double backpropagate(TrainableNetwork network, int start, int end) {
         GradientErrorMeasure measure =
             (GradientErrorMeasure) getErrorMeasure();
         DataSet patterns = getDataSet();
         double error = 0;
-        for (int i = 0; i < patterns.size(); i++) {
+        for (int i = start; i < end; i++) {
             Instance pattern = patterns.get(i);
             network.setInputValues(pattern.getData());
             network.run();
@@ -51,10 +123,71 @@ public class BatchBackPropagationTrainer extends NetworkTrainer {
             network.setOutputErrors(errors);
             network.backpropagate();
         }
-        network.updateWeights(rule);
-        network.clearError();
-        return error / patterns.size();
+        return error;
     }
     
-
+    /**
+     * Split a range of patterns over copies of the network on the
+     * pool, then add their error derivatives into the network
+     * @param network the network
+     * @param start the first pattern
+     * @param end one past the last pattern
+     * @return the total error over the range
+     */
+    private double backpropagateInParallel(TrainableNetwork network,
+            final int start, final int end) {
+        if (replicas == null) {
+            replicas = new TrainableNetwork[pool.getParallelism()];
+            for (int i = 0; i < replicas.length; i++) {
+                replicas[i] = (TrainableNetwork) network.copy();
+            }
+        }
+        final int shards = Math.min(replicas.length, end - start);
+        double[] weights = network.getWeights();
+        for (int i = 0; i < shards; i++) {
+            replicas[i].setWeights(weights);
+        }
+        Object[] results = ParallelRange.run(pool, shards, 1, new RangeTask() {
+            public Object run(int shard, int next) {
+                int from = start + (int) ((long) (end - start) * shard / shards);
+                int to = start + (int) ((long) (end - start) * next / shards);
+                return Double.valueOf(backpropagate(replicas[shard], from, to));
+            }
+        });
+        // reduce in shard order so results do not depend on timing
+        double error = 0;
+        for (int i = 0; i < shards; i++) {
+            error += ((Double) results[i]).doubleValue();
+            addErrors(network, replicas[i]);
+        }
+        return error;
+    }
+    
+    /**
+     * Move the error derivatives of a copy into the network
+     * @param network the network
+     * @param replica the copy, left with zero error
+     */
+    private void addErrors(TrainableNetwork network, TrainableNetwork replica) {
+        if (network instanceof DenseBackPropagationNetwork
+                && replica instanceof DenseBackPropagationNetwork) {
+            DenseNetworkEngine a = ((DenseBackPropagationNetwork) network).getEngine();
+            DenseNetworkEngine b = ((DenseBackPropagationNetwork) replica).getEngine();
+            double[] to = a.getErrorArray();
+            double[] from = b.getErrorArray();
+            for (int i = 0; i < to.length; i++) {
+                to[i] += from[i];
+                from[i] = 0;
+            }
+        } else {
+            List to = network.getLinks();
+            List from = replica.getLinks();
+            for (int i = 0; i < to.size(); i++) {
+                BackPropagationLink a = (BackPropagationLink) to.get(i);
+                BackPropagationLink b = (BackPropagationLink) from.get(i);
+                a.addError(b.getError());
+                b.setError(0);
+            }
+        }
+    }
 }
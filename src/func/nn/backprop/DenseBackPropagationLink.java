@@ -0,0 +1,185 @@
+package func.nn.backprop;
+
+import func.nn.DenseNetworkEngine;
+
+/**
+ * A view of one weight of an array backed network as a link,
+ * so that weight update rules can work on it unchanged.
+ * The view has no node objects, but the values and errors
+ * of the nodes at its ends are read from the engine.
+ * It can be moved between weights.
+ * @version 1.0
+ */
+public class DenseBackPropagationLink extends BackPropagationLink {
+
+    /**
+     * The engine holding the weights
+     */
+    private DenseNetworkEngine engine;
+
+    /**
+     * The index of the weight
+     */
+    private int index;
+
+    /**
+     * Make a new view
+     * @param engine the engine
+     * @param index the index of the weight
+     */
+    public DenseBackPropagationLink(DenseNetworkEngine engine, int index) {
+        super(0);
+        this.engine = engine;
+        this.index = index;
+    }
+
+    /**
+     * Move this view to another weight
+     * @param index the index of the weight
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @see func.nn.Link#getWeight()
+     */
+    public double getWeight() {
+        return engine.getWeightArray()[index];
+    }
+
+    /**
+     * @see func.nn.Link#setWeight(double)
+     */
+    public void setWeight(double d) {
+        engine.getWeightArray()[index] = d;
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#changeWeight(double)
+     */
+    public void changeWeight(double delta) {
+        engine.getWeightArray()[index] += delta;
+        engine.getLastChangeArray()[index] = delta;
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#addError(double)
+     */
+    public void addError(double error) {
+        engine.getErrorArray()[index] += error;
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#clearError()
+     */
+    public void clearError() {
+        engine.getLastErrorArray()[index] = engine.getErrorArray()[index];
+        engine.getErrorArray()[index] = 0;
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getError()
+     */
+    public double getError() {
+        return engine.getErrorArray()[index];
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#setError(double)
+     */
+    public void setError(double error) {
+        engine.getErrorArray()[index] = error;
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getLastChange()
+     */
+    public double getLastChange() {
+        return engine.getLastChangeArray()[index];
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getLastError()
+     */
+    public double getLastError() {
+        return engine.getLastErrorArray()[index];
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#setLearningRate(double)
+     */
+    public void setLearningRate(double learningRate) {
+        engine.getLearningRateArray()[index] = learningRate;
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getLearningRate()
+     */
+    public double getLearningRate() {
+        return engine.getLearningRateArray()[index];
+    }
+
+    /**
+     * @see func.nn.Link#getInValue()
+     */
+    public double getInValue() {
+        return engine.getInValue(index);
+    }
+
+    /**
+     * @see func.nn.Link#getOutValue()
+     */
+    public double getOutValue() {
+        return engine.getOutValue(index);
+    }
+
+    /**
+     * @see func.nn.Link#getWeightedInValue()
+     */
+    public double getWeightedInValue() {
+        return engine.getInValue(index) * getWeight();
+    }
+
+    /**
+     * @see func.nn.Link#getWeightedOutValue()
+     */
+    public double getWeightedOutValue() {
+        return engine.getOutValue(index) * getWeight();
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getInError()
+     */
+    public double getInError() {
+        return engine.getInError(index);
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getWeightedInError()
+     */
+    public double getWeightedInError() {
+        return engine.getInError(index) * getWeight();
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getOutError()
+     */
+    public double getOutError() {
+        return engine.getOutError(index);
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#getWeightedOutError()
+     */
+    public double getWeightedOutError() {
+        return engine.getOutError(index) * getWeight();
+    }
+
+    /**
+     * @see func.nn.backprop.BackPropagationLink#backpropagate()
+     */
+    public void backpropagate() {
+        engine.backpropagate(index);
+    }
+}
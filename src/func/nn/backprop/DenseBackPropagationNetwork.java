@@ -0,0 +1,93 @@
+package func.nn.backprop;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import shared.Copyable;
+import func.nn.DenseNetwork;
+import func.nn.DenseNetworkEngine;
+
+/**
+ * A back propagation network that keeps its weights, activations
+ * and errors in flat arrays instead of node and link objects.
+ * It is trained by the usual trainers and weight update rules.
+ * @version 1.0
+ */
+public class DenseBackPropagationNetwork extends DenseNetwork implements TrainableNetwork {
+
+    /**
+     * The link handed to weight update rules
+     */
+    private DenseBackPropagationLink cursor;
+
+    /**
+     * Make a new network around an engine
+     * @param engine the engine, which must be trainable
+     */
+    public DenseBackPropagationNetwork(DenseNetworkEngine engine) {
+        super(engine);
+        if (engine.getErrorArray() == null) {
+            throw new IllegalArgumentException("engine is not trainable");
+        }
+        this.cursor = new DenseBackPropagationLink(engine, 0);
+    }
+
+    /**
+     * @see func.nn.backprop.TrainableNetwork#backpropagate()
+     */
+    public void backpropagate() {
+        getEngine().backpropagate();
+    }
+
+    /**
+     * @see func.nn.backprop.TrainableNetwork#clearError()
+     */
+    public void clearError() {
+        getEngine().clearError();
+    }
+
+    /**
+     * @see func.nn.backprop.TrainableNetwork#updateWeights(func.nn.backprop.WeightUpdateRule)
+     */
+    public void updateWeights(WeightUpdateRule rule) {
+        int count = getEngine().getWeightCount();
+        for (int i = 0; i < count; i++) {
+            cursor.setIndex(i);
+            rule.update(cursor);
+        }
+    }
+
+    /**
+     * @see func.nn.backprop.TrainableNetwork#setOutputErrors(double[])
+     */
+    public void setOutputErrors(double[] errors) {
+        getEngine().setOutputErrors(errors);
+    }
+
+    /**
+     * Get views of the weights as links.  The views are made
+     * on demand and have no node objects, but read the values
+     * and errors of the nodes at their ends from the engine.
+     * @see func.nn.NeuralNetwork#getLinks()
+     */
+    public List getLinks() {
+        return new AbstractList() {
+            public Object get(int i) {
+                if (i < 0 || i >= size()) {
+                    throw new IndexOutOfBoundsException();
+                }
+                return new DenseBackPropagationLink(getEngine(), i);
+            }
+            public int size() {
+                return getEngine().getWeightCount();
+            }
+        };
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#copy()
+     */
+    public Copyable copy() {
+        return new DenseBackPropagationNetwork(getEngine().copy());
+    }
+}
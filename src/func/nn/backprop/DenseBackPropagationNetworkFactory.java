@@ -0,0 +1,63 @@
+package func.nn.backprop;
+
+import func.nn.DenseNetworkEngine;
+import func.nn.activation.DifferentiableActivationFunction;
+import func.nn.activation.HyperbolicTangentSigmoid;
+import func.nn.activation.LinearActivationFunction;
+import func.nn.activation.LogisticSigmoid;
+
+/**
+ * A factory for array backed multi layer perceptrons, made
+ * the same way as by the back propagation network factory
+ * @version 1.0
+ */
+public class DenseBackPropagationNetworkFactory {
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the transfer function
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseBackPropagationNetwork createRegressionNetwork(int[] nodeCounts,
+            DifferentiableActivationFunction transfer) {
+        return new DenseBackPropagationNetwork(new DenseNetworkEngine(nodeCounts,
+            transfer, new LinearActivationFunction(), false, true));
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseBackPropagationNetwork createRegressionNetwork(int[] nodeCounts) {
+        return createRegressionNetwork(nodeCounts, new HyperbolicTangentSigmoid());
+    }
+
+    /**
+     * Create a multilayer perceptron with a logistic output
+     * if there is one output, and soft max outputs otherwise
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the transfer function
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseBackPropagationNetwork createClassificationNetwork(int[] nodeCounts,
+            DifferentiableActivationFunction transfer) {
+        if (nodeCounts[nodeCounts.length - 1] == 1) {
+            return new DenseBackPropagationNetwork(new DenseNetworkEngine(nodeCounts,
+                transfer, new LogisticSigmoid(), false, true));
+        } else {
+            return new DenseBackPropagationNetwork(new DenseNetworkEngine(nodeCounts,
+                transfer, new LinearActivationFunction(), true, true));
+        }
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseBackPropagationNetwork createClassificationNetwork(int[] nodeCounts) {
+        return createClassificationNetwork(nodeCounts, new HyperbolicTangentSigmoid());
+    }
+}
@@ -6,6 +6,7 @@ import shared.Instance;
 import shared.filt.RandomOrderFilter;
 
 import func.nn.NetworkTrainer;
+import func.nn.NeuralNetwork;
 
 /**
  * A standard batch back propagation trainer
@@ -25,8 +26,8 @@ public class StochasticBackPropagationTrainer extends NetworkTrainer {
      * @param network the network to train
      * @param errorMeasure the error measure to use
      */
-    public StochasticBackPropagationTrainer(DataSet patterns, 
-            BackPropagationNetwork network, 
+    public <N extends NeuralNetwork & TrainableNetwork> StochasticBackPropagationTrainer(
+            DataSet patterns, N network, 
             GradientErrorMeasure errorMeasure,
             WeightUpdateRule rule) {
         super(patterns, network, errorMeasure);
@@ -37,8 +38,7 @@ public class StochasticBackPropagationTrainer extends NetworkTrainer {
      * @see nn.Trainer#train()
      */
     public double train() {
-        BackPropagationNetwork network =
-            (BackPropagationNetwork) getNetwork();
+        TrainableNetwork network = (TrainableNetwork) getNetwork();
         GradientErrorMeasure measure =
             (GradientErrorMeasure) getErrorMeasure();
         DataSet patterns = getDataSet();
@@ -0,0 +1,72 @@
+package func.nn.backprop;
+
+import java.util.List;
+
+import shared.Copyable;
+import util.linalg.Vector;
+
+/**
+ * A network that the back propagation trainers can train,
+ * whether it is made of layers or kept in flat arrays
+ * @version 1.0
+ */
+public interface TrainableNetwork extends Copyable {
+
+    /**
+     * Set the input values
+     * @param values the values
+     */
+    public void setInputValues(Vector values);
+
+    /**
+     * Run the network on the input values
+     */
+    public void run();
+
+    /**
+     * Get the output values
+     * @return the output values
+     */
+    public Vector getOutputValues();
+
+    /**
+     * Set the errors of the output nodes
+     * @param errors the output errors
+     */
+    public void setOutputErrors(double[] errors);
+
+    /**
+     * Back propagate the output errors and add the
+     * resulting error derivatives to the links
+     */
+    public void backpropagate();
+
+    /**
+     * Clear out the error values at the end of a batch
+     */
+    public void clearError();
+
+    /**
+     * Update the weights with a rule
+     * @param rule the rule
+     */
+    public void updateWeights(WeightUpdateRule rule);
+
+    /**
+     * Get the links, as back propagation links
+     * @return the links
+     */
+    public List getLinks();
+
+    /**
+     * Get the weights
+     * @return the weights
+     */
+    public double[] getWeights();
+
+    /**
+     * Set the weights
+     * @param weights the weights
+     */
+    public void setWeights(double[] weights);
+}
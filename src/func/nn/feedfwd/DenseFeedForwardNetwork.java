@@ -0,0 +1,127 @@
+package func.nn.feedfwd;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import shared.Copyable;
+import func.nn.DenseNetwork;
+import func.nn.DenseNetworkEngine;
+import func.nn.Link;
+
+/**
+ * A feed forward network that keeps its weights and
+ * activations in flat arrays instead of node and link objects.
+ * @version 1.0
+ */
+public class DenseFeedForwardNetwork extends DenseNetwork {
+
+    /**
+     * Make a new network around an engine
+     * @param engine the engine
+     */
+    public DenseFeedForwardNetwork(DenseNetworkEngine engine) {
+        super(engine);
+    }
+
+    /**
+     * Get views of the weights as links.  The views are made
+     * on demand and have no node objects, but read the values
+     * of the nodes at their ends from the engine.
+     * @see func.nn.NeuralNetwork#getLinks()
+     */
+    public List getLinks() {
+        return new AbstractList() {
+            public Object get(int i) {
+                if (i < 0 || i >= size()) {
+                    throw new IndexOutOfBoundsException();
+                }
+                return new WeightView(getEngine(), i);
+            }
+            public int size() {
+                return getEngine().getWeightCount();
+            }
+        };
+    }
+
+    /**
+     * @see func.nn.NeuralNetwork#copy()
+     */
+    public Copyable copy() {
+        return new DenseFeedForwardNetwork(getEngine().copy());
+    }
+
+    /**
+     * A view of one weight as a link
+     */
+    private static class WeightView extends Link {
+        /**
+         * The engine holding the weight
+         */
+        private DenseNetworkEngine engine;
+
+        /**
+         * The index of the weight
+         */
+        private int index;
+
+        /**
+         * Make a new view
+         * @param engine the engine
+         * @param index the index
+         */
+        private WeightView(DenseNetworkEngine engine, int index) {
+            super(0);
+            this.engine = engine;
+            this.index = index;
+        }
+
+        /**
+         * @see func.nn.Link#getWeight()
+         */
+        public double getWeight() {
+            return engine.getWeightArray()[index];
+        }
+
+        /**
+         * @see func.nn.Link#setWeight(double)
+         */
+        public void setWeight(double d) {
+            engine.getWeightArray()[index] = d;
+        }
+
+        /**
+         * @see func.nn.Link#changeWeight(double)
+         */
+        public void changeWeight(double delta) {
+            engine.getWeightArray()[index] += delta;
+        }
+
+        /**
+         * @see func.nn.Link#getInValue()
+         */
+        public double getInValue() {
+            return engine.getInValue(index);
+        }
+
+        /**
+         * @see func.nn.Link#getOutValue()
+         */
+        public double getOutValue() {
+            return engine.getOutValue(index);
+        }
+
+        /**
+         * @see func.nn.Link#getWeightedInValue()
+         */
+        public double getWeightedInValue() {
+            return engine.getInValue(index) * getWeight();
+        }
+
+        /**
+         * @see func.nn.Link#getWeightedOutValue()
+         */
+        public double getWeightedOutValue() {
+            return engine.getOutValue(index) * getWeight();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package func.nn.feedfwd;
+
+import func.nn.DenseNetworkEngine;
+import func.nn.activation.DifferentiableActivationFunction;
+import func.nn.activation.HyperbolicTangentSigmoid;
+import func.nn.activation.LinearActivationFunction;
+import func.nn.activation.LogisticSigmoid;
+
+/**
+ * A factory for array backed feed forward networks, made
+ * the same way as by the feed forward network factory
+ * @version 1.0
+ */
+public class DenseFeedForwardNetworkFactory {
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the transfer function
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseFeedForwardNetwork createRegressionNetwork(int[] nodeCounts,
+            DifferentiableActivationFunction transfer) {
+        return new DenseFeedForwardNetwork(new DenseNetworkEngine(nodeCounts,
+            transfer, new LinearActivationFunction(), false, false));
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseFeedForwardNetwork createRegressionNetwork(int[] nodeCounts) {
+        return createRegressionNetwork(nodeCounts, new HyperbolicTangentSigmoid());
+    }
+
+    /**
+     * Create a multilayer perceptron with logistic outputs
+     * @param nodeCounts the number of nodes in each layer
+     * @param transfer the transfer function
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseFeedForwardNetwork createClassificationNetwork(int[] nodeCounts,
+            DifferentiableActivationFunction transfer) {
+        return new DenseFeedForwardNetwork(new DenseNetworkEngine(nodeCounts,
+            transfer, new LogisticSigmoid(), false, false));
+    }
+
+    /**
+     * Create a multilayer perceptron
+     * @param nodeCounts the number of nodes in each layer
+     * @return a multilayer perceptron with nodeCounts.length layers
+     */
+    public DenseFeedForwardNetwork createClassificationNetwork(int[] nodeCounts) {
+        return createClassificationNetwork(nodeCounts, new HyperbolicTangentSigmoid());
+    }
+}
@@ -0,0 +1,20 @@
+package func.svm;
+
+/**
+ * A kernel that depends only on the dot product of its
+ * arguments and the dot product of each with itself,
+ * so that it can be computed in blocks
+ * @version 1.0
+ */
+public abstract class DotProductKernel extends Kernel {
+
+    /**
+     * Compute the kernel from dot products
+     * @param ab the dot product of the two arguments
+     * @param aa the dot product of the first with itself
+     * @param bb the dot product of the second with itself
+     * @return the value
+     */
+    public abstract double value(double ab, double aa, double bb);
+
+}
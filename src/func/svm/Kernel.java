@@ -5,16 +5,59 @@ import shared.Instance;
 
 /**
  * A kernel function for a support
- * vector machine
+ * vector machine.  Whole rows of the kernel matrix over
+ * the examples are cached, up to a memory budget, dropping
+ * the least recently used row when the cache is full.  The
+ * diagonal is cached as well.  The cache is not thread safe.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public abstract class Kernel {
+    /**
+     * The default size of the row cache in megabytes
+     */
+    private static final double DEFAULT_CACHE_SIZE = 100;
    
     /**
      * The examples for the support vector machine
      */
     private DataSet examples;
+
+    /**
+     * The size of the row cache in megabytes
+     */
+    private double cacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * The most rows the cache may hold
+     */
+    private int capacity;
+
+    /**
+     * The number of rows cached
+     */
+    private int cachedCount;
+
+    /**
+     * The cached row of each example, or null
+     */
+    private double[][] rows;
+
+    /**
+     * The next most recently used cached row of each example,
+     * with the list starting and ending at the example count
+     */
+    private int[] next;
+
+    /**
+     * The next least recently used cached row of each example
+     */
+    private int[] previous;
+
+    /**
+     * The kernel of each example with itself, or null
+     */
+    private double[] diagonal;
     
     /**
      * Create a new support vector machine kernel
@@ -39,8 +82,155 @@ public abstract class Kernel {
      * @return the result
      */
     public double value(int i, int j) {
+        if (i == j) {
+            if (diagonal == null) {
+                diagonal = new double[examples.size()];
+                for (int k = 0; k < diagonal.length; k++) {
+                    diagonal[k] = value(examples.get(k), examples.get(k));
+                }
+            }
+            return diagonal[i];
+        }
+        if (rows != null) {
+            if (rows[i] != null) {
+                return rows[i][j];
+            }
+            if (rows[j] != null) {
+                return rows[j][i];
+            }
+        }
         return value(examples.get(i), examples.get(j));
     }
+
+    /**
+     * Get a row of the kernel matrix from the cache, computing
+     * it if it is not there.  The row belongs to the cache and
+     * stays valid at least until two other rows are asked for.
+     * @param i the index of the example
+     * @return the kernel of the example with each example
+     */
+    public double[] getRow(int i) {
+        if (rows == null) {
+            makeCache();
+        }
+        double[] row = rows[i];
+        if (row != null) {
+            unlink(i);
+            linkFirst(i);
+            return row;
+        }
+        int n = rows.length;
+        if (cachedCount == capacity) {
+            // reuse the least recently used row
+            int last = previous[n];
+            unlink(last);
+            row = rows[last];
+            rows[last] = null;
+        } else {
+            row = new double[n];
+            cachedCount++;
+        }
+        Instance a = examples.get(i);
+        for (int j = 0; j < n; j++) {
+            row[j] = value(a, examples.get(j));
+        }
+        rows[i] = row;
+        linkFirst(i);
+        return row;
+    }
+
+    /**
+     * Compute and cache the whole kernel matrix, which
+     * must fit in the cache, using its symmetry
+     */
+    public void precompute() {
+        if (rows == null) {
+            makeCache();
+        }
+        int n = rows.length;
+        if (capacity < n) {
+            throw new IllegalStateException("the kernel matrix needs "
+                + (8.0 * n * n / (1024 * 1024)) + " megabytes of cache");
+        }
+        for (int i = 0; i < n; i++) {
+            if (rows[i] != null) {
+                continue;
+            }
+            double[] row = new double[n];
+            Instance a = examples.get(i);
+            for (int j = 0; j < n; j++) {
+                row[j] = rows[j] != null ? rows[j][i] : value(a, examples.get(j));
+            }
+            rows[i] = row;
+            cachedCount++;
+            linkFirst(i);
+        }
+    }
+
+    /**
+     * Set the size of the row cache, emptying it.
+     * At least two rows are always cached.
+     * @param cacheSize the size in megabytes
+     */
+    public void setCacheSize(double cacheSize) {
+        this.cacheSize = cacheSize;
+        clearCache();
+    }
+
+    /**
+     * Get the size of the row cache
+     * @return the size in megabytes
+     */
+    public double getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Make an empty row cache for the examples
+     */
+    private void makeCache() {
+        int n = examples.size();
+        long fit = (long) (cacheSize * 1024 * 1024 / (8.0 * n));
+        capacity = (int) Math.min(n, Math.max(2, fit));
+        rows = new double[n][];
+        next = new int[n + 1];
+        previous = new int[n + 1];
+        next[n] = n;
+        previous[n] = n;
+        cachedCount = 0;
+    }
+
+    /**
+     * Empty the row cache and the diagonal
+     */
+    private void clearCache() {
+        rows = null;
+        next = null;
+        previous = null;
+        cachedCount = 0;
+        diagonal = null;
+    }
+
+    /**
+     * Take a row out of the recently used list
+     * @param i the row
+     */
+    private void unlink(int i) {
+        next[previous[i]] = next[i];
+        previous[next[i]] = previous[i];
+    }
+
+    /**
+     * Put a row at the front of the recently used list
+     * @param i the row
+     */
+    private void linkFirst(int i) {
+        int head = rows.length;
+        next[i] = next[head];
+        previous[i] = head;
+        previous[next[head]] = i;
+        next[head] = i;
+    }
     
     /**
      * Compute the kernel for a stored example
@@ -78,6 +268,7 @@ public abstract class Kernel {
      */
     public void setExamples(DataSet examples) {
         this.examples = examples;
+        clearCache();
     }
     
     /**
@@ -86,6 +277,7 @@ public abstract class Kernel {
      */
     public void clear() {
         examples = null;
+        clearCache();
     }
 
 }
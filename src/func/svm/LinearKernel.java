@@ -7,7 +7,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class LinearKernel extends Kernel {
+public class LinearKernel extends DotProductKernel {
 
     /**
      * @see svm.Kernel#value(shared.Instance, shared.Instance)
@@ -15,6 +15,13 @@ public class LinearKernel extends Kernel {
     public double value(Instance a, Instance b) {
         return a.getData().dotProduct(b.getData());
     }
+
+    /**
+     * @see func.svm.DotProductKernel#value(double, double, double)
+     */
+    public double value(double ab, double aa, double bb) {
+        return ab;
+    }
     
     /**
      * @see java.lang.Object#toString()
@@ -7,7 +7,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class PolynomialKernel extends Kernel {
+public class PolynomialKernel extends DotProductKernel {
     /**
      * The weight of the dot product
      */
@@ -63,6 +63,13 @@ public class PolynomialKernel extends Kernel {
         return Math.pow(dotProductWeight * a.getData().dotProduct(b.getData()) 
             + additiveConstant, exponent);
     }
+
+    /**
+     * @see func.svm.DotProductKernel#value(double, double, double)
+     */
+    public double value(double ab, double aa, double bb) {
+        return Math.pow(dotProductWeight * ab + additiveConstant, exponent);
+    }
     
     /**
      * @see java.lang.Object#toString()
@@ -8,7 +8,7 @@ import util.linalg.Vector;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class RBFKernel extends Kernel {
+public class RBFKernel extends DotProductKernel {
 
     /**
      * The sigma parameter
@@ -42,6 +42,13 @@ public class RBFKernel extends Kernel {
         return Math.exp(gamma * difference);
     }
 
+    /**
+     * @see func.svm.DotProductKernel#value(double, double, double)
+     */
+    public double value(double ab, double aa, double bb) {
+        return Math.exp(gamma * (aa + bb - 2*ab));
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
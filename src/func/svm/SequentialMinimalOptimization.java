@@ -1,5 +1,10 @@
 package func.svm;
 
+import java.util.concurrent.ForkJoinPool;
+
+import dist.Distribution;
+import util.ParallelRange;
+import util.RangeTask;
 import util.linalg.DenseVector;
 import util.linalg.Vector;
 import shared.DataSet;
@@ -7,7 +12,16 @@ import shared.Instance;
 import shared.Trainer;
 
 /**
- * An implementation of the SMO algorithm.
+ * An implementation of the SMO algorithm.  Besides Platt's
+ * heuristics it can pick each pair with second order working
+ * set selection as in
+ * R. E. Fan, P. H. Chen, and C. J. Lin (2005).
+ * Working Set Selection Using Second Order Information
+ * for Training Support Vector Machines, JMLR 6.
+ * That mode keeps the gradient of every example, and can
+ * shrink examples stuck at a bound out of the scan,
+ * rebuilding their gradients, on a pool if given one,
+ * before it stops.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -26,6 +40,23 @@ public class SequentialMinimalOptimization implements Trainer {
      * An about zero value
      */
     private static final double ZERO = 1e-8;
+
+    /**
+     * The stopping tolerance on the largest violation
+     * of the optimality conditions, for second order selection
+     */
+    private static final double STOPPING_TOLERANCE = 1e-3;
+
+    /**
+     * The curvature used when a pair has none
+     */
+    private static final double TAU = 1e-12;
+
+    /**
+     * The number of examples whose gradients are
+     * rebuilt by one task on the pool
+     */
+    private static final int CHUNK = 256;
     
     
     /**
@@ -72,6 +103,21 @@ public class SequentialMinimalOptimization implements Trainer {
      * The weight vector (for linear kernels)
      */
     private Vector w;
+
+    /**
+     * Whether to pick pairs with second order working set selection
+     */
+    private boolean secondOrder;
+
+    /**
+     * Whether to shrink, with second order selection
+     */
+    private boolean shrinking;
+
+    /**
+     * The pool to rebuild gradients on, or null
+     */
+    private ForkJoinPool pool;
     
     /**
      * Make a new SMO trainer
@@ -101,10 +147,41 @@ public class SequentialMinimalOptimization implements Trainer {
         }
     }
 
+    /**
+     * Set whether to pick pairs with second order working set
+     * selection instead of Platt's heuristics.  With it the
+     * number of iterations counts steps rather than passes.
+     * @param secondOrder whether to use second order selection
+     */
+    public void setSecondOrder(boolean secondOrder) {
+        this.secondOrder = secondOrder;
+    }
+
+    /**
+     * Set whether to shrink examples stuck at a bound
+     * out of the scan, with second order selection
+     * @param shrinking whether to shrink
+     */
+    public void setShrinking(boolean shrinking) {
+        this.shrinking = shrinking;
+    }
+
+    /**
+     * Set the pool to rebuild the gradients of shrunk examples on
+     * @param pool the pool, or null to rebuild them on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * @see shared.Trainer#train()
      */
     public double train() {
+        if (secondOrder) {
+            trainSecondOrder();
+            return 0;
+        }
         // number of alpha values changed this iteration
         int numChanged = 0;
         // whether or not to loop through all examples
@@ -142,6 +219,406 @@ public class SequentialMinimalOptimization implements Trainer {
         return 0;
     }
     
+    /**
+     * Train choosing the pair that violates the optimality
+     * conditions most, by the second order gain of its step
+     */
+    private void trainSecondOrder() {
+        int n = a.length;
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = examples.get(i).getLabel().getPlusMinus();
+        }
+        // the gradient of the dual objective,
+        // 1/2 sum yi yj ai aj kij - sum ai, which is minimized
+        double[] g = new double[n];
+        // the part of the gradient from examples at the upper bound,
+        // kept for every example so rebuilding only needs the rest
+        double[] gBar = new double[n];
+        for (int j = 0; j < n; j++) {
+            if (a[j] >= c) {
+                for (int k = 0; k < n; k++) {
+                    gBar[k] += c * y[k] * y[j] * kernel.value(k, j);
+                }
+            }
+        }
+        int[] active = new int[n];
+        for (int i = 0; i < n; i++) {
+            active[i] = i;
+        }
+        reconstructGradient(g, gBar, y, active, 0);
+        int activeCount = n;
+        boolean unshrunk = false;
+        int shrinkInterval = Math.min(n, 1000);
+        int countdown = shrinkInterval;
+        long maxSteps = Math.max(10000000L, 100L * n);
+        for (long step = 0; step < maxSteps; step++) {
+            if (shrinking && --countdown == 0) {
+                countdown = shrinkInterval;
+                double[] m = violations(g, y, active, activeCount);
+                if (!unshrunk && m[0] + m[1] <= 10 * STOPPING_TOLERANCE) {
+                    // close to done, so bring everything back once
+                    unshrunk = true;
+                    reconstructGradient(g, gBar, y, active, activeCount);
+                    activeCount = n;
+                    m = violations(g, y, active, activeCount);
+                }
+                activeCount = shrink(g, y, active, activeCount, m[0], m[1]);
+            }
+            int[] pair = selectPair(g, y, active, activeCount);
+            if (pair == null) {
+                if (activeCount == n) {
+                    break;
+                }
+                // check the shrunk examples before stopping
+                reconstructGradient(g, gBar, y, active, activeCount);
+                activeCount = n;
+                countdown = 1;
+                pair = selectPair(g, y, active, activeCount);
+                if (pair == null) {
+                    break;
+                }
+            }
+            iterations++;
+            update(pair[0], pair[1], g, gBar, y, active, activeCount);
+        }
+        if (activeCount < n) {
+            reconstructGradient(g, gBar, y, active, activeCount);
+        }
+        b = threshold(g, y);
+        // leave the state as the heuristic training expects it
+        for (int k = 0; k < n; k++) {
+            e[k] = y[k] * g[k] - b;
+        }
+        if (w != null) {
+            w = new DenseVector(new double[examples.get(0).size()]);
+            for (int k = 0; k < n; k++) {
+                if (a[k] != 0) {
+                    w = examples.get(k).getData().times(y[k] * a[k]).plus(w);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the largest violations of the optimality conditions
+     * in either direction over the active examples
+     * @param g the gradient
+     * @param y the labels
+     * @param active the examples, active ones first
+     * @param activeCount the number of active examples
+     * @return the largest violation moving up and moving down
+     */
+    private double[] violations(double[] g, double[] y, int[] active, int activeCount) {
+        double up = Double.NEGATIVE_INFINITY;
+        double down = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < activeCount; t++) {
+            int k = active[t];
+            if (y[k] > 0) {
+                if (a[k] < c) {
+                    up = Math.max(up, -g[k]);
+                }
+                if (a[k] > 0) {
+                    down = Math.max(down, g[k]);
+                }
+            } else {
+                if (a[k] > 0) {
+                    up = Math.max(up, g[k]);
+                }
+                if (a[k] < c) {
+                    down = Math.max(down, -g[k]);
+                }
+            }
+        }
+        return new double[] { up, down };
+    }
+
+    /**
+     * Move the examples stuck at a bound to the end of the active list
+     * @param g the gradient
+     * @param y the labels
+     * @param active the examples, active ones first
+     * @param activeCount the number of active examples
+     * @param up the largest violation moving up
+     * @param down the largest violation moving down
+     * @return the new number of active examples
+     */
+    private int shrink(double[] g, double[] y, int[] active, int activeCount,
+            double up, double down) {
+        int t = 0;
+        while (t < activeCount) {
+            int k = active[t];
+            boolean stuck;
+            if (a[k] >= c) {
+                stuck = y[k] > 0 ? -g[k] > up : -g[k] > down;
+            } else if (a[k] <= 0) {
+                stuck = y[k] > 0 ? g[k] > down : g[k] > up;
+            } else {
+                stuck = false;
+            }
+            if (stuck) {
+                activeCount--;
+                active[t] = active[activeCount];
+                active[activeCount] = k;
+            } else {
+                t++;
+            }
+        }
+        return activeCount;
+    }
+
+    /**
+     * Pick the pair to optimize: the example violating the
+     * optimality conditions most, and the partner giving the
+     * largest decrease of the objective by the second order model
+     * @param g the gradient
+     * @param y the labels
+     * @param active the examples, active ones first
+     * @param activeCount the number of active examples
+     * @return the pair, or null if the conditions hold to the tolerance
+     */
+    private int[] selectPair(double[] g, double[] y, int[] active, int activeCount) {
+        double gMax = Double.NEGATIVE_INFINITY;
+        int i = -1;
+        for (int t = 0; t < activeCount; t++) {
+            int k = active[t];
+            if (y[k] > 0) {
+                if (a[k] < c && -g[k] >= gMax) {
+                    gMax = -g[k];
+                    i = k;
+                }
+            } else if (a[k] > 0 && g[k] >= gMax) {
+                gMax = g[k];
+                i = k;
+            }
+        }
+        if (i == -1) {
+            return null;
+        }
+        double[] ki = kernel.getRow(i);
+        double kii = kernel.value(i, i);
+        double gMax2 = Double.NEGATIVE_INFINITY;
+        double bestGain = Double.POSITIVE_INFINITY;
+        int j = -1;
+        for (int t = 0; t < activeCount; t++) {
+            int k = active[t];
+            double difference;
+            if (y[k] > 0) {
+                if (!(a[k] > 0)) {
+                    continue;
+                }
+                gMax2 = Math.max(gMax2, g[k]);
+                difference = gMax + g[k];
+            } else {
+                if (!(a[k] < c)) {
+                    continue;
+                }
+                gMax2 = Math.max(gMax2, -g[k]);
+                difference = gMax - g[k];
+            }
+            if (difference > 0) {
+                double curvature = kii + kernel.value(k, k) - 2 * ki[k];
+                if (curvature <= 0) {
+                    curvature = TAU;
+                }
+                double gain = -difference * difference / curvature;
+                if (gain <= bestGain) {
+                    bestGain = gain;
+                    j = k;
+                }
+            }
+        }
+        if (gMax + gMax2 < STOPPING_TOLERANCE || j == -1) {
+            return null;
+        }
+        return new int[] { i, j };
+    }
+
+    /**
+     * Take the analytic step on a pair and update
+     * the gradients of the active examples
+     * @param i the first example
+     * @param j the second example
+     * @param g the gradient
+     * @param gBar the gradient from examples at the upper bound
+     * @param y the labels
+     * @param active the examples, active ones first
+     * @param activeCount the number of active examples
+     */
+    private void update(int i, int j, double[] g, double[] gBar, double[] y,
+            int[] active, int activeCount) {
+        double[] ki = kernel.getRow(i);
+        double[] kj = kernel.getRow(j);
+        double curvature = ki[i] + kj[j] - 2 * ki[j];
+        if (curvature <= 0) {
+            curvature = TAU;
+        }
+        double oldAi = a[i], oldAj = a[j];
+        double ai, aj;
+        if (y[i] != y[j]) {
+            double delta = (-g[i] - g[j]) / curvature;
+            double difference = oldAi - oldAj;
+            ai = oldAi + delta;
+            aj = oldAj + delta;
+            if (difference > 0) {
+                if (aj < 0) {
+                    aj = 0;
+                    ai = difference;
+                }
+            } else if (ai < 0) {
+                ai = 0;
+                aj = -difference;
+            }
+            if (difference > 0) {
+                if (ai > c) {
+                    ai = c;
+                    aj = c - difference;
+                }
+            } else if (aj > c) {
+                aj = c;
+                ai = c + difference;
+            }
+        } else {
+            double delta = (g[i] - g[j]) / curvature;
+            double sum = oldAi + oldAj;
+            ai = oldAi - delta;
+            aj = oldAj + delta;
+            if (sum > c) {
+                if (ai > c) {
+                    ai = c;
+                    aj = sum - c;
+                }
+                if (aj > c) {
+                    aj = c;
+                    ai = sum - c;
+                }
+            } else {
+                if (aj < 0) {
+                    aj = 0;
+                    ai = sum;
+                }
+                if (ai < 0) {
+                    ai = 0;
+                    aj = sum;
+                }
+            }
+        }
+        a[i] = ai;
+        a[j] = aj;
+        double ti = y[i] * (ai - oldAi);
+        double tj = y[j] * (aj - oldAj);
+        for (int t = 0; t < activeCount; t++) {
+            int k = active[t];
+            g[k] += y[k] * (ki[k] * ti + kj[k] * tj);
+        }
+        if ((oldAi >= c) != (ai >= c)) {
+            double ci = ai >= c ? c * y[i] : -c * y[i];
+            for (int k = 0; k < gBar.length; k++) {
+                gBar[k] += ci * y[k] * ki[k];
+            }
+        }
+        if ((oldAj >= c) != (aj >= c)) {
+            double cj = aj >= c ? c * y[j] : -c * y[j];
+            for (int k = 0; k < gBar.length; k++) {
+                gBar[k] += cj * y[k] * kj[k];
+            }
+        }
+    }
+
+    /**
+     * Rebuild the gradients of the examples past the active ones
+     * from the unbound support vectors, on the pool if there is one
+     * @param g the gradient
+     * @param gBar the gradient from examples at the upper bound
+     * @param y the labels
+     * @param active the examples, active ones first
+     * @param activeCount the number of active examples
+     */
+    private void reconstructGradient(final double[] g, final double[] gBar,
+            final double[] y, final int[] active, final int activeCount) {
+        int n = a.length;
+        int supportCount = 0;
+        for (int k = 0; k < n; k++) {
+            if (!isBound(k)) {
+                supportCount++;
+            }
+        }
+        final int[] support = new int[supportCount];
+        supportCount = 0;
+        for (int k = 0; k < n; k++) {
+            if (!isBound(k)) {
+                support[supportCount++] = k;
+            }
+        }
+        // only reads the kernel cache from here on,
+        // once the diagonal is made
+        kernel.value(0, 0);
+        ParallelRange.run(pool, n - activeCount, CHUNK, new RangeTask() {
+            public Object run(int start, int end) {
+                reconstructGradient(g, gBar, y, active, support,
+                    activeCount + start, activeCount + end);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Rebuild the gradients of a range of the active list
+     * @param g the gradient
+     * @param gBar the gradient from examples at the upper bound
+     * @param y the labels
+     * @param active the examples
+     * @param support the unbound support vectors
+     * @param from the start of the range
+     * @param to the end of the range
+     */
+    private void reconstructGradient(double[] g, double[] gBar, double[] y,
+            int[] active, int[] support, int from, int to) {
+        for (int t = from; t < to; t++) {
+            int k = active[t];
+            double sum = 0;
+            for (int s = 0; s < support.length; s++) {
+                int j = support[s];
+                sum += y[j] * a[j] * kernel.value(k, j);
+            }
+            g[k] = gBar[k] + y[k] * sum - 1;
+        }
+    }
+
+    /**
+     * Find the threshold from the gradient, averaging
+     * over the unbound examples if there are any
+     * @param g the gradient
+     * @param y the labels
+     * @return the threshold
+     */
+    private double threshold(double[] g, double[] y) {
+        double upper = Double.POSITIVE_INFINITY;
+        double lower = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        int free = 0;
+        for (int k = 0; k < a.length; k++) {
+            double yg = y[k] * g[k];
+            if (a[k] >= c) {
+                if (y[k] < 0) {
+                    upper = Math.min(upper, yg);
+                } else {
+                    lower = Math.max(lower, yg);
+                }
+            } else if (a[k] <= 0) {
+                if (y[k] > 0) {
+                    upper = Math.min(upper, yg);
+                } else {
+                    lower = Math.max(lower, yg);
+                }
+            } else {
+                free++;
+                sum += yg;
+            }
+        }
+        return free > 0 ? sum / free : (upper + lower) / 2;
+    }
+
     /**
      * Get the created support vector machine
      * @return the support vector machine
@@ -220,7 +697,7 @@ public class SequentialMinimalOptimization implements Trainer {
         }
         // if the second choice hueristic fails we look
         // at all non bound indices, starting from a random point
-        int startI = (int) (Math.random() * a.length);
+        int startI = Distribution.random.nextInt(a.length);
         int i = startI;
         do {
             if (!isBound(i) && takeStep(i, j, ej)) {
@@ -230,7 +707,7 @@ public class SequentialMinimalOptimization implements Trainer {
         } while (i != startI);
         // if that fails we look at all of the indices, starting from
         // a random point
-        startI = (int) (Math.random() * a.length);
+        startI = Distribution.random.nextInt(a.length);
         i = startI;
         do {
             if (takeStep(i, j, ej)) {
@@ -382,9 +859,11 @@ public class SequentialMinimalOptimization implements Trainer {
         
         // update the error cache
         // for non bound examples not in the cache
+        double[] ki = kernel.getRow(i);
+        double[] kj = kernel.getRow(j);
         for (int k = 0; k < e.length; k++) {
             if (k != i && k != j && !isBound(k)) {
-                e[k] += ti*kernel.value(i,k) + tj*kernel.value(j,k) + tb;
+                e[k] += ti*ki[k] + tj*kj[k] + tb;
             }
         }
        
@@ -7,7 +7,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class SigmoidKernel extends Kernel {
+public class SigmoidKernel extends DotProductKernel {
     /**
      * The weight of the dot product
      */
@@ -53,6 +53,13 @@ public class SigmoidKernel extends Kernel {
     public double value(Instance a, Instance b) {
         return tanh(dotProductWeight * a.getData().dotProduct(b.getData()) + additiveConstant);
     }
+
+    /**
+     * @see func.svm.DotProductKernel#value(double, double, double)
+     */
+    public double value(double ab, double aa, double bb) {
+        return tanh(dotProductWeight * ab + additiveConstant);
+    }
     
     /**
      * Compute the tanh of a value
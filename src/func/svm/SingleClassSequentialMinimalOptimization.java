@@ -1,5 +1,6 @@
 package func.svm;
 
+import dist.Distribution;
 import util.ABAGAILArrays;
 import shared.DataSet;
 import shared.Instance;
@@ -216,7 +217,7 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
         }
         // if the second choice hueristic fails we look
         // at all non bound indices, starting from a random point
-        int startI = (int) (Math.random() * a.length);
+        int startI = Distribution.random.nextInt(a.length);
         i = startI;
         do {
             if (!isBound(i) && takeStep(i, j, oj)) {
@@ -226,7 +227,7 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
         } while (i != startI);
         // if that fails we look at all of the indices, starting from
         // a random point
-        startI = (int) (Math.random() * a.length);
+        startI = Distribution.random.nextInt(a.length);
         i = startI;
         do {
             if (takeStep(i, j, oj)) {
@@ -316,6 +317,10 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
         // set the a values
         a[i] = ai;
         a[j] = aj;
+        // cache the rows of the changed examples,
+        // which output reads from here on
+        kernel.getRow(i);
+        kernel.getRow(j);
         
         // calculate the new threshold and return true
         if (!isBound(i)) {
@@ -329,7 +334,7 @@ public class SingleClassSequentialMinimalOptimization implements Trainer {
             return true;
         }
         // use any other non bound alpha
-        int startK = (int) (Math.random() * a.length);
+        int startK = Distribution.random.nextInt(a.length);
         int k = startK;
         do {
             if (!isBound(k)) {
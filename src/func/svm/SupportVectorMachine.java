@@ -1,10 +1,21 @@
 package func.svm;
 
+import java.util.concurrent.ForkJoinPool;
+
 import shared.DataSet;
 import shared.Instance;
+import util.ParallelRange;
+import util.RangeTask;
+import util.linalg.Vector;
 
 /**
- * A support vector machine implementation
+ * A support vector machine implementation.  Whole data sets
+ * can be scored at once: the support vectors are packed into
+ * one matrix and the kernels of a chunk of queries are computed
+ * from blocks of dot products, with chunks run on a pool if
+ * there is one.  A linear machine is collapsed into one weight
+ * vector, so its batch margins can differ from the single ones
+ * in the last bits.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -29,6 +40,32 @@ public class SupportVectorMachine {
      * The threshold (which is subtracted)
      */
     private double b;
+
+    /**
+     * The number of queries scored together
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * The pool to score chunks on, or null
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * The support vectors one after another, for
+     * dot product kernels, or the weight vector if linear
+     */
+    private transient double[] packed;
+
+    /**
+     * The dot product of each support vector with itself
+     */
+    private transient double[] norms;
+
+    /**
+     * The label times the weight of each support vector
+     */
+    private transient double[] coefficients;
     
     /**
      * Create a new support vector machine
@@ -72,6 +109,143 @@ public class SupportVectorMachine {
         return result;
     }
     
+    /**
+     * Set the pool to score chunks of data sets on
+     * @param pool the pool, or null to score them on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Evaluate the support vector machine for every instance of a data set
+     * @param data the data to evaluate for
+     * @return the values
+     */
+    public Instance[] value(DataSet data) {
+        double[] margins = margin(data);
+        Instance[] values = new Instance[margins.length];
+        for (int i = 0; i < margins.length; i++) {
+            values[i] = new Instance(margins[i] >= 0);
+        }
+        return values;
+    }
+
+    /**
+     * Evaluate the margin for every instance of a data set
+     * @param data the data to evaluate for
+     * @return the margins
+     */
+    public double[] margin(final DataSet data) {
+        pack();
+        final double[] margins = new double[data.size()];
+        ParallelRange.run(pool, data.size(), CHUNK, new RangeTask() {
+            public Object run(int start, int end) {
+                margin(data, start, end, margins);
+                return null;
+            }
+        });
+        return margins;
+    }
+
+    /**
+     * Pack the support vectors, or the weight vector
+     * of a linear machine, the first time they are needed
+     */
+    private synchronized void pack() {
+        if (coefficients != null) {
+            return;
+        }
+        int n = supportVectors.size();
+        double[] coefficients = new double[n];
+        for (int i = 0; i < n; i++) {
+            coefficients[i] = supportVectors.get(i).getLabel().getPlusMinus() * a[i];
+        }
+        if (n > 0 && kernel instanceof DotProductKernel) {
+            int size = supportVectors.get(0).size();
+            if (kernel instanceof LinearKernel) {
+                packed = new double[size];
+                for (int i = 0; i < n; i++) {
+                    Vector v = supportVectors.get(i).getData();
+                    for (int k = 0; k < size; k++) {
+                        packed[k] += coefficients[i] * v.get(k);
+                    }
+                }
+            } else {
+                packed = new double[n * size];
+                norms = new double[n];
+                for (int i = 0; i < n; i++) {
+                    Vector v = supportVectors.get(i).getData();
+                    for (int k = 0; k < size; k++) {
+                        packed[i * size + k] = v.get(k);
+                    }
+                    norms[i] = v.dotProduct(v);
+                }
+            }
+        }
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * Evaluate the margins of a chunk of a data set
+     * @param data the data
+     * @param start the first instance of the chunk
+     * @param end one past the last instance of the chunk
+     * @param margins the array to put the margins in
+     */
+    private void margin(DataSet data, int start, int end, double[] margins) {
+        int count = end - start;
+        int n = coefficients.length;
+        if (packed == null) {
+            for (int q = 0; q < count; q++) {
+                Instance d = data.get(start + q);
+                double result = 0;
+                for (int i = 0; i < n; i++) {
+                    result += coefficients[i] * kernel.value(i, d);
+                }
+                margins[start + q] = result - b;
+            }
+            return;
+        }
+        int size = supportVectors.get(0).size();
+        double[] queries = new double[count * size];
+        double[] queryNorms = new double[count];
+        for (int q = 0; q < count; q++) {
+            Vector v = data.get(start + q).getData();
+            for (int k = 0; k < size; k++) {
+                queries[q * size + k] = v.get(k);
+            }
+            queryNorms[q] = v.dotProduct(v);
+        }
+        if (norms == null) {
+            // linear, so one dot product with the weights
+            for (int q = 0; q < count; q++) {
+                double result = 0;
+                for (int k = 0; k < size; k++) {
+                    result += packed[k] * queries[q * size + k];
+                }
+                margins[start + q] = result - b;
+            }
+            return;
+        }
+        DotProductKernel dotKernel = (DotProductKernel) kernel;
+        double[] results = new double[count];
+        for (int i = 0; i < n; i++) {
+            int row = i * size;
+            for (int q = 0; q < count; q++) {
+                int column = q * size;
+                double dot = 0;
+                for (int k = 0; k < size; k++) {
+                    dot += packed[row + k] * queries[column + k];
+                }
+                results[q] += coefficients[i] * dotKernel.value(dot, norms[i], queryNorms[q]);
+            }
+        }
+        for (int q = 0; q < count; q++) {
+            margins[start + q] = results[q] - b;
+        }
+    }
+    
     /**
      * Get the support vectors for the machine
      * @return the support vectors
@@ -1,11 +1,17 @@
 package func.test;
 
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import dist.Distribution;
 import shared.DataSet;
+import shared.EuclideanDistance;
 import shared.Instance;
 
+import func.inst.FlatKDTree;
 import func.inst.KDTree;
+import func.inst.RandomProjectionForest;
 
 /**
  * A knn test
@@ -32,6 +38,115 @@ public class KNNClassifierTest {
         KDTree tree = new KDTree(new DataSet(keys));
         Instance[] results = tree.knn(new Instance(new double[] { 2, 2 }), 4);
         System.out.println(Arrays.asList(results));
+        FlatKDTree flatTree = new FlatKDTree(new DataSet(keys));
+        results = flatTree.knn(new Instance(new double[] { 2, 2 }), 4);
+        System.out.println(Arrays.asList(results));
+        // asking for no neighbors, or a negative number, finds none
+        boolean none = flatTree.knn(new Instance(new double[] { 2, 2 }), 0).length == 0
+            && flatTree.knn(new Instance(new double[] { 2, 2 }), -1).length == 0
+            && flatTree.knn(new DataSet(keys), 0)[0].length == 0;
+        System.out.println("No neighbors for k of 0 or less: " + none);
+        
+        // compare the flat tree with the kd tree on random keys,
+        // and on keys drawn from a small grid so that many are equal
+        Random random = new Random(0);
+        ForkJoinPool pool = new ForkJoinPool();
+        for (int grid = 0; grid < 2; grid++) {
+            keys = new Instance[1000];
+            for (int i = 0; i < keys.length; i++) {
+                double[] key = new double[3];
+                for (int j = 0; j < key.length; j++) {
+                    key[j] = grid == 1 ? random.nextInt(3) : random.nextGaussian();
+                }
+                keys[i] = new Instance(key);
+            }
+            DataSet set = new DataSet(keys);
+            tree = new KDTree(set);
+            flatTree = new FlatKDTree(set, pool);
+            boolean same = true;
+            for (int q = 0; q < 100; q++) {
+                double[] query = new double[3];
+                for (int j = 0; j < query.length; j++) {
+                    query[j] = random.nextGaussian();
+                }
+                Instance target = new Instance(query);
+                int[] ks = { 1, 5, 20 };
+                for (int i = 0; i < ks.length; i++) {
+                    same &= Arrays.equals(distances(tree.knn(target, ks[i]), target),
+                        distances(flatTree.knn(target, ks[i]), target));
+                    same &= Arrays.equals(distances(tree.knnrange(target, ks[i], 1), target),
+                        distances(flatTree.knnrange(target, ks[i], 1), target));
+                }
+            }
+            // the batch search on the pool against single searches
+            Instance[][] batch = flatTree.knn(set, 5);
+            for (int i = 0; i < keys.length; i++) {
+                same &= Arrays.equals(batch[i], flatTree.knn(keys[i], 5));
+            }
+            System.out.println((grid == 1 ? "Grid" : "Random") + " keys, flat tree"
+                + " neighbors match kd tree neighbors: " + same);
+        }
+        
+        // the recall of the forest's 10 nearest neighbors
+        // in 10 dimensions for a few search counts
+        Distribution.random.setSeed(0);
+        keys = new Instance[5000];
+        for (int i = 0; i < keys.length; i++) {
+            double[] key = new double[10];
+            for (int j = 0; j < key.length; j++) {
+                key[j] = random.nextGaussian();
+            }
+            keys[i] = new Instance(key);
+        }
+        DataSet set = new DataSet(keys);
+        tree = new KDTree(set);
+        RandomProjectionForest forest = new RandomProjectionForest(set,
+            new EuclideanDistance(), 8, pool);
+        int k = 10;
+        Instance[] targets = new Instance[100];
+        for (int q = 0; q < targets.length; q++) {
+            double[] query = new double[10];
+            for (int j = 0; j < query.length; j++) {
+                query[j] = random.nextGaussian();
+            }
+            targets[q] = new Instance(query);
+        }
+        System.out.println("Forest finds no neighbors for k of 0: "
+            + (forest.knn(targets[0], 0).length == 0));
+        int[] searchCounts = { 0, 200, 800 };
+        for (int s = 0; s < searchCounts.length; s++) {
+            forest.setSearchCount(searchCounts[s]);
+            int found = 0;
+            for (int q = 0; q < targets.length; q++) {
+                double[] exact = distances(tree.knn(targets[q], k), targets[q]);
+                double[] approximate = distances(forest.knn(targets[q], k), targets[q]);
+                for (int i = 0; i < approximate.length; i++) {
+                    if (approximate[i] <= exact[k - 1]) {
+                        found++;
+                    }
+                }
+            }
+            System.out.println("Forest of " + forest.getTreeCount() + " trees, search count "
+                + searchCounts[s] + (searchCounts[s] == 0 ? " (k times trees)" : "")
+                + ", recall: " + (double) found / (k * targets.length));
+        }
+        pool.shutdown();
+    }
+    
+    /**
+     * Get the sorted distances of neighbors from a target
+     * @param neighbors the neighbors
+     * @param target the target
+     * @return the distances
+     */
+    private static double[] distances(Instance[] neighbors, Instance target) {
+        EuclideanDistance distance = new EuclideanDistance();
+        double[] distances = new double[neighbors.length];
+        for (int i = 0; i < neighbors.length; i++) {
+            distances[i] = distance.value(neighbors[i], target);
+        }
+        Arrays.sort(distances);
+        return distances;
     }
 
 }
@@ -0,0 +1,93 @@
+package func.test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import shared.DataSet;
+import shared.Instance;
+import shared.SumOfSquaresError;
+import func.nn.backprop.BackPropagationLink;
+import func.nn.backprop.BackPropagationNetwork;
+import func.nn.backprop.BackPropagationNetworkFactory;
+import func.nn.backprop.BatchBackPropagationTrainer;
+import func.nn.backprop.DenseBackPropagationNetwork;
+import func.nn.backprop.DenseBackPropagationNetworkFactory;
+import func.nn.backprop.RPROPUpdateRule;
+import func.nn.backprop.TrainableNetwork;
+
+/**
+ * Trains an object network and an array backed network
+ * from the same starting weights and compares them
+ * @version 1.0
+ */
+public class NNDenseNetworkTest {
+
+    /**
+     * Tests out the two kinds of network on a small classification problem
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        double[][][] data = {
+            { { 1, 1 }, { .1, .9 } },
+            { { 0, 1 }, { 0, 1 } },
+            { { 0, 0 }, { .9, .1 } }
+        };
+        Instance[] patterns = new Instance[data.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = new Instance(data[i][0]);
+            patterns[i].setLabel(new Instance(data[i][1]));
+        }
+        DataSet set = new DataSet(patterns);
+        int[] topology = new int[] { 2, 3, 2 };
+        BackPropagationNetwork objects = new BackPropagationNetworkFactory()
+            .createClassificationNetwork(topology);
+        DenseBackPropagationNetwork dense = new DenseBackPropagationNetworkFactory()
+            .createClassificationNetwork(topology);
+        dense.setWeights(objects.getWeights());
+        BatchBackPropagationTrainer objectTrainer = new BatchBackPropagationTrainer(
+            set, objects, new SumOfSquaresError(), new RPROPUpdateRule());
+        BatchBackPropagationTrainer denseTrainer = new BatchBackPropagationTrainer(
+            set, dense, new SumOfSquaresError(), new RPROPUpdateRule());
+        for (int i = 0; i < 500; i++) {
+            objectTrainer.train();
+            denseTrainer.train();
+        }
+        System.out.println("Same weights after training: "
+            + Arrays.equals(objects.getWeights(), dense.getWeights()));
+        for (int i = 0; i < patterns.length; i++) {
+            objects.setInputValues(patterns[i].getData());
+            objects.run();
+            dense.setInputValues(patterns[i].getData());
+            dense.run();
+            System.out.println("~~");
+            System.out.println(patterns[i].getLabel());
+            System.out.println(objects.getOutputValues());
+            System.out.println(dense.getOutputValues());
+        }
+        // the link views of the dense network against the links
+        // of the object network, after back propagating one error
+        TrainableNetwork[] networks = { objects, dense };
+        for (int n = 0; n < networks.length; n++) {
+            networks[n].setInputValues(patterns[0].getData());
+            networks[n].run();
+            networks[n].clearError();
+            networks[n].setOutputErrors(new double[] { .3, -.2 });
+            networks[n].backpropagate();
+        }
+        List objectLinks = objects.getLinks();
+        List denseLinks = dense.getLinks();
+        boolean same = objectLinks.size() == denseLinks.size();
+        for (int i = 0; same && i < objectLinks.size(); i++) {
+            BackPropagationLink a = (BackPropagationLink) objectLinks.get(i);
+            BackPropagationLink b = (BackPropagationLink) denseLinks.get(i);
+            a.backpropagate();
+            b.backpropagate();
+            same = a.getInValue() == b.getInValue() && a.getOutValue() == b.getOutValue()
+                && a.getInError() == b.getInError() && a.getOutError() == b.getOutError()
+                && a.getError() == b.getError();
+        }
+        System.out.println("Same link values and errors: " + same);
+        System.out.println("Hidden layers: " + objects.getHiddenLayerCount()
+            + ", " + dense.getHiddenLayerCount());
+    }
+}
@@ -1,5 +1,8 @@
 package func.test;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import shared.DataSet;
 import shared.Instance;
 import func.svm.LinearKernel;
@@ -53,5 +56,61 @@ public class SequentialMinimalOptimizationTest {
         for (int i = 0; i < tests.length; i++) {
             System.out.println(svm.margin(new Instance(tests[i])));
         }
+        
+        // the same problem with second order working set selection
+        smo = new SequentialMinimalOptimization(new DataSet(instances), 
+                sk, 55);
+        smo.setSecondOrder(true);
+        smo.train();
+        svm = smo.getSupportVectorMachine();
+        System.out.println("second order");
+        System.out.println(svm.getSupportVectors().size());
+        System.out.println("examples");
+        for (int i = 0; i < instances.length; i++) {
+            System.out.println(svm.margin(instances[i]));
+        }
+        System.out.println("tests");
+        for (int i = 0; i < tests.length; i++) {
+            System.out.println(svm.margin(new Instance(tests[i])));
+        }
+        
+        // a larger noisy problem, a disk inside a ring, trained with
+        // Platt's heuristics and with second order selection with and
+        // without shrinking and a pool to rebuild gradients on
+        Random random = new Random(0);
+        Instance[] points = new Instance[1000];
+        for (int i = 0; i < points.length; i++) {
+            double x = 2 * random.nextDouble() - 1;
+            double y = 2 * random.nextDouble() - 1;
+            boolean inside = x * x + y * y < .5;
+            if (random.nextDouble() < .05) {
+                inside = !inside;
+            }
+            points[i] = new Instance(new double[] {x, y}, inside);
+        }
+        DataSet set = new DataSet(points);
+        ForkJoinPool pool = new ForkJoinPool();
+        String[] names = { "platt", "second order",
+            "second order, shrinking", "second order, shrinking, pool" };
+        for (int run = 0; run < names.length; run++) {
+            smo = new SequentialMinimalOptimization(set, new RBFKernel(.5), 10);
+            smo.setSecondOrder(run > 0);
+            smo.setShrinking(run > 1);
+            smo.setPool(run > 2 ? pool : null);
+            long start = System.currentTimeMillis();
+            smo.train();
+            long time = System.currentTimeMillis() - start;
+            svm = smo.getSupportVectorMachine();
+            Instance[] values = svm.value(set);
+            int errors = 0;
+            for (int i = 0; i < points.length; i++) {
+                if (values[i].getBoolean() != points[i].getLabel().getBoolean()) {
+                    errors++;
+                }
+            }
+            System.out.println(names[run] + ": " + svm.getSupportVectors().size()
+                + " support vectors, " + errors + " training errors, " + time + " ms");
+        }
+        pool.shutdown();
     }
 }
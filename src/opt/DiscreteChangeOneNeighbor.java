@@ -9,7 +9,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class DiscreteChangeOneNeighbor implements NeighborFunction {
+public class DiscreteChangeOneNeighbor implements IncrementalNeighborFunction {
     
     /**
      * The ranges of the different values
@@ -28,9 +28,18 @@ public class DiscreteChangeOneNeighbor implements NeighborFunction {
      * @see opt.NeighborFunction#neighbor(opt.OptimizationData)
      */
     public Instance neighbor(Instance d) {
+        return neighbor(d, new NeighborMove());
+    }
+
+    /**
+     * @see opt.IncrementalNeighborFunction#neighbor(shared.Instance, opt.NeighborMove)
+     */
+    public Instance neighbor(Instance d, NeighborMove move) {
         Instance cod = (Instance) d.copy();
         int i = Distribution.random.nextInt(ranges.length);
         cod.getData().set(i, Distribution.random.nextInt(ranges[i]));
+        move.clear();
+        move.add(i);
         return cod;
     }
 
@@ -3,7 +3,11 @@ package opt;
 import shared.Instance;
 
 /**
- * A class representing an evaluation function
+ * A class representing an evaluation function.
+ * Evaluation functions handed to an algorithm running in a
+ * parallel mode (see {@link EvaluationTask}) may have value
+ * called from several threads at once, so value must not
+ * depend on unsynchronized shared state.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
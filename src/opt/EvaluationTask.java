@@ -0,0 +1,108 @@
+package opt;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import shared.Instance;
+
+/**
+ * A fork join task that evaluates a set of instances
+ * against an optimization problem.  Every value is written
+ * to its own slot so the results are identical to evaluating
+ * the instances one after another in order.
+ * @version 1.0
+ */
+public class EvaluationTask extends RecursiveAction {
+    /**
+     * The number of evaluations below which a task
+     * is not split any further
+     */
+    private static final int THRESHOLD = 4;
+
+    /**
+     * The problem to evaluate against
+     */
+    private OptimizationProblem op;
+
+    /**
+     * The instances
+     */
+    private Instance[] data;
+
+    /**
+     * The indices of the instances to evaluate
+     */
+    private int[] indices;
+
+    /**
+     * The values, indexed the same as the data
+     */
+    private double[] values;
+
+    /**
+     * The start of the range of indices
+     */
+    private int start;
+
+    /**
+     * The end of the range of indices
+     */
+    private int end;
+
+    /**
+     * Make a new evaluation task
+     * @param op the problem
+     * @param data the instances
+     * @param indices the indices of the instances to evaluate
+     * @param values the array to store values in
+     * @param start the start of the range in indices
+     * @param end the end of the range in indices
+     */
+    public EvaluationTask(OptimizationProblem op, Instance[] data,
+            int[] indices, double[] values, int start, int end) {
+        this.op = op;
+        this.data = data;
+        this.indices = indices;
+        this.values = values;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @see java.util.concurrent.RecursiveAction#compute()
+     */
+    protected void compute() {
+        if (end - start <= THRESHOLD) {
+            for (int i = start; i < end; i++) {
+                int j = indices[i];
+                values[j] = op.value(data[j]);
+            }
+        } else {
+            int mid = (start + end) >>> 1;
+            invokeAll(new EvaluationTask(op, data, indices, values, start, mid),
+                new EvaluationTask(op, data, indices, values, mid, end));
+        }
+    }
+
+    /**
+     * Evaluate the instances at the given indices, in parallel on
+     * the pool if one is given and in order on this thread if not
+     * @param pool the pool to use, or null
+     * @param op the problem
+     * @param data the instances
+     * @param indices the indices of the instances to evaluate
+     * @param count the number of indices to use
+     * @param values the array to store values in
+     */
+    public static void evaluate(ForkJoinPool pool, OptimizationProblem op,
+            Instance[] data, int[] indices, int count, double[] values) {
+        if (pool == null || count <= THRESHOLD) {
+            for (int i = 0; i < count; i++) {
+                int j = indices[i];
+                values[j] = op.value(data[j]);
+            }
+        } else {
+            pool.invoke(new EvaluationTask(op, data, indices, values, 0, count));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package opt;
+
+import shared.Instance;
+import dist.Distribution;
+
+/**
+ * A generic hill climbing problem whose neighbors
+ * are evaluated incrementally
+ * @version 1.0
+ */
+public class GenericIncrementalHillClimbingProblem extends GenericHillClimbingProblem
+        implements IncrementalHillClimbingProblem {
+
+    /**
+     * The incremental neighbor function
+     */
+    private IncrementalNeighborFunction neigh;
+
+    /**
+     * The incremental evaluation function
+     */
+    private IncrementalEvaluationFunction eval;
+
+    /**
+     * Make a new incremental hill climbing problem
+     * @param eval the evaulation function
+     * @param dist the initial distribution
+     * @param neigh the neighbor function
+     */
+    public GenericIncrementalHillClimbingProblem(IncrementalEvaluationFunction eval,
+            Distribution dist, IncrementalNeighborFunction neigh) {
+        super(eval, dist, neigh);
+        this.eval = eval;
+        this.neigh = neigh;
+    }
+
+    /**
+     * @see opt.IncrementalHillClimbingProblem#getIncrementalEvaluationFunction()
+     */
+    public IncrementalEvaluationFunction getIncrementalEvaluationFunction() {
+        return eval;
+    }
+
+    /**
+     * @see opt.IncrementalHillClimbingProblem#neighbor(shared.Instance, opt.NeighborMove)
+     */
+    public Instance neighbor(Instance d, NeighborMove move) {
+        return neigh.neighbor(d, move);
+    }
+
+}
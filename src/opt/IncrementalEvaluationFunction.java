@@ -0,0 +1,44 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * An evaluation function that can score a neighbor from the
+ * instance it was made from and the positions that changed,
+ * instead of rescanning the whole neighbor.  Anything besides
+ * the value needed to do this is kept in a state array owned
+ * by the caller, so the function holds nothing per instance.
+ * Since sums are updated rather than recomputed, a value found
+ * this way may differ from value(Instance) in the last bits, so
+ * functions that update sums of doubles should sum them in full
+ * again every so often to keep the difference from growing.
+ * @version 1.0
+ */
+public interface IncrementalEvaluationFunction extends EvaluationFunction {
+
+    /**
+     * Get the length of the state arrays this function uses
+     * @return the length
+     */
+    public int getStateSize();
+
+    /**
+     * Evaluate an instance in full and fill in its state
+     * @param d the instance
+     * @param state filled with the state of d
+     * @return the value of d
+     */
+    public double value(Instance d, double[] state);
+
+    /**
+     * Evaluate a neighbor from the instance it was made from
+     * @param d the neighbor
+     * @param from the instance the neighbor was made from
+     * @param fromState the state of from
+     * @param move the positions at which d may differ from from
+     * @param state filled with the state of d
+     * @return the value of d
+     */
+    public double value(Instance d, Instance from, double[] fromState,
+        NeighborMove move, double[] state);
+}
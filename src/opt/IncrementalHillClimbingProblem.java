@@ -0,0 +1,25 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * A hill climbing problem whose neighbors may be
+ * evaluated incrementally
+ * @version 1.0
+ */
+public interface IncrementalHillClimbingProblem extends HillClimbingProblem {
+
+    /**
+     * Get the function to evaluate neighbors incrementally with
+     * @return the function
+     */
+    public IncrementalEvaluationFunction getIncrementalEvaluationFunction();
+
+    /**
+     * Find a neighbor to the given piece of data and record the move made
+     * @param d the data to find the neighbor of
+     * @param move filled with the positions changed
+     * @return the neighbor
+     */
+    public Instance neighbor(Instance d, NeighborMove move);
+}
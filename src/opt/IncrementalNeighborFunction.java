@@ -0,0 +1,20 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * A neighbor function that can report the move it made,
+ * so that the neighbor can be evaluated incrementally
+ * @version 1.0
+ */
+public interface IncrementalNeighborFunction extends NeighborFunction {
+
+    /**
+     * Get the neighbor of a piece of data and record
+     * the positions changed to make it
+     * @param d the data
+     * @param move cleared and then filled with the positions changed
+     * @return the neighbor
+     */
+    public Instance neighbor(Instance d, NeighborMove move);
+}
@@ -0,0 +1,64 @@
+package opt;
+
+/**
+ * The positions a neighbor function changed in making a neighbor.
+ * A move is filled in by the neighbor function and read by an
+ * incremental evaluation function, and the same move object can
+ * be reused from one neighbor to the next.
+ * @version 1.0
+ */
+public class NeighborMove {
+
+    /**
+     * The positions changed
+     */
+    private int[] positions = new int[2];
+
+    /**
+     * The number of positions changed
+     */
+    private int size;
+
+    /**
+     * Forget all of the positions
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Record a position as changed.  A position
+     * already recorded is not recorded again.
+     * @param position the position
+     */
+    public void add(int position) {
+        for (int i = 0; i < size; i++) {
+            if (positions[i] == position) {
+                return;
+            }
+        }
+        if (size == positions.length) {
+            int[] bigger = new int[2 * size];
+            System.arraycopy(positions, 0, bigger, 0, size);
+            positions = bigger;
+        }
+        positions[size++] = position;
+    }
+
+    /**
+     * Get the number of positions changed
+     * @return the number
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a position changed
+     * @param i the index of the position
+     * @return the position
+     */
+    public int get(int i) {
+        return positions[i];
+    }
+}
@@ -0,0 +1,179 @@
+package opt;
+
+import java.io.Serializable;
+
+import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.RowVector;
+import util.linalg.Vector;
+
+/**
+ * A fixed size population of instances and their values,
+ * stored as one block with a row per individual.  Individuals
+ * made of bits are stored packed in a block of words and other
+ * individuals in a block of doubles.  The instances handed out
+ * are views of their rows that live as long as the population,
+ * so writing into a population allocates nothing.  Algorithms
+ * keep two populations and swap them between generations.
+ * @version 1.0
+ */
+public class Population implements Serializable {
+
+    /**
+     * The number of values in an individual
+     */
+    private int length;
+
+    /**
+     * The block of words for individuals made of bits, or null
+     */
+    private long[] words;
+
+    /**
+     * The number of words in a row of bits
+     */
+    private int wordCount;
+
+    /**
+     * The block of doubles for other individuals, or null
+     */
+    private double[] rows;
+
+    /**
+     * The views of the rows
+     */
+    private Instance[] instances;
+
+    /**
+     * The values of the individuals
+     */
+    private double[] values;
+
+    /**
+     * Make a new population
+     * @param size the number of individuals
+     * @param prototype an individual, giving the length and
+     * whether the individuals are stored as bits
+     */
+    public Population(int size, Instance prototype) {
+        length = prototype.size();
+        instances = new Instance[size];
+        values = new double[size];
+        if (prototype.getData() instanceof BitVector) {
+            wordCount = (length + 63) >>> 6;
+            words = new long[size * wordCount];
+            for (int i = 0; i < size; i++) {
+                instances[i] = new Instance(new BitVector(words, i * wordCount, length));
+            }
+        } else {
+            rows = new double[size * length];
+            for (int i = 0; i < size; i++) {
+                instances[i] = new Instance(new RowVector(rows, i * length, length));
+            }
+        }
+    }
+
+    /**
+     * Get the number of individuals
+     * @return the number
+     */
+    public int size() {
+        return instances.length;
+    }
+
+    /**
+     * Get an individual, as a view of its row that
+     * changes when the row is written over
+     * @param i the index of the individual
+     * @return the view
+     */
+    public Instance get(int i) {
+        return instances[i];
+    }
+
+    /**
+     * Get the views of all of the rows
+     * @return the views
+     */
+    public Instance[] getInstances() {
+        return instances;
+    }
+
+    /**
+     * Get the values of the individuals, which
+     * may be written to directly
+     * @return the values
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Copy an instance into a row
+     * @param i the index of the row
+     * @param instance the instance to copy
+     */
+    public void set(int i, Instance instance) {
+        Vector data = instance.getData();
+        if (data.size() != length) {
+            throw new IllegalArgumentException("instance has " + data.size()
+                + " values, not " + length);
+        }
+        if (words != null && data instanceof BitVector) {
+            BitVector bits = (BitVector) data;
+            System.arraycopy(bits.getWords(), bits.getOffset(), words, i * wordCount, wordCount);
+        } else if (words != null) {
+            instances[i].getData().set(0, data);
+        } else {
+            int start = i * length;
+            for (int j = 0; j < length; j++) {
+                rows[start + j] = data.get(j);
+            }
+        }
+    }
+
+    /**
+     * Copy discrete values into a row
+     * @param i the index of the row
+     * @param discrete the values, which must be zero or one for a block of bits
+     */
+    public void set(int i, int[] discrete) {
+        if (discrete.length != length) {
+            throw new IllegalArgumentException("instance has " + discrete.length
+                + " values, not " + length);
+        }
+        if (words != null) {
+            int start = i * wordCount;
+            for (int w = 0; w < wordCount; w++) {
+                words[start + w] = 0;
+            }
+            for (int j = 0; j < length; j++) {
+                if (discrete[j] == 1) {
+                    words[start + (j >>> 6)] |= 1L << j;
+                } else if (discrete[j] != 0) {
+                    throw new IllegalArgumentException("bits can only be 0 or 1");
+                }
+            }
+        } else {
+            int start = i * length;
+            for (int j = 0; j < length; j++) {
+                rows[start + j] = discrete[j];
+            }
+        }
+    }
+
+    /**
+     * Copy an individual and its value from another population of the same shape
+     * @param i the index of the row to copy into
+     * @param source the population to copy from
+     * @param j the index of the individual to copy
+     */
+    public void copy(int i, Population source, int j) {
+        if (words != null) {
+            System.arraycopy(source.words, j * wordCount, words, i * wordCount, wordCount);
+        } else {
+            System.arraycopy(source.rows, j * length, rows, i * length, length);
+        }
+        values[i] = source.values[j];
+    }
+}
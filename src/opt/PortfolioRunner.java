@@ -0,0 +1,205 @@
+package opt;
+
+import java.util.concurrent.ForkJoinPool;
+
+import dist.Distribution;
+
+import shared.Instance;
+import util.ParallelRange;
+import util.PerThreadRandom;
+import util.RangeTask;
+
+/**
+ * Runs a portfolio of independent optimization algorithms
+ * side by side on a pool, at most as many at a time as the pool
+ * has threads, until one of them reaches a target value, a time
+ * limit passes, or each has run its iterations.  Any algorithm
+ * can be in the portfolio, for example restarts of randomized hill
+ * climbing and simulated annealing next to a genetic algorithm.
+ * The algorithms are trained at the same time, so ones sharing
+ * a problem need functions that are thread safe, and no two may
+ * share a distribution that is estimated, as in MIMIC.
+ * Each run draws its random numbers from a stream of its own.
+ * @version 1.0
+ */
+public class PortfolioRunner {
+
+    /**
+     * The algorithms
+     */
+    private OptimizationAlgorithm[] algorithms;
+
+    /**
+     * The value to stop at
+     */
+    private double target;
+
+    /**
+     * The time limit in milliseconds, or zero for none
+     */
+    private long timeLimit;
+
+    /**
+     * The maximum number of iterations of each run
+     */
+    private int maxIterations;
+
+    /**
+     * The number of iterations between checks of each run's optimal
+     */
+    private int checkInterval = 1;
+
+    /**
+     * The pool to run on, or null to run one after another
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The traces of the last run
+     */
+    private RunTrace[] traces;
+
+    /**
+     * Set once a run reaches the target
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Make a new portfolio runner
+     * @param algorithms the algorithms to run
+     * @param target the value to stop at,
+     * or positive infinity to run until the limits
+     * @param timeLimit the time limit in milliseconds, or zero for none
+     * @param maxIterations the maximum number of iterations of each run
+     * @param pool the pool to run on, or null to run one after another
+     */
+    public PortfolioRunner(OptimizationAlgorithm[] algorithms, double target,
+            long timeLimit, int maxIterations, ForkJoinPool pool) {
+        this.algorithms = algorithms;
+        this.target = target;
+        this.timeLimit = timeLimit;
+        this.maxIterations = maxIterations;
+        this.pool = pool;
+    }
+
+    /**
+     * Set how often each run's optimal is evaluated.  Checking
+     * costs an evaluation, and for MIMIC a whole sample, so
+     * algorithms with cheap iterations may check less often.
+     * @param checkInterval the number of iterations between checks
+     */
+    public void setCheckInterval(int checkInterval) {
+        if (checkInterval < 1) {
+            throw new IllegalArgumentException("the check interval must be positive");
+        }
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Run the portfolio
+     * @return the best instance any run found
+     */
+    public Instance run() {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        final PerThreadRandom.Stream[] streams = new PerThreadRandom.Stream[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            streams[i] = random.newStream(random.nextLong());
+        }
+        traces = new RunTrace[algorithms.length];
+        stopped = false;
+        final long start = System.nanoTime();
+        Object[] results;
+        try {
+            results = ParallelRange.run(pool, algorithms.length, 1, new RangeTask() {
+                public Object run(int run, int next) {
+                    return PortfolioRunner.this.run(run, streams[run], start);
+                }
+            });
+        } catch (IllegalStateException e) {
+            stopped = true;
+            throw e;
+        }
+        for (int i = 0; i < algorithms.length; i++) {
+            traces[i] = (RunTrace) results[i];
+        }
+        return getOptimal();
+    }
+
+    /**
+     * Train one algorithm until it reaches the target, another
+     * run does, or it runs out of time or iterations
+     * @param run the index of the algorithm
+     * @param stream the random number stream of the run
+     * @param start the time the portfolio started in nanoseconds
+     * @return the trace of the run
+     */
+    private RunTrace run(int run, PerThreadRandom.Stream stream, long start) {
+        OptimizationAlgorithm algorithm = algorithms[run];
+        OptimizationProblem op = algorithm.getOptimizationProblem();
+        RunTrace trace = new RunTrace();
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        PerThreadRandom.Stream previous = random.setStream(stream);
+        try {
+            double best = Double.NEGATIVE_INFINITY;
+            boolean reached = false;
+            int iteration = 0;
+            while (!stopped && iteration < maxIterations
+                    && (timeLimit <= 0 || System.nanoTime() - start < timeLimit * 1000000)) {
+                algorithm.train();
+                iteration++;
+                if (iteration % checkInterval == 0 || iteration == maxIterations) {
+                    Instance optimal = algorithm.getOptimal();
+                    double value = op.value(optimal);
+                    if (value > best) {
+                        best = value;
+                        trace.improve(iteration, millis(start), value,
+                            (Instance) optimal.copy());
+                    }
+                    if (value >= target) {
+                        reached = true;
+                        stopped = true;
+                    }
+                }
+            }
+            trace.finish(iteration, millis(start), reached);
+            return trace;
+        } finally {
+            random.setStream(previous);
+        }
+    }
+
+    /**
+     * Get the time since a start
+     * @param start the start in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static double millis(long start) {
+        return (System.nanoTime() - start) / 1E6;
+    }
+
+    /**
+     * Get the traces of the last run, one per algorithm
+     * @return the traces
+     */
+    public RunTrace[] getTraces() {
+        return traces;
+    }
+
+    /**
+     * Get the best instance of the last run, the
+     * first algorithm's on ties
+     * @return the best instance, or null if no run checked
+     */
+    public Instance getOptimal() {
+        Instance best = null;
+        double bestVal = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < traces.length; i++) {
+            if (traces[i].getOptimal() != null
+                    && (best == null || traces[i].getOptimalValue() > bestVal)) {
+                best = traces[i].getOptimal();
+                bestVal = traces[i].getOptimalValue();
+            }
+        }
+        return best;
+    }
+}
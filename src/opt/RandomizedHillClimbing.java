@@ -18,6 +18,27 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
      * The current value of the data
      */
     private double curVal;
+
+    /**
+     * The function evaluating neighbors incrementally,
+     * or null if they are evaluated in full
+     */
+    private IncrementalEvaluationFunction incremental;
+
+    /**
+     * The move made to get the last neighbor
+     */
+    private NeighborMove move;
+
+    /**
+     * The state of the current data for incremental evaluation
+     */
+    private double[] curState;
+
+    /**
+     * The state of the last neighbor for incremental evaluation
+     */
+    private double[] neighState;
     
     /**
      * Make a new randomized hill climbing
@@ -25,7 +46,16 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
     public RandomizedHillClimbing(HillClimbingProblem hcp) {
         super(hcp);
         cur = hcp.random();
-        curVal = hcp.value(cur);
+        if (hcp instanceof IncrementalHillClimbingProblem) {
+            incremental = ((IncrementalHillClimbingProblem) hcp)
+                .getIncrementalEvaluationFunction();
+            move = new NeighborMove();
+            curState = new double[incremental.getStateSize()];
+            neighState = new double[incremental.getStateSize()];
+            curVal = incremental.value(cur, curState);
+        } else {
+            curVal = hcp.value(cur);
+        }
     }
 
     /**
@@ -33,11 +63,21 @@ public class RandomizedHillClimbing extends OptimizationAlgorithm {
      */
     public double train() {
         HillClimbingProblem hcp = (HillClimbingProblem) getOptimizationProblem();
-        Instance neigh = hcp.neighbor(cur);
-        double neighVal = hcp.value(neigh);
+        Instance neigh;
+        double neighVal;
+        if (incremental != null) {
+            neigh = ((IncrementalHillClimbingProblem) hcp).neighbor(cur, move);
+            neighVal = incremental.value(neigh, cur, curState, move, neighState);
+        } else {
+            neigh = hcp.neighbor(cur);
+            neighVal = hcp.value(neigh);
+        }
         if (neighVal > curVal) {
             curVal = neighVal;
             cur = neigh;
+            double[] temp = curState;
+            curState = neighState;
+            neighState = temp;
         }
         return curVal;
     }
@@ -0,0 +1,177 @@
+package opt;
+
+import shared.Instance;
+
+/**
+ * The record of one run of a portfolio.  Every time the run
+ * finds something better than it had, the iteration, the time
+ * since the portfolio started, and the new value are recorded.
+ * @version 1.0
+ */
+public class RunTrace {
+
+    /**
+     * The iteration of each improvement
+     */
+    private int[] iterations = new int[16];
+
+    /**
+     * The time of each improvement in milliseconds
+     */
+    private double[] times = new double[16];
+
+    /**
+     * The value of each improvement
+     */
+    private double[] values = new double[16];
+
+    /**
+     * The number of improvements
+     */
+    private int improvementCount;
+
+    /**
+     * The best instance found
+     */
+    private Instance optimal;
+
+    /**
+     * The number of iterations run
+     */
+    private int iterationCount;
+
+    /**
+     * The time taken in milliseconds
+     */
+    private double time;
+
+    /**
+     * Whether the run reached the target
+     */
+    private boolean targetReached;
+
+    /**
+     * Record an improvement
+     * @param iteration the iteration
+     * @param time the time in milliseconds
+     * @param value the new best value
+     * @param optimal a copy of the new best instance
+     */
+    void improve(int iteration, double time, double value, Instance optimal) {
+        if (improvementCount == values.length) {
+            int[] newIterations = new int[2 * values.length];
+            double[] newTimes = new double[2 * values.length];
+            double[] newValues = new double[2 * values.length];
+            System.arraycopy(iterations, 0, newIterations, 0, improvementCount);
+            System.arraycopy(times, 0, newTimes, 0, improvementCount);
+            System.arraycopy(values, 0, newValues, 0, improvementCount);
+            iterations = newIterations;
+            times = newTimes;
+            values = newValues;
+        }
+        iterations[improvementCount] = iteration;
+        times[improvementCount] = time;
+        values[improvementCount] = value;
+        improvementCount++;
+        this.optimal = optimal;
+    }
+
+    /**
+     * Record the end of the run
+     * @param iterationCount the number of iterations run
+     * @param time the time taken in milliseconds
+     * @param targetReached whether the run reached the target
+     */
+    void finish(int iterationCount, double time, boolean targetReached) {
+        this.iterationCount = iterationCount;
+        this.time = time;
+        this.targetReached = targetReached;
+    }
+
+    /**
+     * Get the number of improvements
+     * @return the number of improvements
+     */
+    public int getImprovementCount() {
+        return improvementCount;
+    }
+
+    /**
+     * Get the iteration of an improvement
+     * @param i the improvement
+     * @return the iteration
+     */
+    public int getIteration(int i) {
+        return iterations[i];
+    }
+
+    /**
+     * Get the time of an improvement
+     * @param i the improvement
+     * @return the time in milliseconds since the portfolio started
+     */
+    public double getTime(int i) {
+        return times[i];
+    }
+
+    /**
+     * Get the value of an improvement
+     * @param i the improvement
+     * @return the value
+     */
+    public double getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Get the best instance found
+     * @return the instance, or null if the run never checked
+     */
+    public Instance getOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Get the best value found
+     * @return the value, or negative infinity if the run never checked
+     */
+    public double getOptimalValue() {
+        return improvementCount == 0 ? Double.NEGATIVE_INFINITY
+            : values[improvementCount - 1];
+    }
+
+    /**
+     * Get the number of iterations run
+     * @return the number of iterations
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Get the time the run took
+     * @return the time in milliseconds since the portfolio started
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Whether this run reached the target
+     * @return true if it did
+     */
+    public boolean isTargetReached() {
+        return targetReached;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        String result = "";
+        for (int i = 0; i < improvementCount; i++) {
+            result += iterations[i] + "," + times[i] + "," + values[i] + "\n";
+        }
+        return result;
+    }
+}
@@ -20,6 +20,27 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
      * The current optimization value
      */
     private double curVal;
+
+    /**
+     * The function evaluating neighbors incrementally,
+     * or null if they are evaluated in full
+     */
+    private IncrementalEvaluationFunction incremental;
+
+    /**
+     * The move made to get the last neighbor
+     */
+    private NeighborMove move;
+
+    /**
+     * The state of the current data for incremental evaluation
+     */
+    private double[] curState;
+
+    /**
+     * The state of the last neighbor for incremental evaluation
+     */
+    private double[] neighState;
     
     /**
      * The current temperature
@@ -42,7 +63,16 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
         this.t = t;
         this.cooling = cooling;
         this.cur = hcp.random();
-        this.curVal = hcp.value(cur);
+        if (hcp instanceof IncrementalHillClimbingProblem) {
+            incremental = ((IncrementalHillClimbingProblem) hcp)
+                .getIncrementalEvaluationFunction();
+            move = new NeighborMove();
+            curState = new double[incremental.getStateSize()];
+            neighState = new double[incremental.getStateSize()];
+            this.curVal = incremental.value(cur, curState);
+        } else {
+            this.curVal = hcp.value(cur);
+        }
     }
 
     /**
@@ -50,12 +80,22 @@ public class SimulatedAnnealing extends OptimizationAlgorithm {
      */
     public double train() {
         HillClimbingProblem p = (HillClimbingProblem) getOptimizationProblem();
-        Instance neigh = p.neighbor(cur);
-        double neighVal = p.value(neigh);
+        Instance neigh;
+        double neighVal;
+        if (incremental != null) {
+            neigh = ((IncrementalHillClimbingProblem) p).neighbor(cur, move);
+            neighVal = incremental.value(neigh, cur, curState, move, neighState);
+        } else {
+            neigh = p.neighbor(cur);
+            neighVal = p.value(neigh);
+        }
         if (neighVal > curVal || Distribution.random.nextDouble() < 
                 Math.exp((neighVal - curVal) / t)) {
             curVal = neighVal;
             cur = neigh;
+            double[] temp = curState;
+            curState = neighState;
+            neighState = temp;
         }
         t *= cooling;
         return curVal;
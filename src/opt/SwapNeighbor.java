@@ -9,18 +9,28 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class SwapNeighbor implements NeighborFunction {
+public class SwapNeighbor implements IncrementalNeighborFunction {
     
     /**
      * @see opt.ga.MutationFunction#mutate(opt.OptimizationData)
      */
     public Instance neighbor(Instance d) {
+        return neighbor(d, new NeighborMove());
+    }
+
+    /**
+     * @see opt.IncrementalNeighborFunction#neighbor(shared.Instance, opt.NeighborMove)
+     */
+    public Instance neighbor(Instance d, NeighborMove move) {
         Instance cod = (Instance) d.copy();
         int i = Distribution.random.nextInt(cod.getData().size());
         int j = Distribution.random.nextInt(cod.getData().size());
         double temp = cod.getContinuous(i);
         cod.getData().set(i, cod.getContinuous(j));
         cod.getData().set(j, temp);
+        move.clear();
+        move.add(i);
+        move.add(j);
         return cod;
     }
 }
\ No newline at end of file
@@ -0,0 +1,345 @@
+package opt.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import dist.Distribution;
+import func.nn.DenseNetwork;
+import func.nn.DenseNetworkEngine;
+import func.nn.NeuralNetwork;
+import func.nn.activation.ActivationFunction;
+import opt.EvaluationFunction;
+import shared.DataSet;
+import shared.ErrorMeasure;
+import shared.Instance;
+import shared.SumOfSquaresError;
+import util.linalg.DenseVector;
+import util.linalg.Vector;
+
+/**
+ * An evaluation function for the weights of an array backed
+ * network that runs whole blocks of examples through each layer
+ * at once.  The examples are copied when the function is made
+ * into blocks stored feature by feature, so every layer is one
+ * matrix product with unit stride over the examples.  Nothing
+ * is allocated per example, no network object is touched, and
+ * each thread works in its own buffers, so the function can be
+ * used by parallel algorithms as is.  It can also score each
+ * weight vector on a random sample of the examples instead of
+ * all of them, for a cheaper but noisy fitness.
+ * @version 1.0
+ */
+public class BatchNeuralNetworkEvaluationFunction implements EvaluationFunction {
+
+    /**
+     * The number of examples in a block
+     */
+    private static final int BLOCK = 256;
+
+    /**
+     * The engine giving the shape and activation functions
+     */
+    private DenseNetworkEngine engine;
+
+    /**
+     * The examples, for error measures other than sum of squares
+     */
+    private DataSet examples;
+
+    /**
+     * The error measure
+     */
+    private ErrorMeasure measure;
+
+    /**
+     * The input blocks, each input count plus one rows
+     * of BLOCK values with a final row of ones for the bias
+     */
+    private double[][] blocks;
+
+    /**
+     * The inputs one example after another, for sampling
+     */
+    private double[] inputs;
+
+    /**
+     * The labels one example after another
+     */
+    private double[] labels;
+
+    /**
+     * The weight of each example
+     */
+    private double[] exampleWeights;
+
+    /**
+     * The number of examples to sample for each
+     * evaluation, or zero to use all of them
+     */
+    private int sampleSize;
+
+    /**
+     * The buffers of each thread
+     */
+    private ThreadLocal workspaces;
+
+    /**
+     * Make a new batch evaluation function
+     * @param network the network, which must be array backed
+     * @param examples the examples
+     * @param measure the error measure
+     */
+    public BatchNeuralNetworkEvaluationFunction(NeuralNetwork network,
+            DataSet examples, ErrorMeasure measure) {
+        if (network instanceof DenseNetwork) {
+            engine = ((DenseNetwork) network).getEngine();
+        } else {
+            throw new IllegalArgumentException("network is not array backed");
+        }
+        this.examples = examples;
+        this.measure = measure;
+        int in = engine.getNodeCount(0);
+        int out = engine.getNodeCount(engine.getLayerCount() - 1);
+        int n = examples.size();
+        inputs = new double[n * in];
+        labels = new double[n * out];
+        exampleWeights = new double[n];
+        for (int e = 0; e < n; e++) {
+            Instance example = examples.get(e);
+            for (int i = 0; i < in; i++) {
+                inputs[e * in + i] = example.getContinuous(i);
+            }
+            Instance label = example.getLabel();
+            for (int o = 0; o < out; o++) {
+                labels[e * out + o] = label.getContinuous(o);
+            }
+            exampleWeights[e] = example.getWeight();
+        }
+        blocks = new double[(n + BLOCK - 1) / BLOCK][];
+        for (int b = 0; b < blocks.length; b++) {
+            blocks[b] = new double[(in + 1) * BLOCK];
+            gather(blocks[b], b * BLOCK, Math.min(n, (b + 1) * BLOCK), null);
+        }
+        workspaces = new ThreadLocal() {
+            protected Object initialValue() {
+                return new Workspace();
+            }
+        };
+    }
+
+    /**
+     * Set the number of examples to score each weight vector on.
+     * The examples are drawn with replacement and the error is
+     * scaled up to the size of the full set.
+     * @param sampleSize the sample size, zero to use every example
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    private final AtomicLong functionCallCount = new AtomicLong();
+
+    /**
+     * @see opt.EvaluationFunction#getFunctionCallCount()
+     */
+    public long getFunctionCallCount()
+    {
+        return functionCallCount.get();
+    }
+    /**
+     * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
+     */
+    public void setFunctionCallCount(long value)
+    {
+        functionCallCount.set(value);
+    }
+
+    /**
+     * @see opt.EvaluationFunction#value(shared.Instance)
+     */
+    public double value(Instance d) {
+        functionCallCount.incrementAndGet();
+        Workspace w = (Workspace) workspaces.get();
+        Vector data = d.getData();
+        for (int i = 0; i < w.weights.length; i++) {
+            w.weights[i] = data.get(i);
+        }
+        int n = examples.size();
+        double error = 0;
+        if (sampleSize <= 0 || sampleSize >= n) {
+            for (int b = 0; b < blocks.length; b++) {
+                int start = b * BLOCK;
+                int count = Math.min(n, start + BLOCK) - start;
+                for (int e = 0; e < count; e++) {
+                    w.indices[e] = start + e;
+                }
+                error = error(w, blocks[b], count, error);
+            }
+        } else {
+            for (int start = 0; start < sampleSize; start += BLOCK) {
+                int count = Math.min(sampleSize, start + BLOCK) - start;
+                for (int e = 0; e < count; e++) {
+                    w.indices[e] = Distribution.random.nextInt(n);
+                }
+                gather(w.block, 0, count, w.indices);
+                error = error(w, w.block, count, error);
+            }
+            error *= (double) n / sampleSize;
+        }
+        // the fitness is 1 / error
+        return 1 / error;
+    }
+
+    /**
+     * Copy examples into a block, feature by feature
+     * @param block the block
+     * @param start the first example, if indices is null
+     * @param end one past the last example, or the number of indices
+     * @param indices the examples to copy, or null for a range
+     */
+    private void gather(double[] block, int start, int end, int[] indices) {
+        int in = engine.getNodeCount(0);
+        int count = indices == null ? end - start : end;
+        for (int e = 0; e < count; e++) {
+            int example = indices == null ? start + e : indices[e];
+            for (int i = 0; i < in; i++) {
+                block[i * BLOCK + e] = inputs[example * in + i];
+            }
+        }
+        for (int e = 0; e < BLOCK; e++) {
+            block[in * BLOCK + e] = 1;
+        }
+    }
+
+    /**
+     * Run a block through the network and add up the error
+     * @param w the workspace holding the weights and example indices
+     * @param block the input block
+     * @param count the number of examples in the block
+     * @param error the error so far, added to in example order
+     * @return the total error
+     */
+    private double error(Workspace w, double[] block, int count, double error) {
+        int last = engine.getLayerCount() - 1;
+        double[] in = block;
+        for (int l = 1; l <= last; l++) {
+            int inCount = engine.getNodeCount(l - 1) + 1;
+            int n = engine.getNodeCount(l);
+            double[] out = w.activations[l];
+            int k = engine.getWeightOffset(l);
+            // out = weights * in, one row of examples at a time
+            for (int j = 0; j < n; j++) {
+                int row = j * BLOCK;
+                for (int e = 0; e < count; e++) {
+                    out[row + e] = 0;
+                }
+                for (int i = 0; i < inCount; i++) {
+                    double weight = w.weights[k + i];
+                    int col = i * BLOCK;
+                    for (int e = 0; e < count; e++) {
+                        out[row + e] += in[col + e] * weight;
+                    }
+                }
+                k += inCount;
+            }
+            if (l < last || !engine.isSoftMax()) {
+                ActivationFunction f = engine.getActivationFunction(l);
+                for (int j = 0; j < n; j++) {
+                    int row = j * BLOCK;
+                    for (int e = 0; e < count; e++) {
+                        out[row + e] = f.value(out[row + e]);
+                    }
+                }
+            } else {
+                softmax(out, n, count);
+            }
+            in = out;
+        }
+        int outCount = engine.getNodeCount(last);
+        if (measure instanceof SumOfSquaresError) {
+            for (int e = 0; e < count; e++) {
+                int example = w.indices[e];
+                double sum = 0;
+                for (int o = 0; o < outCount; o++) {
+                    double diff = in[o * BLOCK + e] - labels[example * outCount + o];
+                    sum += diff * diff * exampleWeights[example];
+                }
+                error += .5 * sum;
+            }
+        } else {
+            for (int e = 0; e < count; e++) {
+                double[] output = new double[outCount];
+                for (int o = 0; o < outCount; o++) {
+                    output[o] = in[o * BLOCK + e];
+                }
+                error += measure.value(new Instance(new DenseVector(output)),
+                    examples.get(w.indices[e]));
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Apply soft max down each column of a block
+     * @param out the block
+     * @param n the number of rows
+     * @param count the number of columns in use
+     */
+    private static void softmax(double[] out, int n, int count) {
+        for (int e = 0; e < count; e++) {
+            double shift = out[e];
+            for (int j = 1; j < n; j++) {
+                shift = Math.max(shift, out[j * BLOCK + e]);
+            }
+            double total = 0;
+            for (int j = 0; j < n; j++) {
+                out[j * BLOCK + e] = Math.exp(out[j * BLOCK + e] - shift);
+                total += out[j * BLOCK + e];
+            }
+            for (int j = 0; j < n; j++) {
+                out[j * BLOCK + e] /= total;
+            }
+        }
+    }
+
+    /**
+     * The buffers one thread evaluates with
+     */
+    private class Workspace {
+        /**
+         * The weights being evaluated
+         */
+        private double[] weights = new double[engine.getWeightCount()];
+
+        /**
+         * The examples in the current block
+         */
+        private int[] indices = new int[BLOCK];
+
+        /**
+         * A block for sampled examples
+         */
+        private double[] block = new double[(engine.getNodeCount(0) + 1) * BLOCK];
+
+        /**
+         * The activations of each layer, with a row
+         * of ones for the bias below every hidden layer
+         */
+        private double[][] activations = new double[engine.getLayerCount()][];
+
+        /**
+         * Make a new workspace
+         */
+        private Workspace() {
+            int last = engine.getLayerCount() - 1;
+            for (int l = 1; l <= last; l++) {
+                int rows = l < last ? engine.getNodeCount(l) + 1 : engine.getNodeCount(l);
+                activations[l] = new double[rows * BLOCK];
+                if (l < last) {
+                    for (int e = 0; e < BLOCK; e++) {
+                        activations[l][engine.getNodeCount(l) * BLOCK + e] = 1;
+                    }
+                }
+            }
+        }
+    }
+}
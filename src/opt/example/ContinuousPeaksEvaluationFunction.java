@@ -1,5 +1,7 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import util.linalg.Vector;
 import opt.EvaluationFunction;
 import shared.Instance;
@@ -21,32 +23,31 @@ public class ContinuousPeaksEvaluationFunction implements EvaluationFunction {
      */
     public ContinuousPeaksEvaluationFunction(int t) {
         this.t = t;
-        this.functionCallCount = 0;
     }
 
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
         Vector data = d.getData();
         int max0 = 0;
         int count = 0;
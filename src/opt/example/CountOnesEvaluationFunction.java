@@ -1,5 +1,8 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.linalg.BitVector;
 import util.linalg.Vector;
 import opt.EvaluationFunction;
 import shared.Instance;
@@ -11,10 +14,9 @@ import shared.Instance;
  */
 public class CountOnesEvaluationFunction implements EvaluationFunction {
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     public CountOnesEvaluationFunction() {
-        this.functionCallCount = 0;
     }
 
     /**
@@ -22,22 +24,25 @@ public class CountOnesEvaluationFunction implements EvaluationFunction {
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
         Vector data = d.getData();
+        if (data instanceof BitVector) {
+            return ((BitVector) data).countOnes();
+        }
         double val = 0;
         for (int i = 0; i < data.size(); i++) {
             if (data.get(i) == 1) {
@@ -1,5 +1,8 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.linalg.BitVector;
 import util.linalg.Vector;
 import opt.EvaluationFunction;
 import shared.Instance;
@@ -11,10 +14,9 @@ import shared.Instance;
  */
 public class FlipFlopEvaluationFunction implements EvaluationFunction {
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     public FlipFlopEvaluationFunction() {
-        this.functionCallCount = 0;
     }
 
     /**
@@ -22,21 +24,24 @@ public class FlipFlopEvaluationFunction implements EvaluationFunction {
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
         Vector data = d.getData();
+        if (data instanceof BitVector) {
+            return flips((BitVector) data);
+        }
         double val = 0;
         for (int i = 0; i < data.size() - 1; i++) {
             if (data.get(i) != data.get(i + 1)) {
@@ -45,4 +50,33 @@ public class FlipFlopEvaluationFunction implements EvaluationFunction {
         }
         return val;
     }
+
+    /**
+     * Count the neighboring bits that differ a word at a time
+     * @param data the bits
+     * @return the count
+     */
+    private static int flips(BitVector data) {
+        long[] words = data.getWords();
+        int offset = data.getOffset();
+        int wordCount = data.getWordCount();
+        int n = data.size();
+        int count = 0;
+        for (int i = 0; i < wordCount; i++) {
+            // line each bit up with the bit after it
+            long word = words[offset + i];
+            long next = word >>> 1;
+            if (i + 1 < wordCount) {
+                next |= words[offset + i + 1] << 63;
+            }
+            long flips = word ^ next;
+            // only the pairs that start before the last bit count
+            int pairs = n - 1 - (i << 6);
+            if (pairs < 64) {
+                flips &= pairs <= 0 ? 0 : (1L << pairs) - 1;
+            }
+            count += Long.bitCount(flips);
+        }
+        return count;
+    }
 }
@@ -1,15 +1,21 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.linalg.BitVector;
 import util.linalg.Vector;
-import opt.EvaluationFunction;
+import opt.IncrementalEvaluationFunction;
+import opt.NeighborMove;
 import shared.Instance;
 
 /**
- * A four peaks evaluation function
+ * A four peaks evaluation function.  For incremental
+ * evaluation the state is the length of the run of leading
+ * ones and the length of the run of trailing zeros.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class FourPeaksEvaluationFunction implements EvaluationFunction {
+public class FourPeaksEvaluationFunction implements IncrementalEvaluationFunction {
     /**
      * The t value
      */
@@ -21,46 +27,133 @@ public class FourPeaksEvaluationFunction implements EvaluationFunction {
      */
     public FourPeaksEvaluationFunction(int t) {
         this.t = t;
-        this.functionCallCount = 0;
     }
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
+        functionCallCount.incrementAndGet();
+        Vector data = d.getData();
+        return value(data.size(), head(data, 0), tail(data, data.size() - 1));
+    }
+
+    /**
+     * @see opt.IncrementalEvaluationFunction#getStateSize()
+     */
+    public int getStateSize() {
+        return 2;
+    }
+
+    /**
+     * @see opt.IncrementalEvaluationFunction#value(shared.Instance, double[])
+     */
+    public double value(Instance d, double[] state) {
+        functionCallCount.incrementAndGet();
+        Vector data = d.getData();
+        int head = head(data, 0);
+        int tail = tail(data, data.size() - 1);
+        state[0] = head;
+        state[1] = tail;
+        return value(data.size(), head, tail);
+    }
 
-        functionCallCount++;
+    /**
+     * @see opt.IncrementalEvaluationFunction#value(shared.Instance, shared.Instance, double[], opt.NeighborMove, double[])
+     */
+    public double value(Instance d, Instance from, double[] fromState,
+            NeighborMove move, double[] state) {
+        functionCallCount.incrementAndGet();
         Vector data = d.getData();
-        int i = 0;
+        Vector old = from.getData();
+        int n = data.size();
+        int head = (int) fromState[0];
+        int tail = (int) fromState[1];
+        int first = n;
+        int last = -1;
+        for (int m = 0; m < move.size(); m++) {
+            int i = move.get(m);
+            if (data.get(i) != old.get(i)) {
+                first = Math.min(first, i);
+                last = Math.max(last, i);
+            }
+        }
+        // the leading ones can only change from the first
+        // changed position on, and the trailing zeros from
+        // the last changed position back
+        if (first <= head) {
+            head = head(data, first);
+        }
+        if (last >= n - 1 - tail) {
+            tail = tail(data, last);
+        }
+        state[0] = head;
+        state[1] = tail;
+        return value(n, head, tail);
+    }
+
+    /**
+     * Find the length of the leading ones given that
+     * every value before a position is one
+     * @param data the data
+     * @param i the position
+     * @return the length
+     */
+    private static int head(Vector data, int i) {
+        if (data instanceof BitVector) {
+            return ((BitVector) data).nextClearBit(i);
+        }
         while (i < data.size() && data.get(i) == 1) {
             i++;
         }
-        int head = i;
-        i = data.size() - 1;
+        return i;
+    }
+
+    /**
+     * Find the length of the trailing zeros given that
+     * every value after a position is zero
+     * @param data the data
+     * @param i the position
+     * @return the length
+     */
+    private static int tail(Vector data, int i) {
+        if (data instanceof BitVector) {
+            return data.size() - 1 - ((BitVector) data).previousSetBit(i);
+        }
         while (i >= 0 && data.get(i) == 0) {
             i--;
         }
-        int tail = data.size() - 1 - i;
+        return data.size() - 1 - i;
+    }
+
+    /**
+     * Find the value from the leading ones and trailing zeros
+     * @param n the length of the data
+     * @param head the length of the leading ones
+     * @param tail the length of the trailing zeros
+     * @return the value
+     */
+    private double value(int n, int head, int tail) {
         int r = 0;
         if (head > t && tail > t) {
-            r = data.size();
+            r = n;
         }
         return Math.max(tail, head) + r;
     }
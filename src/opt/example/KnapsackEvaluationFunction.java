@@ -1,7 +1,10 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import util.linalg.Vector;
-import opt.EvaluationFunction;
+import opt.IncrementalEvaluationFunction;
+import opt.NeighborMove;
 import shared.Instance;
 
 /**
@@ -9,7 +12,7 @@ import shared.Instance;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class KnapsackEvaluationFunction implements EvaluationFunction {
+public class KnapsackEvaluationFunction implements IncrementalEvaluationFunction {
     
     /**
      * The values for the things that can be put in the knapsack
@@ -48,32 +51,47 @@ public class KnapsackEvaluationFunction implements EvaluationFunction {
         for (int i = 0; i < weights.length; i++) {
             allItemsWeight += copiesPerElement[i] * weights[i];
         }
-        this.functionCallCount = 0;
     }
 
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * Find the value of the knapsack with the given items.
      */
     public double value(Instance d) {
-        functionCallCount++;
+        return value(d, new double[3]);
+    }
+
+    /**
+     * The state is the total weight and the total value of the items,
+     * and the number of updates made to them since they were last summed
+     * @see opt.IncrementalEvaluationFunction#getStateSize()
+     */
+    public int getStateSize() {
+        return 3;
+    }
+
+    /**
+     * @see opt.IncrementalEvaluationFunction#value(shared.Instance, double[])
+     */
+    public double value(Instance d, double[] state) {
+        functionCallCount.incrementAndGet();
         Vector entriesInKnapsack = d.getData();
         double weight = 0;
         double value = 0;
@@ -81,6 +99,48 @@ public class KnapsackEvaluationFunction implements EvaluationFunction {
             weight += weights[i] * entriesInKnapsack.get(i);
             value += values[i] * entriesInKnapsack.get(i);
         }
+        state[0] = weight;
+        state[1] = value;
+        state[2] = 0;
+        return value(weight, value);
+    }
+
+    /**
+     * The totals are summed again in full after as many
+     * updates as there are items, so rounding errors can't build up.
+     * @see opt.IncrementalEvaluationFunction#value(shared.Instance, shared.Instance, double[], opt.NeighborMove, double[])
+     */
+    public double value(Instance d, Instance from, double[] fromState,
+            NeighborMove move, double[] state) {
+        if (fromState[2] + 1 >= d.size()) {
+            return value(d, state);
+        }
+        functionCallCount.incrementAndGet();
+        Vector entriesInKnapsack = d.getData();
+        Vector old = from.getData();
+        double weight = fromState[0];
+        double value = fromState[1];
+        for (int m = 0; m < move.size(); m++) {
+            int i = move.get(m);
+            double change = entriesInKnapsack.get(i) - old.get(i);
+            if (change != 0) {
+                weight += weights[i] * change;
+                value += values[i] * change;
+            }
+        }
+        state[0] = weight;
+        state[1] = value;
+        state[2] = fromState[2] + 1;
+        return value(weight, value);
+    }
+
+    /**
+     * Find the value from the totals
+     * @param weight the total weight
+     * @param value the total value
+     * @return the value
+     */
+    private double value(double weight, double value) {
         if (weight < maxWeight) {
             return value;
         } else {
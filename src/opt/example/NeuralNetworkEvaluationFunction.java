@@ -1,5 +1,7 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import util.linalg.Vector;
 import func.nn.NeuralNetwork;
 import opt.EvaluationFunction;
@@ -25,6 +27,17 @@ public class NeuralNetworkEvaluationFunction implements EvaluationFunction {
      * The error measure
      */
     private ErrorMeasure measure;
+    /**
+     * The thread that made this function, which
+     * evaluates using the network itself
+     */
+    private Thread owner;
+    /**
+     * The copies of the network used by any other
+     * threads, so that parallel evaluations never
+     * share weights or activations
+     */
+    private ThreadLocal replicas;
     
     /**
      * Make a new neural network evaluation function
@@ -37,31 +50,40 @@ public class NeuralNetworkEvaluationFunction implements EvaluationFunction {
         this.network = network;
         this.examples = examples;
         this.measure = measure;
-        this.functionCallCount = 0;
+        this.owner = Thread.currentThread();
+        this.replicas = new ThreadLocal() {
+            protected Object initialValue() {
+                if (Thread.currentThread() == owner) {
+                    return NeuralNetworkEvaluationFunction.this.network;
+                }
+                return NeuralNetworkEvaluationFunction.this.network.copy();
+            }
+        };
     }
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.OptimizationProblem#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
+        NeuralNetwork network = (NeuralNetwork) replicas.get();
         // set the links
         Vector weights = d.getData();
         network.setWeights(weights);
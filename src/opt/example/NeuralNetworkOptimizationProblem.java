@@ -16,6 +16,7 @@ import shared.ErrorMeasure;
 import shared.Instance;
 
 import func.nn.NeuralNetwork;
+import func.nn.DenseNetwork;
 
 /**
  * A class for performing neural network optimzation
@@ -53,7 +54,11 @@ public class NeuralNetworkOptimizationProblem implements HillClimbingProblem, Ge
      */
     public NeuralNetworkOptimizationProblem(DataSet examples,
              NeuralNetwork network, ErrorMeasure measure) {
-        eval = new NeuralNetworkEvaluationFunction(network, examples, measure);
+        if (network instanceof DenseNetwork) {
+            eval = new BatchNeuralNetworkEvaluationFunction(network, examples, measure);
+        } else {
+            eval = new NeuralNetworkEvaluationFunction(network, examples, measure);
+        }
         crossover = new UniformCrossOver();
         neighbor = new ContinuousAddOneNeighbor();
         mutate = new ContinuousAddOneMutation();
@@ -1,16 +1,23 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import opt.IncrementalEvaluationFunction;
+import opt.NeighborMove;
 import shared.Instance;
 
 /**
  * An implementation of the traveling salesman problem
  * where the encoding used is a permutation of [0, ..., n]
  * where there are n+1 cities.  That is the encoding
- * is just the path to take.
+ * is just the path to take.  For incremental evaluation
+ * the state is the length of the route and the number of
+ * updates made to it since it was last measured in full.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanEvaluationFunction {
+public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanEvaluationFunction
+        implements IncrementalEvaluationFunction {
 
     /**
      * Make a new route evaluation function
@@ -18,38 +25,105 @@ public class TravelingSalesmanRouteEvaluationFunction extends TravelingSalesmanE
      */
     public TravelingSalesmanRouteEvaluationFunction(double[][] points) {
         super(points);
-        this.functionCallCount = 0;
     }
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        return value(d, new double[2]);
+    }
+
+    /**
+     * @see opt.IncrementalEvaluationFunction#getStateSize()
+     */
+    public int getStateSize() {
+        return 2;
+    }
+
+    /**
+     * @see opt.IncrementalEvaluationFunction#value(shared.Instance, double[])
+     */
+    public double value(Instance d, double[] state) {
+        functionCallCount.incrementAndGet();
         double distance = 0;
         for (int i = 0; i < d.size() - 1; i++) {
             distance += getDistance(d.getDiscrete(i), d.getDiscrete(i+1));
         }
         distance += getDistance(d.getDiscrete(d.size() - 1), d.getDiscrete(0));
+        state[0] = distance;
+        state[1] = 0;
         return 1/distance;
     }
 
+    /**
+     * Only the edges into and out of the changed
+     * positions are measured again, except that after
+     * as many updates as there are cities the whole route
+     * is measured, so rounding errors can't build up.
+     * @see opt.IncrementalEvaluationFunction#value(shared.Instance, shared.Instance, double[], opt.NeighborMove, double[])
+     */
+    public double value(Instance d, Instance from, double[] fromState,
+            NeighborMove move, double[] state) {
+        int n = d.size();
+        if (n < 3 || fromState[1] + 1 >= n) {
+            return value(d, state);
+        }
+        functionCallCount.incrementAndGet();
+        double distance = fromState[0];
+        for (int m = 0; m < move.size(); m++) {
+            int i = move.get(m);
+            // the edge into position i starts at i - 1,
+            // the edge out of it starts at i
+            for (int k = 0; k < 2; k++) {
+                int start = k == 0 ? (i + n - 1) % n : i;
+                if (!measured(move, m, start, n)) {
+                    int end = (start + 1) % n;
+                    distance += getDistance(d.getDiscrete(start), d.getDiscrete(end))
+                        - getDistance(from.getDiscrete(start), from.getDiscrete(end));
+                }
+            }
+        }
+        state[0] = distance;
+        state[1] = fromState[1] + 1;
+        return 1/distance;
+    }
+
+    /**
+     * Check whether an edge was already measured
+     * for an earlier position of a move
+     * @param move the move
+     * @param m the index of the current position in the move
+     * @param start the position the edge starts at
+     * @param n the number of cities
+     * @return true if it was
+     */
+    private static boolean measured(NeighborMove move, int m, int start, int n) {
+        for (int p = 0; p < m; p++) {
+            int i = move.get(p);
+            if (start == i || start == (i + n - 1) % n) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 
 }
@@ -1,5 +1,7 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import shared.Instance;
 import util.ABAGAILArrays;
 
@@ -18,32 +20,31 @@ public class TravelingSalesmanSortEvaluationFunction extends TravelingSalesmanEv
      */
     public TravelingSalesmanSortEvaluationFunction(double[][] points) {
         super(points);
-        this.functionCallCount = 0;
     }
 
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
         double[] ddata = new double[d.size()];
         for (int i = 0; i < ddata.length; i++) {
             ddata[i] = d.getContinuous(i);
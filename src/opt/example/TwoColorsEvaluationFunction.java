@@ -1,5 +1,7 @@
 package opt.example;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import util.linalg.Vector;
 import opt.EvaluationFunction;
 import shared.Instance;
@@ -12,10 +14,9 @@ import shared.Instance;
 public class TwoColorsEvaluationFunction implements EvaluationFunction {
 
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     public TwoColorsEvaluationFunction() {
-        this.functionCallCount = 0;
     }
 
     /**
@@ -23,21 +24,21 @@ public class TwoColorsEvaluationFunction implements EvaluationFunction {
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
         Vector data = d.getData();
         double val = 0;
         for (int i = 1; i < data.size() - 1; i++) {
@@ -0,0 +1,21 @@
+package opt.ga;
+
+/**
+ * A topology where each island sends
+ * its migrants to every other island
+ * @version 1.0
+ */
+public class FullyConnectedTopology implements MigrationTopology {
+
+    /**
+     * @see opt.ga.MigrationTopology#getDestinations(int, int)
+     */
+    public int[] getDestinations(int island, int islandCount) {
+        int[] destinations = new int[Math.max(0, islandCount - 1)];
+        for (int i = 0; i < destinations.length; i++) {
+            destinations[i] = i < island ? i : i + 1;
+        }
+        return destinations;
+    }
+
+}
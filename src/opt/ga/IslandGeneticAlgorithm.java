@@ -0,0 +1,220 @@
+package opt.ga;
+
+import java.util.concurrent.ForkJoinPool;
+
+import dist.Distribution;
+
+import opt.OptimizationAlgorithm;
+import shared.Instance;
+import util.ParallelRange;
+import util.PerThreadRandom;
+import util.RangeTask;
+
+/**
+ * An island model genetic algorithm.  Several populations, each
+ * run as a standard genetic algorithm, evolve side by side, and
+ * every few generations each island sends copies of its best
+ * individuals to its neighbors, where they replace the worst.
+ * The islands of a generation can be run at the same time on a
+ * fork join pool.  Each island draws its random numbers from a
+ * stream of its own that goes with it from thread to thread, so
+ * a run gives the same results with or without a pool, as long as
+ * the problem's functions are thread safe and use Distribution.random.
+ * @version 1.0
+ */
+public class IslandGeneticAlgorithm extends OptimizationAlgorithm {
+
+    /**
+     * The islands
+     */
+    private StandardGeneticAlgorithm[] islands;
+
+    /**
+     * The random number stream of each island
+     */
+    private transient PerThreadRandom.Stream[] streams;
+
+    /**
+     * Who sends migrants to whom
+     */
+    private MigrationTopology topology;
+
+    /**
+     * The number of generations between migrations
+     */
+    private int interval;
+
+    /**
+     * The number of individuals each island sends
+     */
+    private int migrants;
+
+    /**
+     * The number of generations so far
+     */
+    private int generation;
+
+    /**
+     * The pool to run the islands on,
+     * or null to run them on the calling thread
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Make a new island model genetic algorithm that runs its islands one after another
+     * @param islandCount the number of islands
+     * @param populationSize the size of each island's population
+     * @param toMate the number to mate on each island each iteration
+     * @param toMutate the number to mutate on each island each iteration
+     * @param gap the problem to solve
+     * @param topology who sends migrants to whom
+     * @param interval the number of generations between migrations
+     * @param migrants the number of individuals each island sends
+     */
+    public IslandGeneticAlgorithm(int islandCount, int populationSize, int toMate, int toMutate,
+            GeneticAlgorithmProblem gap, MigrationTopology topology, int interval, int migrants) {
+        this(islandCount, populationSize, toMate, toMutate, gap, topology, interval, migrants, null);
+    }
+
+    /**
+     * Make a new island model genetic algorithm
+     * @param islandCount the number of islands
+     * @param populationSize the size of each island's population
+     * @param toMate the number to mate on each island each iteration
+     * @param toMutate the number to mutate on each island each iteration
+     * @param gap the problem to solve
+     * @param topology who sends migrants to whom
+     * @param interval the number of generations between migrations
+     * @param migrants the number of individuals each island sends
+     * @param pool the pool to run the islands on, or null
+     */
+    public IslandGeneticAlgorithm(int islandCount, int populationSize, int toMate, int toMutate,
+            GeneticAlgorithmProblem gap, MigrationTopology topology, int interval, int migrants,
+            ForkJoinPool pool) {
+        super(gap);
+        if (islandCount < 1) {
+            throw new IllegalArgumentException("there must be at least one island");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("the migration interval must be positive");
+        }
+        if (migrants < 0 || migrants > populationSize) {
+            throw new IllegalArgumentException("cannot send " + migrants
+                + " migrants from a population of " + populationSize);
+        }
+        this.topology = topology;
+        this.interval = interval;
+        this.migrants = migrants;
+        this.pool = pool;
+        makeStreams(islandCount);
+        islands = new StandardGeneticAlgorithm[islandCount];
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        for (int i = 0; i < islandCount; i++) {
+            PerThreadRandom.Stream previous = random.setStream(streams[i]);
+            try {
+                islands[i] = new StandardGeneticAlgorithm(populationSize, toMate, toMutate, gap);
+            } finally {
+                random.setStream(previous);
+            }
+        }
+    }
+
+    /**
+     * Set the pool to run the islands on
+     * @param pool the pool, or null to run them on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Seed a stream for each island from the calling thread's stream
+     * @param islandCount the number of islands
+     */
+    private void makeStreams(int islandCount) {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        streams = new PerThreadRandom.Stream[islandCount];
+        for (int i = 0; i < islandCount; i++) {
+            streams[i] = random.newStream(random.nextLong());
+        }
+    }
+
+    /**
+     * Run one generation on every island, then migrate
+     * if it is time to.  Returns the mean over the islands
+     * of their mean values.
+     * @see shared.Trainer#train()
+     */
+    public double train() {
+        if (streams == null) {
+            // streams are not serialized
+            makeStreams(islands.length);
+        }
+        Object[] results = ParallelRange.run(pool, islands.length, 1, new RangeTask() {
+            public Object run(int island, int next) {
+                return Double.valueOf(train(island));
+            }
+        });
+        generation++;
+        if (migrants > 0 && generation % interval == 0) {
+            migrate();
+        }
+        double sum = 0;
+        for (int i = 0; i < results.length; i++) {
+            sum += ((Double) results[i]).doubleValue();
+        }
+        return sum / results.length;
+    }
+
+    /**
+     * Run one generation on an island with its own random numbers
+     * @param island the island
+     * @return the result of the generation
+     */
+    private double train(int island) {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        PerThreadRandom.Stream previous = random.setStream(streams[island]);
+        try {
+            return islands[island].train();
+        } finally {
+            random.setStream(previous);
+        }
+    }
+
+    /**
+     * Send copies of the best individuals of each island to its
+     * destinations.  All migrants are picked before any arrive,
+     * and they arrive in island order.
+     */
+    private void migrate() {
+        Instance[][] emigrants = new Instance[islands.length][];
+        double[][] values = new double[islands.length][migrants];
+        for (int i = 0; i < islands.length; i++) {
+            emigrants[i] = islands[i].getBest(migrants, values[i]);
+        }
+        for (int i = 0; i < islands.length; i++) {
+            int[] destinations = topology.getDestinations(i, islands.length);
+            for (int j = 0; j < destinations.length; j++) {
+                islands[destinations[j]].replaceWorst(emigrants[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * @see opt.OptimizationAlgorithm#getOptimal()
+     */
+    public Instance getOptimal() {
+        Instance best = null;
+        double bestVal = 0;
+        double[] value = new double[1];
+        for (int i = 0; i < islands.length; i++) {
+            Instance candidate = islands[i].getBest(1, value)[0];
+            if (best == null || value[0] > bestVal) {
+                best = candidate;
+                bestVal = value[0];
+            }
+        }
+        return best;
+    }
+
+}
@@ -1,6 +1,7 @@
 package opt.ga;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 import util.linalg.Vector;
 import opt.EvaluationFunction;
@@ -22,38 +23,35 @@ public class MaxKColorFitnessFunction implements EvaluationFunction {
     public MaxKColorFitnessFunction(Vertex[] vertices) {
         this.vertices = vertices;
         this.graphSize = vertices.length;
-        this.functionCallCount = 0;
     }
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
-    private boolean conflict = false;
-
     /**
      * @see opt.EvaluationFunction#value(opt.OptimizationData)
      * Find how many iterations does it take to find if k-colors can be or can not be assigned to a given graph.
+     * Nothing is remembered between calls, so this can be called from several threads at once.
      */
     public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
         Vector data = d.getData();
         int n = data.size();
         double iterations = 0;
-        conflict = false;
         //System.out.println("Sample color " + d.toString());
         for (int i = 0; i < n-1; i++) {
             int sampleColor = ((int) data.get(i));
@@ -63,7 +61,6 @@ public class MaxKColorFitnessFunction implements EvaluationFunction {
              // System.out.println(Arrays.toString(vertex.getAadjacencyColorMatrix().toArray()));
               if(vertex.getAadjacencyColorMatrix().contains(sampleColor)) {
             	  // if any of the adjacent vertices contains the color, the color can't be assigned to this vertex
-            	  conflict = true;
             	  break;
               }
               //System.out.println("---------");
@@ -72,8 +69,20 @@ public class MaxKColorFitnessFunction implements EvaluationFunction {
         return iterations;
     }
 
-    
-    public String foundConflict(){
+    /**
+     * Describe whether a coloring has a conflict
+     * @param d the coloring
+     * @return whether a max k coloring was found
+     */
+    public String foundConflict(Instance d){
+        Vector data = d.getData();
+        boolean conflict = false;
+        for (int i = 0; i < data.size() - 1 && !conflict; i++) {
+            int sampleColor = ((int) data.get(i));
+            for (int j = 0; j < graphSize && !conflict; j++) {
+                conflict = vertices[j].getAadjacencyColorMatrix().contains(sampleColor);
+            }
+        }
     	return conflict ? "Failed to find Max-K Color combination !" : "Found Max-K Color Combination !";
     }
 }
@@ -0,0 +1,18 @@
+package opt.ga;
+
+/**
+ * An interface for the ways islands of an
+ * island model send migrants to each other
+ * @version 1.0
+ */
+public interface MigrationTopology {
+
+    /**
+     * Get the islands an island sends its migrants to
+     * @param island the island sending
+     * @param islandCount the number of islands
+     * @return the islands receiving
+     */
+    public int[] getDestinations(int island, int islandCount);
+
+}
@@ -3,6 +3,7 @@
  */
 package opt.ga;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.List;
 
 import opt.EvaluationFunction;
@@ -12,38 +13,35 @@ public class NQueensFitnessFunction implements EvaluationFunction {
 
 	public NQueensFitnessFunction() {
 		// TODO Auto-generated constructor stub
-        this.functionCallCount = 0;
 	}
 
-    private long functionCallCount;
+    private final AtomicLong functionCallCount = new AtomicLong();
 
     /**
      * @see opt.EvaluationFunction#getFunctionCallCount()
      */
     public long getFunctionCallCount()
     {
-        return functionCallCount;
+        return functionCallCount.get();
     }
     /**
      * @see opt.EvaluationFunction#setFunctionCallCount(opt.value)
      */
     public void setFunctionCallCount(long value)
     {
-        functionCallCount = value;
+        functionCallCount.set(value);
     }
 
-	private NQueensBoardGame currentBoard;
-
 	/**
 	 * the number of moves the above algorithm takes to 
-	 * find the first solution
+	 * find the first solution.  The board is local to the call,
+	 * so threads evaluating at once don't see each other's boards.
 	 */
 	public double value(Instance d) {
-        functionCallCount++;
+        functionCallCount.incrementAndGet();
 		double fitness = 0;
 
 		NQueensBoardGame board = getBoardForGivenInstance(d);
-		currentBoard = board;
 		int boardSize = board.getSize();
 
 		// Calculate the number of non-attacking pairs of queens 
@@ -102,8 +100,13 @@ public class NQueensFitnessFunction implements EvaluationFunction {
 		return board;
 	}
 	
-	public String boardPositions(){
+	/**
+	 * Draw the board for an instance
+	 * @param d the instance
+	 * @return the board
+	 */
+	public String boardPositions(Instance d){
 		
-		return currentBoard.toString();
+		return getBoardForGivenInstance(d).toString();
 	}
 }
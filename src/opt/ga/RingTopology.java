@@ -0,0 +1,20 @@
+package opt.ga;
+
+/**
+ * A topology where each island sends
+ * its migrants to the next island
+ * @version 1.0
+ */
+public class RingTopology implements MigrationTopology {
+
+    /**
+     * @see opt.ga.MigrationTopology#getDestinations(int, int)
+     */
+    public int[] getDestinations(int island, int islandCount) {
+        if (islandCount < 2) {
+            return new int[0];
+        }
+        return new int[] { (island + 1) % islandCount };
+    }
+
+}
@@ -3,6 +3,8 @@ package opt.ga;
 import dist.Distribution;
 
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.Vector;
 
 /**
  * Implementation of the single point crossover function for genetic algorithms.
@@ -22,19 +24,39 @@ public class SingleCrossOver implements CrossoverFunction {
      * @return the mated solution
      */
     public Instance mate(Instance a, Instance b) {
-        // Create space for the mated solution
-        double[] newData = new double[a.size()];
-
         // Randomly assign the dividing point
-        int point = Distribution.random.nextInt(newData.length + 1);
+        int point = Distribution.random.nextInt(a.size() + 1);
 
-        // Assign the bits for the mated solution
-        for (int i = 0; i < newData.length; i++) {
-            if (i >= point) {
-                newData[i] = a.getContinuous(i);
-            } else {
-                newData[i] = b.getContinuous(i);
+        if (a.getData() instanceof BitVector && b.getData() instanceof BitVector) {
+            // Take whole words from one parent or the other,
+            // and mask the one word the point falls inside
+            BitVector aBits = (BitVector) a.getData();
+            BitVector bBits = (BitVector) b.getData();
+            long[] aWords = aBits.getWords();
+            long[] bWords = bBits.getWords();
+            int aOffset = aBits.getOffset();
+            int bOffset = bBits.getOffset();
+            long[] newWords = new long[aBits.getWordCount()];
+            for (int i = 0; i < newWords.length; i++) {
+                int start = i << 6;
+                if (start + 64 <= point) {
+                    newWords[i] = bWords[bOffset + i];
+                } else if (start >= point) {
+                    newWords[i] = aWords[aOffset + i];
+                } else {
+                    long mask = (1L << (point - start)) - 1;
+                    newWords[i] = (bWords[bOffset + i] & mask) | (aWords[aOffset + i] & ~mask);
+                }
             }
+            return new Instance(new BitVector(newWords, a.size()));
+        }
+
+        // Start from the first solution, so the mated solution is stored the same way
+        Vector newData = (Vector) a.getData().copy();
+
+        // Assign the bits for the mated solution
+        for (int i = 0; i < point; i++) {
+            newData.set(i, b.getContinuous(i));
         }
 
         // Return the mated solution
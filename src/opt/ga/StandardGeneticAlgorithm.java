@@ -1,26 +1,27 @@
 package opt.ga;
 
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
-import dist.DiscreteDistribution;
+import dist.Distribution;
 
+import opt.EvaluationTask;
 import opt.OptimizationAlgorithm;
+import opt.Population;
 import shared.Instance;
+import util.ABAGAILArrays;
 
 
 /**
  * Genetic algorithms are pretty stupid.
  * This is based on the version in Andrew Moore's tutorial.
+ * The population lives in two preallocated blocks that are
+ * swapped each generation, so apart from what the crossover
+ * function returns a generation allocates nothing.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
     
-    /**
-     * The random number generator
-     */
-    private static final Random random = new Random();
-    
     /**
      * The population size
      */
@@ -39,14 +40,35 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
     private int toMutate;
     
     /**
-     * The population
+     * The population and its values
      */
-    private Instance[] population;
+    private Population population;
     
     /**
-     * The values of the population
+     * The population being made for the next generation
      */
-    private double[] values;
+    private Population next;
+    
+    /**
+     * The selection probabilities of the population
+     */
+    private double[] probabilities;
+    
+    /**
+     * The cumulative selection probabilities
+     */
+    private double[] cumulatives;
+    
+    /**
+     * The indices of the individuals to evaluate
+     */
+    private int[] indices;
+    
+    /**
+     * The pool used to evaluate the population,
+     * or null to evaluate on the calling thread
+     */
+    private transient ForkJoinPool pool;
     
     /**
      * Make a new genetic algorithm
@@ -56,18 +78,50 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
      * @param gap the problem to solve
      */
     public StandardGeneticAlgorithm(int populationSize, int toMate, int toMutate, GeneticAlgorithmProblem gap) {
+        this(populationSize, toMate, toMutate, gap, null);
+    }
+    
+    /**
+     * Make a new genetic algorithm that evaluates its population
+     * in parallel.  All random choices are still made on the calling
+     * thread so a run is reproducible as long as the problem's
+     * value function is thread safe.
+     * @param populationSize the size
+     * @param toMate the number to mate each iteration
+     * @param toMutate the number to mutate each iteration
+     * @param gap the problem to solve
+     * @param pool the pool to evaluate on, or null for serial evaluation
+     */
+    public StandardGeneticAlgorithm(int populationSize, int toMate, int toMutate, GeneticAlgorithmProblem gap,
+            ForkJoinPool pool) {
         super(gap);
         this.toMate = toMate;
         this.toMutate = toMutate;
         this.populationSize = populationSize;
-        population = new Instance[populationSize];
-        for (int i = 0; i < population.length; i++) {
-            population[i] = gap.random();
+        this.pool = pool;
+        Instance first = gap.random();
+        population = new Population(populationSize, first);
+        next = new Population(populationSize, first);
+        population.set(0, first);
+        for (int i = 1; i < populationSize; i++) {
+            population.set(i, gap.random());
         }
-        values = new double[populationSize];
-        for (int i = 0; i < values.length; i++) {
-            values[i] = gap.value(population[i]);
+        probabilities = new double[populationSize];
+        cumulatives = new double[populationSize];
+        indices = new int[populationSize];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
         }
+        EvaluationTask.evaluate(pool, gap, population.getInstances(), indices,
+            indices.length, population.getValues());
+    }
+    
+    /**
+     * Set the pool used to evaluate the population
+     * @param pool the pool, or null for serial evaluation
+     */
+    public void setEvaluationPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     /**
@@ -75,7 +129,7 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
      */
     public double train() {
         GeneticAlgorithmProblem ga = (GeneticAlgorithmProblem) getOptimizationProblem();
-        double[] probabilities = new double[population.length];
+        double[] values = population.getValues();
         // calculate probability distribution over the population
         double sum = 0;
         for (int i = 0; i < probabilities.length; i++) {
@@ -88,58 +142,125 @@ public class StandardGeneticAlgorithm extends OptimizationAlgorithm {
         for (int i = 0; i < probabilities.length; i++) {
             probabilities[i] /= sum;
         }
-        DiscreteDistribution dd = new DiscreteDistribution(probabilities);
+        cumulatives[0] = probabilities[0];
+        for (int i = 1; i < cumulatives.length; i++) {
+            cumulatives[i] = cumulatives[i-1] + probabilities[i];
+        }
   
         // make the children
-        double[] newValues = new double[populationSize];
-        Instance[] newPopulation = new Instance[populationSize];
+        double[] newValues = next.getValues();
         for (int i = 0; i < toMate; i++) {
             // pick the mates
-            Instance a = population[dd.sample(null).getDiscrete()];
-            Instance b = population[dd.sample(null).getDiscrete()];
+            Instance a = population.get(select());
+            Instance b = population.get(select());
             // make the kid
-            newPopulation[i] = ga.mate(a, b);
+            next.set(i, ga.mate(a, b));
             newValues[i] = -1;
         }
         // elite for the rest
-        for (int i = toMate; i < newPopulation.length; i++) {
-            int j = dd.sample(null).getDiscrete();
-            newPopulation[i] = (Instance) population[j].copy();
-            newValues[i] = values[j];
+        for (int i = toMate; i < populationSize; i++) {
+            next.copy(i, population, select());
         }
         // mutate
         for (int i = 0; i < toMutate; i++) {
-        	int j = random.nextInt(newPopulation.length);
-            ga.mutate(newPopulation[j]);
+        	int j = Distribution.random.nextInt(populationSize);
+            ga.mutate(next.get(j));
             newValues[j] = -1;
         }
         // calculate the new values
+        int count = 0;
         for (int i = 0; i < newValues.length; i++) {
             if (newValues[i] == -1) {
-                newValues[i] = ga.value(newPopulation[i]);
+                indices[count++] = i;
             }
         }
+        EvaluationTask.evaluate(pool, ga, next.getInstances(), indices, count, newValues);
         // the new generation
-        population = newPopulation;
-        values = newValues;
+        Population temp = population;
+        population = next;
+        next = temp;
         return sum / populationSize;
     }
 
+    /**
+     * Pick an individual with probability in proportion to its value
+     * @return the index of the individual
+     */
+    private int select() {
+        return ABAGAILArrays.search(cumulatives, Distribution.random.nextDouble());
+    }
+
+    /**
+     * Copy out the best individuals of the population
+     * @param count the number of individuals to copy
+     * @param bestValues filled with the values of the individuals
+     * @return copies of the individuals, best first
+     */
+    public Instance[] getBest(int count, double[] bestValues) {
+        int[] best = rank(count, true);
+        Instance[] result = new Instance[count];
+        double[] values = population.getValues();
+        for (int i = 0; i < count; i++) {
+            result[i] = (Instance) population.get(best[i]).copy();
+            bestValues[i] = values[best[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Replace the worst individuals of the population
+     * with others whose values are already known
+     * @param individuals the individuals to put in
+     * @param newValues the values of the individuals
+     */
+    public void replaceWorst(Instance[] individuals, double[] newValues) {
+        int[] worst = rank(individuals.length, false);
+        for (int i = 0; i < worst.length; i++) {
+            population.set(worst[i], individuals[i]);
+            population.getValues()[worst[i]] = newValues[i];
+        }
+    }
+
+    /**
+     * Find the best or worst individuals, earlier ones first among equals
+     * @param count the number of individuals to find
+     * @param best true for the best, false for the worst
+     * @return the indices of the individuals, best or worst first
+     */
+    private int[] rank(int count, boolean best) {
+        double[] values = population.getValues();
+        boolean[] taken = new boolean[values.length];
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            int pick = -1;
+            for (int j = 0; j < values.length; j++) {
+                if (!taken[j] && (pick == -1
+                        || (best ? values[j] > values[pick] : values[j] < values[pick]))) {
+                    pick = j;
+                }
+            }
+            taken[pick] = true;
+            result[i] = pick;
+        }
+        return result;
+    }
+
     /**
      * @see opt.OptimizationAlgorithm#getOptimalData()
      */
     public Instance getOptimal() {
-        GeneticAlgorithmProblem ga = (GeneticAlgorithmProblem) getOptimizationProblem();
+        double[] values = population.getValues();
         double bestVal = values[0];
         int best = 0;
-        for (int i = 1; i < population.length; i++) {
+        for (int i = 1; i < values.length; i++) {
             double value = values[i];
             if (value > bestVal) {
                 bestVal = value;
                 best = i;
             }
         }
-        return population[best];
+        // a copy, since the row is reused by later generations
+        return (Instance) population.get(best).copy();
     }
 
 }
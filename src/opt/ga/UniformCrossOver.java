@@ -1,6 +1,8 @@
 package opt.ga;
 
 import shared.Instance;
+import util.linalg.BitVector;
+import util.linalg.Vector;
 
 import dist.Distribution;
 
@@ -21,16 +23,30 @@ public class UniformCrossOver implements CrossoverFunction {
      * @return the mated solution.
      */
     public Instance mate(Instance a, Instance b) {
-        // Create space for the mated solution
-        double[] newData = new double[a.size()];
+        if (a.getData() instanceof BitVector && b.getData() instanceof BitVector) {
+            // Mate a whole word at a time, with a random mask picking the parent of each bit
+            BitVector aBits = (BitVector) a.getData();
+            BitVector bBits = (BitVector) b.getData();
+            long[] aWords = aBits.getWords();
+            long[] bWords = bBits.getWords();
+            int aOffset = aBits.getOffset();
+            int bOffset = bBits.getOffset();
+            long[] newWords = new long[aBits.getWordCount()];
+            for (int i = 0; i < newWords.length; i++) {
+                long mask = Distribution.random.nextLong();
+                newWords[i] = (aWords[aOffset + i] & mask) | (bWords[bOffset + i] & ~mask);
+            }
+            return new Instance(new BitVector(newWords, a.size()));
+        }
+
+        // Start from the first solution, so the mated solution is stored the same way
+        Vector newData = (Vector) a.getData().copy();
 
         // Assign bits to the mated solution
-        for (int i = 0; i < newData.length; i++) {
+        for (int i = 0; i < newData.size(); i++) {
             // Randomly pick a boolean value to determine which parent to take the ith bit from
-            if (Distribution.random.nextBoolean()) {
-                newData[i] = a.getContinuous(i);
-            } else {
-                newData[i] = b.getContinuous(i);
+            if (!Distribution.random.nextBoolean()) {
+                newData.set(i, b.getContinuous(i));
             }
         }
 
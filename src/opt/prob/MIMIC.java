@@ -1,22 +1,44 @@
 package opt.prob;
 
 
+import java.util.concurrent.ForkJoinPool;
+
+import dist.DiscreteDependencyTree;
 import dist.Distribution;
 import opt.OptimizationAlgorithm;
 import opt.OptimizationProblem;
+import opt.Population;
 import shared.DataSet;
 import shared.Instance;
 import util.ABAGAILArrays;
+import util.ParallelRange;
+import util.PerThreadRandom;
+import util.RangeTask;
 
 /**
  * Based on the MIMIC algorithm
  * J. S. De Bonet, C. L. Isbell, and P. Viola (1997). 
  * MIMIC: Finding Optima by Estimating Probability Densities, 
  * Advances in Neural Information Processing Systems, Vol. 9 .
+ * The samples of each iteration are written into one preallocated
+ * block, so the distribution is handed views of rows that are
+ * written over by the next iteration and must not keep them.
+ * A dependency tree samples straight into the rows.
+ * Given a pool, the samples are drawn and scored in fixed chunks
+ * at the same time, each chunk with its own random number stream,
+ * so the distribution's sampling and the problem's evaluation
+ * must be thread safe.  A run on a pool gives the same results
+ * however the chunks are scheduled, but not the same as a run
+ * without one.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
 public class MIMIC extends OptimizationAlgorithm {
+    /**
+     * The number of samples in a chunk
+     */
+    private static final int CHUNK = 32;
+
     /**
      * The current distribution
      */
@@ -32,6 +54,31 @@ public class MIMIC extends OptimizationAlgorithm {
      */
     private int tokeep;
 
+    /**
+     * The samples of the current iteration and their values
+     */
+    private Population population;
+
+    /**
+     * The heap the cutoff is selected with
+     */
+    private double[] heap;
+
+    /**
+     * The samples kept
+     */
+    private Instance[] kept;
+
+    /**
+     * The random number stream of each chunk
+     */
+    private transient PerThreadRandom.Stream[] streams;
+
+    /**
+     * The pool to sample on, or null to sample on the calling thread
+     */
+    private transient ForkJoinPool pool;
+
     /**
      * Make a new mimic
      * @param samples the number of samples to take each iteration
@@ -42,15 +89,40 @@ public class MIMIC extends OptimizationAlgorithm {
      * @param op the problem
      */
     public MIMIC(int samples, int tokeep, ProbabilisticOptimizationProblem op) {
+        this(samples, tokeep, op, null);
+    }
+
+    /**
+     * Make a new mimic that samples in parallel
+     * @param samples the number of samples to take each iteration
+     * @param tokeep the number of samples to estimate from
+     * @param op the problem
+     * @param pool the pool to sample on, or null
+     */
+    public MIMIC(int samples, int tokeep, ProbabilisticOptimizationProblem op,
+            ForkJoinPool pool) {
         super(op);
+        this.pool = pool;
         this.tokeep = tokeep;
         this.samples = samples;
-        Instance[] data = new Instance[samples];
-        for (int i = 0; i < data.length; i++) {
-            data[i] = op.random();
+        Instance first = op.random();
+        population = new Population(samples, first);
+        population.set(0, first);
+        for (int i = 1; i < samples; i++) {
+            population.set(i, op.random());
         }
+        heap = new double[Math.min(tokeep + 1, samples)];
+        kept = new Instance[tokeep];
         distribution = op.getDistribution();
-        distribution.estimate(new DataSet(data));
+        distribution.estimate(new DataSet(population.getInstances()));
+    }
+
+    /**
+     * Set the pool to sample on
+     * @param pool the pool, or null to sample on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     /**
@@ -79,19 +151,23 @@ public class MIMIC extends OptimizationAlgorithm {
      */
     public double train() {
         ProbabilisticOptimizationProblem op = (ProbabilisticOptimizationProblem) getOptimizationProblem();
-        Instance[] data = new Instance[samples];
-        for (int i = 0; i < data.length; i++) {
-            data[i] = distribution.sample(null);
-        } 
-        double[] values = new double[data.length];
-        for (int i = 0; i < data.length; i++) {
-            values[i] = op.value(data[i]);
+        Instance[] data = population.getInstances();
+        double[] values = population.getValues();
+        if (pool == null) {
+            int[] discrete = buffer();
+            for (int i = 0; i < data.length; i++) {
+                sample(i, discrete);
+            } 
+            for (int i = 0; i < data.length; i++) {
+                values[i] = op.value(data[i]);
+            }
+        } else {
+            sampleChunks(op);
         }
-        double[] temp = new double[values.length];
-        System.arraycopy(values, 0, temp, 0, temp.length);
-        double cutoff = ABAGAILArrays.randomizedSelect(temp, temp.length - tokeep);
+        // the cutoff is the largest value not among the tokeep best
+        double cutoff = ABAGAILArrays.selectLargest(values, values.length,
+            heap.length, heap);
         int j = 0;
-        Instance[] kept = new Instance[tokeep];
         for (int i = 0; i < data.length && j < kept.length; i++) {
             if (values[i] >= cutoff) {
                 kept[j] = data[i];
@@ -102,4 +178,73 @@ public class MIMIC extends OptimizationAlgorithm {
         return cutoff;
     }
 
+    /**
+     * Draw and score the samples in chunks on the pool
+     * @param op the problem
+     */
+    private void sampleChunks(final OptimizationProblem op) {
+        int chunkCount = (samples + CHUNK - 1) / CHUNK;
+        if (streams == null) {
+            // streams are not serialized
+            PerThreadRandom random = (PerThreadRandom) Distribution.random;
+            streams = new PerThreadRandom.Stream[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                streams[c] = random.newStream(random.nextLong());
+            }
+        }
+        ParallelRange.run(pool, samples, CHUNK, new RangeTask() {
+            public Object run(int start, int end) {
+                sampleChunk(op, start / CHUNK);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Make a buffer for samples from a dependency tree
+     * @return the buffer, or null if the distribution is not a tree
+     */
+    private int[] buffer() {
+        if (distribution instanceof DiscreteDependencyTree) {
+            return new int[population.get(0).size()];
+        }
+        return null;
+    }
+
+    /**
+     * Draw a sample into a row of the population
+     * @param i the row
+     * @param discrete the buffer to sample a tree into, or null
+     */
+    private void sample(int i, int[] discrete) {
+        if (discrete != null) {
+            ((DiscreteDependencyTree) distribution).generateRandom(discrete);
+            population.set(i, discrete);
+        } else {
+            population.set(i, distribution.sample(null));
+        }
+    }
+
+    /**
+     * Draw and score the samples of one chunk with its own random numbers
+     * @param op the problem
+     * @param chunk the chunk
+     */
+    private void sampleChunk(OptimizationProblem op, int chunk) {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        PerThreadRandom.Stream previous = random.setStream(streams[chunk]);
+        try {
+            Instance[] data = population.getInstances();
+            double[] values = population.getValues();
+            int[] discrete = buffer();
+            int end = Math.min(samples, (chunk + 1) * CHUNK);
+            for (int i = chunk * CHUNK; i < end; i++) {
+                sample(i, discrete);
+                values[i] = op.value(data[i]);
+            }
+        } finally {
+            random.setStream(previous);
+        }
+    }
+
 }
@@ -7,10 +7,8 @@ import dist.DiscreteUniformDistribution;
 import dist.Distribution;
 
 import opt.DiscreteChangeOneNeighbor;
-import opt.EvaluationFunction;
-import opt.GenericHillClimbingProblem;
+import opt.GenericIncrementalHillClimbingProblem;
 import opt.HillClimbingProblem;
-import opt.NeighborFunction;
 import opt.RandomizedHillClimbing;
 import opt.SimulatedAnnealing;
 import opt.example.*;
@@ -39,13 +37,13 @@ public class FourPeaksTest {
     public static void main(String[] args) {
         int[] ranges = new int[N];
         Arrays.fill(ranges, 2);
-        EvaluationFunction ef = new FourPeaksEvaluationFunction(T);
+        FourPeaksEvaluationFunction ef = new FourPeaksEvaluationFunction(T);
         Distribution odd = new DiscreteUniformDistribution(ranges);
-        NeighborFunction nf = new DiscreteChangeOneNeighbor(ranges);
+        DiscreteChangeOneNeighbor nf = new DiscreteChangeOneNeighbor(ranges);
         MutationFunction mf = new DiscreteChangeOneMutation(ranges);
         CrossoverFunction cf = new SingleCrossOver();
         Distribution df = new DiscreteDependencyTree(.1, ranges); 
-        HillClimbingProblem hcp = new GenericHillClimbingProblem(ef, odd, nf);
+        HillClimbingProblem hcp = new GenericIncrementalHillClimbingProblem(ef, odd, nf);
         GeneticAlgorithmProblem gap = new GenericGeneticAlgorithmProblem(ef, odd, mf, cf);
         ProbabilisticOptimizationProblem pop = new GenericProbabilisticOptimizationProblem(ef, odd, df);
         
@@ -0,0 +1,92 @@
+package opt.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import dist.DiscretePermutationDistribution;
+import dist.DiscreteUniformDistribution;
+import dist.Distribution;
+import opt.DiscreteChangeOneNeighbor;
+import opt.IncrementalEvaluationFunction;
+import opt.IncrementalNeighborFunction;
+import opt.NeighborMove;
+import opt.SwapNeighbor;
+import opt.example.KnapsackEvaluationFunction;
+import opt.example.TravelingSalesmanRouteEvaluationFunction;
+import shared.Instance;
+
+/**
+ * Walks through long chains of neighbors of the traveling salesman
+ * and knapsack problems, checking that every incrementally
+ * evaluated neighbor has the same value as a full evaluation
+ * @version 1.0
+ */
+public class IncrementalEvaluationTest {
+    /** The number of moves to make */
+    private static final int MOVES = 100000;
+    /** How far the incremental values may drift */
+    private static final double TOLERANCE = 1E-9;
+
+    /**
+     * The test main
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        Distribution.random.setSeed(0);
+
+        int n = 50;
+        double[][] points = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            points[i][0] = random.nextDouble();
+            points[i][1] = random.nextDouble();
+        }
+        check("Traveling salesman",
+            new TravelingSalesmanRouteEvaluationFunction(points),
+            new SwapNeighbor(), new DiscretePermutationDistribution(n));
+
+        int items = 40;
+        int[] copies = new int[items];
+        Arrays.fill(copies, 4);
+        double[] values = new double[items];
+        double[] weights = new double[items];
+        for (int i = 0; i < items; i++) {
+            values[i] = random.nextDouble() * 50;
+            weights[i] = random.nextDouble() * 50;
+        }
+        int[] ranges = new int[items];
+        Arrays.fill(ranges, 5);
+        check("Knapsack",
+            new KnapsackEvaluationFunction(values, weights, 50 * items * 4 * .4, copies),
+            new DiscreteChangeOneNeighbor(ranges), new DiscreteUniformDistribution(ranges));
+    }
+
+    /**
+     * Take every neighbor in turn from a random start, comparing the
+     * incremental value of each against a full evaluation
+     * @param name the name of the problem
+     * @param ef the evaluation function
+     * @param nf the neighbor function
+     * @param start the distribution to start from
+     */
+    private static void check(String name, IncrementalEvaluationFunction ef,
+            IncrementalNeighborFunction nf, Distribution start) {
+        NeighborMove move = new NeighborMove();
+        double[] curState = new double[ef.getStateSize()];
+        double[] neighState = new double[ef.getStateSize()];
+        Instance cur = start.sample(null);
+        double error = Math.abs(ef.value(cur, curState) - ef.value(cur));
+        for (int i = 0; i < MOVES; i++) {
+            Instance neigh = nf.neighbor(cur, move);
+            double incremental = ef.value(neigh, cur, curState, move, neighState);
+            error = Math.max(error, Math.abs(incremental - ef.value(neigh)));
+            cur = neigh;
+            double[] temp = curState;
+            curState = neighState;
+            neighState = temp;
+        }
+        System.out.println(name + ": largest difference " + error
+            + " over " + MOVES + " moves, matches full evaluation: "
+            + (error < TOLERANCE));
+    }
+}
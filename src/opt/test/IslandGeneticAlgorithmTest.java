@@ -0,0 +1,78 @@
+package opt.test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import dist.DiscreteUniformDistribution;
+import dist.Distribution;
+
+import opt.EvaluationFunction;
+import opt.example.*;
+import opt.ga.CrossoverFunction;
+import opt.ga.DiscreteChangeOneMutation;
+import opt.ga.GenericGeneticAlgorithmProblem;
+import opt.ga.GeneticAlgorithmProblem;
+import opt.ga.IslandGeneticAlgorithm;
+import opt.ga.MutationFunction;
+import opt.ga.RingTopology;
+import opt.ga.SingleCrossOver;
+import shared.FixedIterationTrainer;
+import shared.Instance;
+
+/**
+ * Runs the island genetic algorithm on the four peaks problem
+ * from a fixed seed, twice on the calling thread and once on
+ * a pool, checking that every run finds the same optimum
+ * @version 1.0
+ */
+public class IslandGeneticAlgorithmTest {
+    /** The n value */
+    private static final int N = 50;
+    /** The t value */
+    private static final int T = N / 10;
+    /** The seed */
+    private static final long SEED = 0;
+
+    /**
+     * The test main
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        int[] ranges = new int[N];
+        Arrays.fill(ranges, 2);
+        EvaluationFunction ef = new FourPeaksEvaluationFunction(T);
+        Distribution odd = new DiscreteUniformDistribution(ranges);
+        MutationFunction mf = new DiscreteChangeOneMutation(ranges);
+        CrossoverFunction cf = new SingleCrossOver();
+        GeneticAlgorithmProblem gap = new GenericGeneticAlgorithmProblem(ef, odd, mf, cf);
+
+        ForkJoinPool pool = new ForkJoinPool();
+        Instance first = run(gap, null);
+        Instance second = run(gap, null);
+        Instance pooled = run(gap, pool);
+        pool.shutdown();
+
+        double optimum = 2 * N - T - 1;
+        System.out.println("Best value found: " + ef.value(first)
+            + " of " + optimum);
+        System.out.println("Reached the optimum: " + (ef.value(first) == optimum));
+        System.out.println("Same result from the same seed: "
+            + first.getData().equals(second.getData()));
+        System.out.println("Same result on a pool: "
+            + first.getData().equals(pooled.getData()));
+    }
+
+    /**
+     * Run the island genetic algorithm from the seed
+     * @param gap the problem
+     * @param pool the pool, or null
+     * @return the best individual found
+     */
+    private static Instance run(GeneticAlgorithmProblem gap, ForkJoinPool pool) {
+        Distribution.random.setSeed(SEED);
+        IslandGeneticAlgorithm ga = new IslandGeneticAlgorithm(4, 200, 100, 10,
+            gap, new RingTopology(), 10, 5, pool);
+        new FixedIterationTrainer(ga, 1000).train();
+        return ga.getOptimal();
+    }
+}
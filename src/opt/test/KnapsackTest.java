@@ -8,10 +8,8 @@ import dist.DiscreteUniformDistribution;
 import dist.Distribution;
 
 import opt.DiscreteChangeOneNeighbor;
-import opt.EvaluationFunction;
-import opt.GenericHillClimbingProblem;
+import opt.GenericIncrementalHillClimbingProblem;
 import opt.HillClimbingProblem;
-import opt.NeighborFunction;
 import opt.RandomizedHillClimbing;
 import opt.SimulatedAnnealing;
 import opt.example.*;
@@ -69,15 +67,15 @@ public class KnapsackTest {
         int[] ranges = new int[NUM_ITEMS];
         Arrays.fill(ranges, COPIES_EACH + 1);
 
-        EvaluationFunction ef = new KnapsackEvaluationFunction(values, weights, MAX_KNAPSACK_WEIGHT, copies);
+        KnapsackEvaluationFunction ef = new KnapsackEvaluationFunction(values, weights, MAX_KNAPSACK_WEIGHT, copies);
         Distribution odd = new DiscreteUniformDistribution(ranges);
-        NeighborFunction nf = new DiscreteChangeOneNeighbor(ranges);
+        DiscreteChangeOneNeighbor nf = new DiscreteChangeOneNeighbor(ranges);
 
         MutationFunction mf = new DiscreteChangeOneMutation(ranges);
         CrossoverFunction cf = new UniformCrossOver();
         Distribution df = new DiscreteDependencyTree(.1, ranges);
 
-        HillClimbingProblem hcp = new GenericHillClimbingProblem(ef, odd, nf);
+        HillClimbingProblem hcp = new GenericIncrementalHillClimbingProblem(ef, odd, nf);
         GeneticAlgorithmProblem gap = new GenericGeneticAlgorithmProblem(ef, odd, mf, cf);
         ProbabilisticOptimizationProblem pop = new GenericProbabilisticOptimizationProblem(ef, odd, df);
         
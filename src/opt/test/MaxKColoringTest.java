@@ -79,7 +79,7 @@ public class MaxKColoringTest {
         FixedIterationTrainer fit = new FixedIterationTrainer(rhc, 20000);
         fit.train();
         System.out.println("RHC: " + ef.value(rhc.getOptimal()));
-        System.out.println(ef.foundConflict());
+        System.out.println(ef.foundConflict(rhc.getOptimal()));
         System.out.println("Time : "+ (System.currentTimeMillis() - starttime));
         
         System.out.println("============================");
@@ -89,7 +89,7 @@ public class MaxKColoringTest {
         fit = new FixedIterationTrainer(sa, 20000);
         fit.train();
         System.out.println("SA: " + ef.value(sa.getOptimal()));
-        System.out.println(ef.foundConflict());
+        System.out.println(ef.foundConflict(sa.getOptimal()));
         System.out.println("Time : "+ (System.currentTimeMillis() - starttime));
         
         System.out.println("============================");
@@ -99,7 +99,7 @@ public class MaxKColoringTest {
         fit = new FixedIterationTrainer(ga, 50);
         fit.train();
         System.out.println("GA: " + ef.value(ga.getOptimal()));
-        System.out.println(ef.foundConflict());
+        System.out.println(ef.foundConflict(ga.getOptimal()));
         System.out.println("Time : "+ (System.currentTimeMillis() - starttime));
         
         System.out.println("============================");
@@ -109,7 +109,7 @@ public class MaxKColoringTest {
         fit = new FixedIterationTrainer(mimic, 5);
         fit.train();
         System.out.println("MIMIC: " + ef.value(mimic.getOptimal()));  
-        System.out.println(ef.foundConflict());
+        System.out.println(ef.foundConflict(mimic.getOptimal()));
         System.out.println("Time : "+ (System.currentTimeMillis() - starttime));
         
     }
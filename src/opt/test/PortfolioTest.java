@@ -0,0 +1,85 @@
+package opt.test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import dist.DiscreteDependencyTree;
+import dist.DiscreteUniformDistribution;
+import dist.Distribution;
+
+import opt.DiscreteChangeOneNeighbor;
+import opt.EvaluationFunction;
+import opt.GenericHillClimbingProblem;
+import opt.HillClimbingProblem;
+import opt.NeighborFunction;
+import opt.OptimizationAlgorithm;
+import opt.PortfolioRunner;
+import opt.RandomizedHillClimbing;
+import opt.RunTrace;
+import opt.SimulatedAnnealing;
+import opt.example.FourPeaksEvaluationFunction;
+import opt.ga.CrossoverFunction;
+import opt.ga.DiscreteChangeOneMutation;
+import opt.ga.GenericGeneticAlgorithmProblem;
+import opt.ga.GeneticAlgorithmProblem;
+import opt.ga.MutationFunction;
+import opt.ga.SingleCrossOver;
+import opt.ga.StandardGeneticAlgorithm;
+import opt.prob.GenericProbabilisticOptimizationProblem;
+import opt.prob.MIMIC;
+import opt.prob.ProbabilisticOptimizationProblem;
+
+/**
+ * Races restarts of several algorithms on the four peaks problem
+ * @version 1.0
+ */
+public class PortfolioTest {
+    /** The n value */
+    private static final int N = 60;
+    /** The t value */
+    private static final int T = N / 10;
+    /** The number of restarts of each hill climber */
+    private static final int RESTARTS = 4;
+
+    /**
+     * The test main
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        int[] ranges = new int[N];
+        Arrays.fill(ranges, 2);
+        EvaluationFunction ef = new FourPeaksEvaluationFunction(T);
+        Distribution odd = new DiscreteUniformDistribution(ranges);
+        NeighborFunction nf = new DiscreteChangeOneNeighbor(ranges);
+        MutationFunction mf = new DiscreteChangeOneMutation(ranges);
+        CrossoverFunction cf = new SingleCrossOver();
+        HillClimbingProblem hcp = new GenericHillClimbingProblem(ef, odd, nf);
+        GeneticAlgorithmProblem gap = new GenericGeneticAlgorithmProblem(ef, odd, mf, cf);
+        // MIMIC estimates its distribution, so it gets one of its own
+        ProbabilisticOptimizationProblem pop = new GenericProbabilisticOptimizationProblem(
+            ef, odd, new DiscreteDependencyTree(.1, ranges));
+
+        OptimizationAlgorithm[] algorithms = new OptimizationAlgorithm[2 * RESTARTS + 2];
+        for (int i = 0; i < RESTARTS; i++) {
+            algorithms[i] = new RandomizedHillClimbing(hcp);
+            algorithms[RESTARTS + i] = new SimulatedAnnealing(1E11, .95, hcp);
+        }
+        algorithms[2 * RESTARTS] = new StandardGeneticAlgorithm(200, 100, 10, gap);
+        algorithms[2 * RESTARTS + 1] = new MIMIC(200, 20, pop);
+        String[] names = { "RHC", "RHC", "RHC", "RHC", "SA", "SA", "SA", "SA", "GA", "MIMIC" };
+
+        ForkJoinPool pool = new ForkJoinPool();
+        // the global optimum of four peaks is 2n - t - 1
+        PortfolioRunner runner = new PortfolioRunner(algorithms, 2 * N - T - 1,
+            10000, 200000, pool);
+        System.out.println("Best: " + ef.value(runner.run()));
+        RunTrace[] traces = runner.getTraces();
+        for (int i = 0; i < traces.length; i++) {
+            System.out.println(names[i] + ": " + traces[i].getOptimalValue()
+                + " after " + traces[i].getIterationCount() + " iterations, "
+                + traces[i].getTime() + " ms"
+                + (traces[i].isTargetReached() ? ", reached target" : ""));
+        }
+        pool.shutdown();
+    }
+}
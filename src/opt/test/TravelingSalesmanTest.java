@@ -9,9 +9,8 @@ import dist.DiscreteUniformDistribution;
 import dist.Distribution;
 
 import opt.SwapNeighbor;
-import opt.GenericHillClimbingProblem;
+import opt.GenericIncrementalHillClimbingProblem;
 import opt.HillClimbingProblem;
-import opt.NeighborFunction;
 import opt.RandomizedHillClimbing;
 import opt.SimulatedAnnealing;
 import opt.example.*;
@@ -47,12 +46,13 @@ public class TravelingSalesmanTest {
             points[i][1] = random.nextDouble();   
         }
         // for rhc, sa, and ga we use a permutation based encoding
-        TravelingSalesmanEvaluationFunction ef = new TravelingSalesmanRouteEvaluationFunction(points);
+        TravelingSalesmanRouteEvaluationFunction route = new TravelingSalesmanRouteEvaluationFunction(points);
+        TravelingSalesmanEvaluationFunction ef = route;
         Distribution odd = new DiscretePermutationDistribution(N);
-        NeighborFunction nf = new SwapNeighbor();
+        SwapNeighbor nf = new SwapNeighbor();
         MutationFunction mf = new SwapMutation();
         CrossoverFunction cf = new TravelingSalesmanCrossOver(ef);
-        HillClimbingProblem hcp = new GenericHillClimbingProblem(ef, odd, nf);
+        HillClimbingProblem hcp = new GenericIncrementalHillClimbingProblem(route, odd, nf);
         GeneticAlgorithmProblem gap = new GenericGeneticAlgorithmProblem(ef, odd, mf, cf);
         
         RandomizedHillClimbing rhc = new RandomizedHillClimbing(hcp);      
@@ -0,0 +1,111 @@
+package rl;
+
+import java.util.Arrays;
+
+/**
+ * The eligibility traces of a td lambda learner, kept
+ * as a list of the live traces beside a table of all of
+ * them so that each step only touches the live ones.
+ * A trace that decays below the zero tolerance is dropped.
+ * @version 1.0
+ */
+class EligibilityTraces {
+    /** The zero tolerance */
+    private static final double ZERO = 1E-6;
+    /**
+     * The eligibility of each state action
+     */
+    private double[][] eligibility;
+    /**
+     * The states of the live traces
+     */
+    private int[] states;
+    /**
+     * The actions of the live traces
+     */
+    private int[] actions;
+    /**
+     * The number of live traces
+     */
+    private int size;
+
+    /**
+     * Make a new set of traces, all zero
+     * @param stateCount the number of states
+     * @param actionCount the number of actions
+     */
+    EligibilityTraces(int stateCount, int actionCount) {
+        eligibility = new double[stateCount][actionCount];
+        states = new int[actionCount];
+        actions = new int[actionCount];
+    }
+
+    /**
+     * Pump the trace of a state action
+     * @param state the state
+     * @param action the action
+     * @param amount the amount to add
+     */
+    void add(int state, int action, double amount) {
+        if (eligibility[state][action] == 0) {
+            if (size == states.length) {
+                states = Arrays.copyOf(states, 2 * size);
+                actions = Arrays.copyOf(actions, 2 * size);
+            }
+            states[size] = state;
+            actions[size] = action;
+            size++;
+        }
+        eligibility[state][action] += amount;
+    }
+
+    /**
+     * Move the value of every state action with a live
+     * trace by its trace times a step, then decay the traces
+     * @param values the q values
+     * @param step the step
+     * @param decay the factor to decay the traces by
+     * @return the largest change in a value
+     */
+    double update(double[][] values, double step, double decay) {
+        double difference = 0;
+        int i = 0;
+        while (i < size) {
+            int s = states[i];
+            int a = actions[i];
+            // calculate the change in values
+            double newValue = values[s][a] + step * eligibility[s][a];
+            difference = Math.max(difference, Math.abs(values[s][a] - newValue));
+            values[s][a] = newValue;
+            eligibility[s][a] *= decay;
+            if (eligibility[s][a] < ZERO) {
+                // drop the trace, moving the last into its place
+                eligibility[s][a] = 0;
+                size--;
+                states[i] = states[size];
+                actions[i] = actions[size];
+            } else {
+                i++;
+            }
+        }
+        return difference;
+    }
+
+    /**
+     * Drop every trace
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            eligibility[states[i]][actions[i]] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Get the number of live traces
+     * @return the number of live traces
+     */
+    int size() {
+        return size;
+    }
+}
@@ -10,7 +10,7 @@ import dist.Distribution;
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
-public class MazeMarkovDecisionProcess implements MarkovDecisionProcess {
+public class MazeMarkovDecisionProcess implements SparseMarkovDecisionProcess {
     /** The default failure probability */
     private static final double FAILURE_PROBABILITY = .01;
     
@@ -200,6 +200,49 @@ public class MazeMarkovDecisionProcess implements MarkovDecisionProcess {
         }
     }
 
+    /**
+     * @see rl.SparseMarkovDecisionProcess#getMaxSuccessorCount()
+     */
+    public int getMaxSuccessorCount() {
+        return 2;
+    }
+
+    /**
+     * @see rl.SparseMarkovDecisionProcess#successors(int, int, int[], double[])
+     */
+    public int successors(int i, int a, int[] states, double[] probabilities) {
+        int startX = xFor(i), startY = yFor(i);
+        int dx,dy;
+        switch(a) {
+            case MOVE_UP:
+                dx = 0; dy = -1;
+                break;
+            case MOVE_DOWN:
+                dx = 0; dy = 1;
+                break;
+            case MOVE_LEFT:
+                dx = -1; dy = 0;
+                break;
+            case MOVE_RIGHT:
+                dx = 1; dy = 0;
+                break;
+            default:
+                dx = 0; dy = 0;
+                break;
+        }
+        states[0] = i;
+        if (startX + dx >= getWidth() || startX + dx < 0 ||
+                startY + dy >= getHeight() || startY + dy < 0 ||
+                isObstacle(startX + dx, startY + dy)) {
+            probabilities[0] = 1;
+            return 1;
+        }
+        probabilities[0] = motionFailureProbability;
+        states[1] = stateFor(startX + dx, startY + dy);
+        probabilities[1] = 1 - motionFailureProbability;
+        return 2;
+    }
+
     /**
      * @see rl.MarkovDecisionProcess#sampleState(int, int)
      */
@@ -99,6 +99,27 @@ public class NonDeterministicMazeMDP extends MazeMarkovDecisionProcess {
         return prob;
     }
 
+    /**
+     * @see rl.SparseMarkovDecisionProcess#getMaxSuccessorCount()
+     */
+    public int getMaxSuccessorCount() {
+        return ACTIONS + 1;
+    }
+
+    /**
+     * @see rl.SparseMarkovDecisionProcess#successors(int, int, int[], double[])
+     */
+    public int successors(int i, int a, int[] states, double[] probabilities) {
+        double[] tm = transitionModel.getProbabilities();
+        for (int rotation = 0; rotation < ACTIONS; rotation++) {
+            states[rotation] = move(i, (a + rotation) % ACTIONS);
+            probabilities[rotation] = tm[rotation];
+        }
+        states[ACTIONS] = i;
+        probabilities[ACTIONS] = tm.length > ACTIONS ? tm[ACTIONS] : 0;
+        return ACTIONS + 1;
+    }
+
     /**
      * @see rl.MarkovDecisionProcess#sampleState(int, int)
      */
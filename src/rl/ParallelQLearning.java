@@ -0,0 +1,338 @@
+package rl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import dist.Distribution;
+import util.ParallelRange;
+import util.PerThreadRandom;
+import util.RangeTask;
+
+/**
+ * Q learning with several agents sampling episodes from the
+ * same process at once.  The agents share one table of q values,
+ * stored as the bits of each double in an atomic array, and each
+ * update is a compare and set that is retried if another agent
+ * changed the value first, so no update is lost and no agent ever
+ * waits on a lock.  Each call of train runs every agent for a fixed
+ * number of steps, on a fork join pool if there is one, and each
+ * agent draws its random numbers from a stream of its own.  Without
+ * a pool the agents take turns and a run can be replayed exactly;
+ * with one the order of the updates depends on the threads.  The
+ * process and the exploration strategy are used by every agent,
+ * so they must be safe to call from several threads.
+ * @version 1.0
+ */
+public class ParallelQLearning implements PolicyLearner {
+    /**
+     * The decay value
+     */
+    private double gamma;
+    /**
+     * The starting alpha value
+     */
+    private double alpha;
+    /**
+     * How quickly to decay alpha
+     */
+    private double decay;
+    /**
+     * The exploration strategy
+     */
+    private ExplorationStrategy strategy;
+    /**
+     * The process
+     */
+    private MarkovDecisionProcess process;
+    /**
+     * The number of steps each agent takes per call of train
+     */
+    private int stepCount;
+    /**
+     * The q values as double bits, one state after another
+     */
+    private AtomicLongArray values;
+    /**
+     * The current state of each agent
+     */
+    private int[] states;
+    /**
+     * The current action of each agent
+     */
+    private int[] actions;
+    /**
+     * The alpha value of each agent
+     */
+    private double[] alphas;
+    /**
+     * The number of episodes each agent has finished
+     */
+    private int[] episodes;
+    /**
+     * The total reward of each agent
+     */
+    private double[] rewards;
+    /**
+     * The number of calls of train so far
+     */
+    private int iteration;
+    /**
+     * The random number stream of each agent
+     */
+    private transient PerThreadRandom.Stream[] streams;
+    /**
+     * The pool to run the agents on,
+     * or null to run them on the calling thread
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Make a new parallel q learner that runs its agents one after another
+     * @param gamma the gamma value
+     * @param alpha the moving average value
+     * @param decay the alpha decay value, applied by each agent every step
+     * @param strategy the exploration strategy
+     * @param process the mdp itself
+     * @param agentCount the number of agents
+     * @param stepCount the number of steps each agent takes per call of train
+     */
+    public ParallelQLearning(double gamma, double alpha, double decay,
+            ExplorationStrategy strategy, MarkovDecisionProcess process,
+            int agentCount, int stepCount) {
+        this(gamma, alpha, decay, strategy, process, agentCount, stepCount, null);
+    }
+
+    /**
+     * Make a new parallel q learner
+     * @param gamma the gamma value
+     * @param alpha the moving average value
+     * @param decay the alpha decay value, applied by each agent every step
+     * @param strategy the exploration strategy
+     * @param process the mdp itself
+     * @param agentCount the number of agents
+     * @param stepCount the number of steps each agent takes per call of train
+     * @param pool the pool to run the agents on, or null
+     */
+    public ParallelQLearning(double gamma, double alpha, double decay,
+            ExplorationStrategy strategy, MarkovDecisionProcess process,
+            int agentCount, int stepCount, ForkJoinPool pool) {
+        if (agentCount < 1) {
+            throw new IllegalArgumentException("there must be at least one agent");
+        }
+        if (stepCount < 1) {
+            throw new IllegalArgumentException("the step count must be positive");
+        }
+        this.gamma = gamma;
+        this.alpha = alpha;
+        this.decay = decay;
+        this.strategy = strategy;
+        this.process = process;
+        this.stepCount = stepCount;
+        this.pool = pool;
+        values = new AtomicLongArray(process.getStateCount() * process.getActionCount());
+        states = new int[agentCount];
+        actions = new int[agentCount];
+        alphas = new double[agentCount];
+        episodes = new int[agentCount];
+        rewards = new double[agentCount];
+        makeStreams(agentCount);
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        for (int i = 0; i < agentCount; i++) {
+            PerThreadRandom.Stream previous = random.setStream(streams[i]);
+            try {
+                states[i] = process.sampleInitialState();
+                actions[i] = Distribution.random.nextInt(process.getActionCount());
+            } finally {
+                random.setStream(previous);
+            }
+            alphas[i] = alpha;
+        }
+    }
+
+    /**
+     * Set the pool to run the agents on
+     * @param pool the pool, or null to run them on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Seed a stream for each agent from the calling thread's stream
+     * @param agentCount the number of agents
+     */
+    private void makeStreams(int agentCount) {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        streams = new PerThreadRandom.Stream[agentCount];
+        for (int i = 0; i < agentCount; i++) {
+            streams[i] = random.newStream(random.nextLong());
+        }
+    }
+
+    /**
+     * Run every agent for the step count.  Returns the
+     * largest change any agent made to a q value.
+     * @see shared.Trainer#train()
+     */
+    public double train() {
+        if (streams == null) {
+            // streams are not serialized
+            makeStreams(states.length);
+        }
+        Object[] differences = ParallelRange.run(pool, states.length, 1, new RangeTask() {
+            public Object run(int agent, int next) {
+                return Double.valueOf(train(agent));
+            }
+        });
+        double difference = 0;
+        for (int i = 0; i < differences.length; i++) {
+            difference = Math.max(difference, ((Double) differences[i]).doubleValue());
+        }
+        iteration++;
+        return difference;
+    }
+
+    /**
+     * Run one agent for the step count with its own random numbers
+     * @param agent the agent
+     * @return the largest change the agent made to a q value
+     */
+    private double train(int agent) {
+        PerThreadRandom random = (PerThreadRandom) Distribution.random;
+        PerThreadRandom.Stream previous = random.setStream(streams[agent]);
+        try {
+            int actionCount = process.getActionCount();
+            double[] row = new double[actionCount];
+            int state = states[agent];
+            int action = actions[agent];
+            double alpha = alphas[agent];
+            double difference = 0;
+            for (int i = 0; i < stepCount; i++) {
+                int nextState = process.sampleState(state, action);
+                double reward = process.reward(nextState, action);
+                rewards[agent] += reward;
+                read(nextState, row);
+                int nextAction = strategy.action(row);
+                double best = row[0];
+                for (int a = 1; a < actionCount; a++) {
+                    best = Math.max(best, row[a]);
+                }
+                // move the value toward the target
+                difference = Math.max(difference, update(state * actionCount + action,
+                    alpha, reward + gamma * best));
+                state = nextState;
+                action = nextAction;
+                // reset on terminal state
+                if (process.isTerminalState(state)) {
+                    episodes[agent]++;
+                    state = process.sampleInitialState();
+                    read(state, row);
+                    action = strategy.action(row);
+                }
+                // decay the alpha value
+                alpha *= decay;
+            }
+            states[agent] = state;
+            actions[agent] = action;
+            alphas[agent] = alpha;
+            return difference;
+        } finally {
+            random.setStream(previous);
+        }
+    }
+
+    /**
+     * Read the q values of a state
+     * @param state the state
+     * @param row the array to read the values into
+     */
+    private void read(int state, double[] row) {
+        int start = state * row.length;
+        for (int a = 0; a < row.length; a++) {
+            row[a] = Double.longBitsToDouble(values.get(start + a));
+        }
+    }
+
+    /**
+     * Move a q value part of the way toward a target,
+     * retrying if another agent changes it first
+     * @param index the index of the state action
+     * @param alpha the fraction of the way to move
+     * @param target the target
+     * @return the change in the value
+     */
+    private double update(int index, double alpha, double target) {
+        while (true) {
+            long bits = values.get(index);
+            double value = Double.longBitsToDouble(bits);
+            double newValue = value + alpha * (target - value);
+            if (values.compareAndSet(index, bits, Double.doubleToRawLongBits(newValue))) {
+                return Math.abs(newValue - value);
+            }
+        }
+    }
+
+    /**
+     * Get a q value
+     * @param state the state
+     * @param action the action
+     * @return the value
+     */
+    public double getValue(int state, int action) {
+        return Double.longBitsToDouble(values.get(state * process.getActionCount() + action));
+    }
+
+    /**
+     * @see rl.PolicyLearner#getPolicy()
+     */
+    public Policy getPolicy() {
+        int stateCount = process.getStateCount();
+        int actionCount = process.getActionCount();
+        // calculate the policy based on the values
+        int[] policy = new int[stateCount];
+        double[] row = new double[actionCount];
+        for (int i = 0; i < stateCount; i++) {
+            read(i, row);
+            // find the maximum action
+            int maxAction = 0;
+            for (int a = 1; a < actionCount; a++) {
+                if (row[a] > row[maxAction]) {
+                    maxAction = a;
+                }
+            }
+            policy[i] = maxAction;
+        }
+        return new Policy(policy);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return iteration + ", " + getEpisodeCount();
+    }
+
+    /**
+     * Get the number of episodes the agents have finished
+     * @return the episode count
+     */
+    public int getEpisodeCount() {
+        int count = 0;
+        for (int i = 0; i < episodes.length; i++) {
+            count += episodes[i];
+        }
+        return count;
+    }
+
+    /**
+     * Get the total reward of all the agents
+     * @return the total reward
+     */
+    public double getTotalReward() {
+        double sum = 0;
+        for (int i = 0; i < rewards.length; i++) {
+            sum += rewards[i];
+        }
+        return sum;
+    }
+}
@@ -1,7 +1,13 @@
 package rl;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
- * A policy learner that learns policies through policy iteration
+ * A policy learner that learns policies through policy iteration.
+ * The process's transitions are read once into a transition table.
+ * Without a pool each evaluation sweep updates the values in place;
+ * with one the states are swept in parallel blocks, each reading the
+ * values of the last sweep, so the policy doesn't depend on the pool.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -22,6 +28,14 @@ public class PolicyIteration implements PolicyLearner {
      * The decay value
      */
     private double gamma;
+    /**
+     * The transitions of the process, built on the first iteration
+     */
+    private TransitionTable table;
+    /**
+     * The pool to sweep on, or null
+     */
+    private ForkJoinPool pool;
 
     
     /**
@@ -29,67 +43,101 @@ public class PolicyIteration implements PolicyLearner {
      * @param gamma the gamma decay value
      */
     public PolicyIteration(double gamma, MarkovDecisionProcess process) {
+        this(gamma, process, null);
+    }
+    
+    /**
+     * Make a new policy iteration
+     * @param gamma the gamma decay value
+     * @param process the process
+     * @param pool the pool to sweep on, or null
+     */
+    public PolicyIteration(double gamma, MarkovDecisionProcess process, ForkJoinPool pool) {
         this.gamma = gamma;
         this.process = process;
+        this.pool = pool;
         policy = new Policy(process.getStateCount(), process.getActionCount());
     }
     
+    /**
+     * Set the pool to sweep on.  Without a pool each evaluation sweep
+     * updates the values in place, so later states see the new values
+     * of earlier ones (Gauss-Seidel).  With a pool every state reads the
+     * values of the last sweep (Jacobi), so the evaluated values differ
+     * slightly, within the tolerance, and where actions are near ties
+     * the policy may differ while having the same expected return.
+     * @param pool the pool, or null to sweep in place on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
     /**
      * @see shared.Trainer#train()
      */
     public double train() {
-        int stateCount = process.getStateCount();
-        int actionCount = process.getActionCount();
+        if (table == null) {
+            table = new TransitionTable(process, pool);
+        }
+        final TransitionTable table = this.table;
+        final int stateCount = table.getStateCount();
+        final int actionCount = table.getActionCount();
+        final int[] actions = policy.getActions();
         // perform value iteration with the policy
         double[] values = new double[stateCount];
-        boolean valuesChanged = false;
+        double[] next = pool == null ? values : new double[stateCount];
+        double difference;
         do {
-            valuesChanged = false;
-            // loop through all the states
-            for (int i = 0; i < stateCount; i++) {
-                // utility = reward if in terminal state
-                if (process.isTerminalState(i)) {
-                    values[i] = process.reward(i, 0);
-                    continue;
-                }
-                // calculate the new value
-                int action = policy.getAction(i);
-                double actionVal = 0;
-                for (int j = 0; j < stateCount; j++) {
-                    actionVal += process.transitionProbability(i, j, action)
-                            * values[j];
+            final double[] current = values;
+            final double[] target = next;
+            difference = TransitionTable.sweep(pool, stateCount, new StateSweep() {
+                public double sweep(int start, int end) {
+                    double difference = 0;
+                    // loop through the states
+                    for (int i = start; i < end; i++) {
+                        // utility = reward if in terminal state
+                        if (table.isTerminalState(i)) {
+                            target[i] = table.getReward(i, 0);
+                            continue;
+                        }
+                        // val = reward + decay * expected value
+                        double val = table.actionValue(i, actions[i], gamma, current);
+                        difference = Math.max(Math.abs(current[i] - val), difference);
+                        target[i] = val;
+                    }
+                    return difference;
                 }
-                // val = reward + decay * expected value
-                double val = process.reward(i, action) + gamma * actionVal;
-                // check if we're done
-                if (Math.abs(values[i] - val) > TOLERANCE) {
-                    valuesChanged = true;
+            });
+            next = values;
+            values = target;
+        } while (difference > TOLERANCE);
+        // calculate the new policy
+        final double[] finalValues = values;
+        final int[] newActions = new int[stateCount];
+        TransitionTable.sweep(pool, stateCount, new StateSweep() {
+            public double sweep(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    // find the maximum action
+                    double maxActionVal = -Double.MAX_VALUE;
+                    int maxAction = 0;
+                    for (int a = 0; a < actionCount; a++) {
+                        double actionVal = table.actionValue(i, a, gamma, finalValues);
+                        if (actionVal > maxActionVal) {
+                            maxActionVal = actionVal;
+                            maxAction = a;
+                        }
+                    }
+                    newActions[i] = maxAction;
                 }
-                values[i] = val;
+                return 0;
             }
-        } while (valuesChanged);
+        });
         int changed = 0;
-        // calculate the new policy
         for (int i = 0; i < stateCount; i++) {
-            // find the maximum action
-            double maxActionVal = -Double.MAX_VALUE;
-            int maxAction = 0;
-            for (int a = 0; a < actionCount; a++) {
-                double actionVal = 0;
-                for (int j = 0; j < stateCount; j++) {
-                    actionVal += process.transitionProbability(i, j, a)
-                            * values[j];
-                }
-                actionVal = process.reward(i, a) + gamma * actionVal;
-                if (actionVal > maxActionVal) {
-                    maxActionVal = actionVal;
-                    maxAction = a;
-                }
-            }
-            if (policy.getAction(i) != maxAction) {
+            if (policy.getAction(i) != newActions[i]) {
                 changed++;
             }
-            policy.setAction(i, maxAction);
+            policy.setAction(i, newActions[i]);
         }
         return changed;
     }
@@ -101,4 +149,3 @@ public class PolicyIteration implements PolicyLearner {
     }
 
 }
-
@@ -0,0 +1,300 @@
+package rl;
+
+import java.util.Arrays;
+
+/**
+ * A policy learner that learns policies through prioritized sweeping
+ * value iteration.  Instead of sweeping over every state in order,
+ * states are backed up one at a time in place, in order of a bound on
+ * their bellman residual.  When a state's value changes by some amount,
+ * the bound of each state that can lead to it grows by gamma times the
+ * largest probability of leading to it times that amount, and a backup
+ * sets the state's own bound back to zero.  The states leading to each
+ * state are indexed once from the process's transition table.  States
+ * whose bound is within the tolerance are left alone, so on large
+ * sparse processes most states are backed up only a few times, and
+ * once every bound is within the tolerance so is every residual.
+ * @version 1.0
+ */
+public class PrioritizedValueIteration implements PolicyLearner {
+    /**
+     * The default tolerance for residuals
+     */
+    private static final double TOLERANCE = 1E-6;
+    /**
+     * The decay value
+     */
+    private double gamma;
+    /**
+     * The tolerance for residuals
+     */
+    private double tolerance;
+    /**
+     * The transitions of the process
+     */
+    private TransitionTable table;
+    /**
+     * Where the states leading to each state start in
+     * predecessors, followed by the end of the last state's
+     */
+    private int[] predecessorStarts;
+    /**
+     * The states leading to each state, one state after another
+     */
+    private int[] predecessors;
+    /**
+     * The largest probability over the actions of
+     * each predecessor leading to the state
+     */
+    private double[] predecessorProbabilities;
+    /**
+     * The values
+     */
+    private double[] values;
+    /**
+     * The bound on the residual of each state
+     */
+    private double[] bounds;
+    /**
+     * The states with bounds above the tolerance, in a max heap
+     */
+    private int[] heap;
+    /**
+     * The place of each state in the heap, or -1
+     */
+    private int[] places;
+    /**
+     * The number of states in the heap
+     */
+    private int size;
+    /**
+     * The number of backups done
+     */
+    private long backupCount;
+    
+    /**
+     * Make a new prioritized value iteration
+     * @param gamma the gamma decay value
+     * @param process the process
+     */
+    public PrioritizedValueIteration(double gamma, MarkovDecisionProcess process) {
+        this(gamma, process, TOLERANCE);
+    }
+    
+    /**
+     * Make a new prioritized value iteration
+     * @param gamma the gamma decay value
+     * @param process the process
+     * @param tolerance the largest residual left alone
+     */
+    public PrioritizedValueIteration(double gamma, MarkovDecisionProcess process,
+            double tolerance) {
+        this.gamma = gamma;
+        this.tolerance = tolerance;
+        table = new TransitionTable(process);
+        int stateCount = table.getStateCount();
+        int actionCount = table.getActionCount();
+        // the values
+        values = new double[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            double maxActionVal = table.getReward(i, 0);
+            for (int a = 1; a < actionCount; a++) {
+                maxActionVal = Math.max(maxActionVal, table.getReward(i, a));
+            }
+            values[i] = maxActionVal;
+        }
+        indexPredecessors();
+        // start from the exact residuals
+        bounds = new double[stateCount];
+        heap = new int[stateCount];
+        places = new int[stateCount];
+        Arrays.fill(places, -1);
+        for (int i = 0; i < stateCount; i++) {
+            // utility never changes in terminal states
+            if (!table.isTerminalState(i)) {
+                raise(i, Math.abs(backup(i) - values[i]));
+            }
+        }
+    }
+    
+    /**
+     * Index the states leading to each state, listing each
+     * once with its largest probability of leading there
+     */
+    private void indexPredecessors() {
+        int stateCount = table.getStateCount();
+        int actionCount = table.getActionCount();
+        predecessorStarts = new int[stateCount + 1];
+        // the last state found leading to each state
+        int[] last = new int[stateCount];
+        Arrays.fill(last, -1);
+        for (int i = 0; i < stateCount; i++) {
+            for (int k = table.getStart(i, 0); k < table.getEnd(i, actionCount - 1); k++) {
+                int j = table.getNextState(k);
+                if (last[j] != i) {
+                    last[j] = i;
+                    predecessorStarts[j + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < stateCount; j++) {
+            predecessorStarts[j + 1] += predecessorStarts[j];
+        }
+        predecessors = new int[predecessorStarts[stateCount]];
+        predecessorProbabilities = new double[predecessors.length];
+        // where each state's last predecessor went
+        int[] filled = new int[stateCount];
+        Arrays.fill(last, -1);
+        for (int i = 0; i < stateCount; i++) {
+            for (int k = table.getStart(i, 0); k < table.getEnd(i, actionCount - 1); k++) {
+                int j = table.getNextState(k);
+                if (last[j] != i) {
+                    last[j] = i;
+                    filled[j] = predecessorStarts[j]++;
+                    predecessors[filled[j]] = i;
+                }
+                predecessorProbabilities[filled[j]] = Math.max(
+                    predecessorProbabilities[filled[j]], table.getProbability(k));
+            }
+        }
+        // the starts were moved up to the ends while filling
+        System.arraycopy(predecessorStarts, 0, predecessorStarts, 1, stateCount);
+        predecessorStarts[0] = 0;
+    }
+    
+    /**
+     * Get the value of the best action in a state
+     * @param i the state
+     * @return the value
+     */
+    private double backup(int i) {
+        double maxActionVal = -Double.MAX_VALUE;
+        for (int a = 0; a < table.getActionCount(); a++) {
+            maxActionVal = Math.max(maxActionVal, table.actionValue(i, a, gamma, values));
+        }
+        return maxActionVal;
+    }
+    
+    /**
+     * Add to the bound of a state, putting it in
+     * the heap once the bound passes the tolerance
+     * @param i the state
+     * @param amount the amount to add
+     */
+    private void raise(int i, double amount) {
+        bounds[i] += amount;
+        if (bounds[i] <= tolerance) {
+            return;
+        }
+        int place = places[i];
+        if (place < 0) {
+            place = size++;
+        }
+        // sift up
+        while (place > 0 && bounds[heap[(place - 1) / 2]] < bounds[i]) {
+            heap[place] = heap[(place - 1) / 2];
+            places[heap[place]] = place;
+            place = (place - 1) / 2;
+        }
+        heap[place] = i;
+        places[i] = place;
+    }
+    
+    /**
+     * Take the state with the largest bound out of the heap
+     * @return the state
+     */
+    private int pop() {
+        int top = heap[0];
+        places[top] = -1;
+        size--;
+        if (size > 0) {
+            // sift the last state down from the top
+            int state = heap[size];
+            int place = 0;
+            int child = 1;
+            while (child < size) {
+                if (child + 1 < size && bounds[heap[child + 1]] > bounds[heap[child]]) {
+                    child++;
+                }
+                if (bounds[heap[child]] <= bounds[state]) {
+                    break;
+                }
+                heap[place] = heap[child];
+                places[heap[place]] = place;
+                place = child;
+                child = 2 * place + 1;
+            }
+            heap[place] = state;
+            places[state] = place;
+        }
+        return top;
+    }
+    
+    /**
+     * Back up as many states as there are states, or fewer
+     * if every bound falls within the tolerance first
+     * @return the largest bound left
+     * @see shared.Trainer#train()
+     */
+    public double train() {
+        for (int n = 0; n < values.length && size > 0; n++) {
+            int i = pop();
+            double value = backup(i);
+            double change = Math.abs(value - values[i]);
+            values[i] = value;
+            bounds[i] = 0;
+            backupCount++;
+            if (change == 0) {
+                continue;
+            }
+            for (int k = predecessorStarts[i]; k < predecessorStarts[i + 1]; k++) {
+                int predecessor = predecessors[k];
+                if (!table.isTerminalState(predecessor)) {
+                    raise(predecessor, gamma * predecessorProbabilities[k] * change);
+                }
+            }
+        }
+        return size > 0 ? bounds[heap[0]] : 0;
+    }
+    
+    /**
+     * Get the number of backups done so far
+     * @return the number of backups
+     */
+    public long getBackupCount() {
+        return backupCount;
+    }
+    
+    /**
+     * Get the values
+     * @return the values
+     */
+    public double[] getValues() {
+        return values;
+    }
+    
+    /**
+     * @see rl.PolicyLearner#getPolicy()
+     */
+    public Policy getPolicy() {
+        int stateCount = table.getStateCount();
+        int actionCount = table.getActionCount();
+        // calculate the policy based on the values
+        int[] policy = new int[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            // find the maximum action
+            double maxActionVal = -Double.MAX_VALUE;
+            int maxAction = 0;
+            for (int a = 0; a < actionCount; a++) {
+                double actionVal = table.actionValue(i, a, gamma, values);
+                if (actionVal > maxActionVal) {
+                    maxActionVal = actionVal;
+                    maxAction = a;
+                }
+            }
+            policy[i] = maxAction;
+        }
+        return new Policy(policy);
+    }
+}
@@ -8,8 +8,6 @@ import dist.Distribution;
  * @version 1.0
  */
 public class SarsaLambda implements PolicyLearner {
-    /** The zero tolerance */
-    private static final double ZERO = 1E-6;
     
     /**
      * The lambda value
@@ -43,7 +41,7 @@ public class SarsaLambda implements PolicyLearner {
     /**
      * The eligibility of each state action
      */
-    private double[][] eligibility;
+    private EligibilityTraces eligibility;
     /**
      * The current state
      */
@@ -83,7 +81,7 @@ public class SarsaLambda implements PolicyLearner {
         this.process = process;
         
         this.values = new double[process.getStateCount()][process.getActionCount()];
-        this.eligibility = new double[process.getStateCount()][process.getActionCount()];
+        this.eligibility = new EligibilityTraces(process.getStateCount(), process.getActionCount());
         this.state = process.sampleInitialState();
         this.action = Distribution.random.nextInt(process.getActionCount());
     }
@@ -100,21 +98,9 @@ public class SarsaLambda implements PolicyLearner {
         double delta = reward + gamma * values[nextState][nextAction]
             - values[state][action];
         // pump the eligibility for this tate
-        eligibility[state][action] += 1;
-        double difference = 0;
-        // update all state acion pairs
-        for (int i = 0; i < process.getStateCount(); i++) {
-            for (int a = 0; a < process.getActionCount(); a++) {
-                if (eligibility[i][a] < ZERO) {
-                    continue;
-                }
-                // calculate the change in values
-                double newValue = values[i][a] + alpha * delta * eligibility[i][a];
-                difference = Math.max(difference, Math.abs(values[i][a] - newValue));
-                values[i][a] = newValue;
-                eligibility[i][a] *= gamma * lambda;
-            }
-        }
+        eligibility.add(state, action, 1);
+        // update the state action pairs with live traces
+        double difference = eligibility.update(values, alpha * delta, gamma * lambda);
         state = nextState;
         action = nextAction;
         // reset on terminal state
@@ -122,11 +108,7 @@ public class SarsaLambda implements PolicyLearner {
             episode++;
             state = process.sampleInitialState();
             action = strategy.action(values[state]);
-            for (int i = 0; i < process.getStateCount(); i++) {
-                for (int a = 0; a < process.getActionCount(); a++) {
-                    eligibility[i][a] = 0;
-                }
-            }
+            eligibility.clear();
         }
         iteration++;
         // decay the alpha value
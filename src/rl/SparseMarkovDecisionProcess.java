@@ -0,0 +1,29 @@
+package rl;
+
+/**
+ * A markov decision process that can list the few states
+ * that may follow a state and action, so that solvers
+ * need not ask for the probability of every state
+ * @version 1.0
+ */
+public interface SparseMarkovDecisionProcess extends MarkovDecisionProcess {
+    /**
+     * Get the most next states listed for any state and action
+     * @return the most next states
+     */
+    public int getMaxSuccessorCount();
+
+    /**
+     * List the states that may follow a state and action,
+     * with their probabilities.  A state may be listed more
+     * than once, in which case its probabilities are added
+     * in the order listed, and states with probability zero
+     * may be left out.
+     * @param i the state
+     * @param a the action
+     * @param states filled with the next states
+     * @param probabilities filled with their probabilities
+     * @return the number of next states listed
+     */
+    public int successors(int i, int a, int[] states, double[] probabilities);
+}
@@ -0,0 +1,16 @@
+package rl;
+
+/**
+ * Work done on a block of states, which
+ * may be run in parallel with other blocks
+ * @version 1.0
+ */
+interface StateSweep {
+    /**
+     * Sweep over a block of states
+     * @param start the first state
+     * @param end one past the last state
+     * @return the largest change in the block
+     */
+    public double sweep(int start, int end);
+}
@@ -0,0 +1,305 @@
+package rl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import util.ParallelRange;
+import util.RangeTask;
+
+/**
+ * The rewards and nonzero transition probabilities of a markov
+ * decision process, worked out once and kept in flat arrays with
+ * a row for each state and action.  The next states in a row are
+ * in increasing order.  Processes that can list their successors
+ * are asked for them, and for other processes every state is
+ * checked once here instead of on every sweep of a solver.
+ * @version 1.0
+ */
+public class TransitionTable {
+    /**
+     * The number of states in a block of work
+     */
+    static final int BLOCK = 4096;
+
+    /**
+     * The number of states
+     */
+    private int stateCount;
+
+    /**
+     * The number of actions
+     */
+    private int actionCount;
+
+    /**
+     * Where each row starts, followed by the end of the last row
+     */
+    private int[] starts;
+
+    /**
+     * The next states, one row after another
+     */
+    private int[] nextStates;
+
+    /**
+     * The probabilities of the next states
+     */
+    private double[] probabilities;
+
+    /**
+     * The reward for each row
+     */
+    private double[] rewards;
+
+    /**
+     * Whether each state is terminal
+     */
+    private boolean[] terminal;
+
+    /**
+     * Make a new table
+     * @param process the process
+     */
+    public TransitionTable(MarkovDecisionProcess process) {
+        this(process, null);
+    }
+
+    /**
+     * Make a new table
+     * @param process the process
+     * @param pool the pool to build the table on, or null
+     */
+    public TransitionTable(final MarkovDecisionProcess process, ForkJoinPool pool) {
+        stateCount = process.getStateCount();
+        actionCount = process.getActionCount();
+        rewards = new double[stateCount * actionCount];
+        terminal = new boolean[stateCount];
+        starts = new int[stateCount * actionCount + 1];
+        final Block[] blocks = new Block[(stateCount + BLOCK - 1) / BLOCK];
+        sweep(pool, stateCount, new StateSweep() {
+            public double sweep(int start, int end) {
+                blocks[start / BLOCK] = new Block(process, start, end);
+                return 0;
+            }
+        });
+        // the rows' counts are in starts, shifted up one
+        for (int r = 0; r < stateCount * actionCount; r++) {
+            starts[r + 1] += starts[r];
+        }
+        nextStates = new int[starts[starts.length - 1]];
+        probabilities = new double[nextStates.length];
+        for (int b = 0; b < blocks.length; b++) {
+            int offset = starts[b * BLOCK * actionCount];
+            System.arraycopy(blocks[b].states, 0, nextStates, offset, blocks[b].size);
+            System.arraycopy(blocks[b].probabilities, 0, probabilities, offset, blocks[b].size);
+        }
+    }
+
+    /**
+     * Get the number of states
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Get the number of actions
+     * @return the number of actions
+     */
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    /**
+     * Get where the row for a state and action starts
+     * @param state the state
+     * @param action the action
+     * @return the index of the row's first entry
+     */
+    public int getStart(int state, int action) {
+        return starts[state * actionCount + action];
+    }
+
+    /**
+     * Get where the row for a state and action ends
+     * @param state the state
+     * @param action the action
+     * @return one past the index of the row's last entry
+     */
+    public int getEnd(int state, int action) {
+        return starts[state * actionCount + action + 1];
+    }
+
+    /**
+     * Get the next state of an entry
+     * @param k the entry
+     * @return the next state
+     */
+    public int getNextState(int k) {
+        return nextStates[k];
+    }
+
+    /**
+     * Get the probability of an entry
+     * @param k the entry
+     * @return the probability
+     */
+    public double getProbability(int k) {
+        return probabilities[k];
+    }
+
+    /**
+     * Get the reward for a state and action
+     * @param state the state
+     * @param action the action
+     * @return the reward
+     */
+    public double getReward(int state, int action) {
+        return rewards[state * actionCount + action];
+    }
+
+    /**
+     * Check if a state is terminal
+     * @param state the state
+     * @return true if it is
+     */
+    public boolean isTerminalState(int state) {
+        return terminal[state];
+    }
+
+    /**
+     * Get the value of taking an action in a state
+     * @param state the state
+     * @param action the action
+     * @param gamma the decay value
+     * @param values the values of the states
+     * @return the reward plus the decayed expected value of the next state
+     */
+    public double actionValue(int state, int action, double gamma, double[] values) {
+        int row = state * actionCount + action;
+        double expected = 0;
+        for (int k = starts[row]; k < starts[row + 1]; k++) {
+            expected += probabilities[k] * values[nextStates[k]];
+        }
+        return rewards[row] + gamma * expected;
+    }
+
+    /**
+     * Run a sweep over blocks of states, on a pool if there is one
+     * @param pool the pool, or null to sweep all the states at once
+     * @param stateCount the number of states
+     * @param sweep the sweep
+     * @return the largest change of any block
+     */
+    static double sweep(ForkJoinPool pool, int stateCount, final StateSweep sweep) {
+        Object[] changes = ParallelRange.run(pool, stateCount, BLOCK, new RangeTask() {
+            public Object run(int start, int end) {
+                return Double.valueOf(sweep.sweep(start, end));
+            }
+        });
+        double change = 0;
+        for (int i = 0; i < changes.length; i++) {
+            change = Math.max(change, ((Double) changes[i]).doubleValue());
+        }
+        return change;
+    }
+
+    /**
+     * The entries of a block of states, while building
+     */
+    private class Block {
+        /**
+         * The next states
+         */
+        private int[] states;
+
+        /**
+         * The probabilities
+         */
+        private double[] probabilities;
+
+        /**
+         * The number of entries
+         */
+        private int size;
+
+        /**
+         * Work out the rows of a block of states
+         * @param process the process
+         * @param start the first state
+         * @param end one past the last state
+         */
+        private Block(MarkovDecisionProcess process, int start, int end) {
+            states = new int[(end - start) * actionCount];
+            probabilities = new double[states.length];
+            SparseMarkovDecisionProcess sparse = null;
+            int[] listed = null;
+            double[] listedProbabilities = null;
+            if (process instanceof SparseMarkovDecisionProcess) {
+                sparse = (SparseMarkovDecisionProcess) process;
+                listed = new int[sparse.getMaxSuccessorCount()];
+                listedProbabilities = new double[listed.length];
+            }
+            for (int i = start; i < end; i++) {
+                terminal[i] = process.isTerminalState(i);
+                for (int a = 0; a < actionCount; a++) {
+                    int row = i * actionCount + a;
+                    rewards[row] = process.reward(i, a);
+                    int rowStart = size;
+                    if (sparse != null) {
+                        int count = sparse.successors(i, a, listed, listedProbabilities);
+                        for (int k = 0; k < count; k++) {
+                            add(listed[k], listedProbabilities[k], rowStart);
+                        }
+                        // drop the next states that add up to zero
+                        int kept = rowStart;
+                        for (int k = rowStart; k < size; k++) {
+                            if (probabilities[k] != 0) {
+                                states[kept] = states[k];
+                                probabilities[kept++] = probabilities[k];
+                            }
+                        }
+                        size = kept;
+                    } else {
+                        for (int j = 0; j < stateCount; j++) {
+                            double p = process.transitionProbability(i, j, a);
+                            if (p != 0) {
+                                add(j, p, rowStart);
+                            }
+                        }
+                    }
+                    starts[row + 1] = size - rowStart;
+                }
+            }
+        }
+
+        /**
+         * Add a next state to the current row, keeping the row
+         * in order and adding to the probability of a state
+         * already in it
+         * @param state the next state
+         * @param probability its probability
+         * @param rowStart where the row starts
+         */
+        private void add(int state, double probability, int rowStart) {
+            int k = size;
+            while (k > rowStart && states[k - 1] > state) {
+                k--;
+            }
+            if (k > rowStart && states[k - 1] == state) {
+                probabilities[k - 1] += probability;
+                return;
+            }
+            if (size == states.length) {
+                states = Arrays.copyOf(states, Math.max(2 * size, actionCount));
+                probabilities = Arrays.copyOf(probabilities, states.length);
+            }
+            System.arraycopy(states, k, states, k + 1, size - k);
+            System.arraycopy(probabilities, k, probabilities, k + 1, size - k);
+            states[k] = state;
+            probabilities[k] = probability;
+            size++;
+        }
+    }
+}
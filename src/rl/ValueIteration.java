@@ -1,7 +1,13 @@
 package rl;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
- * A policy learner that learns policies through value iteration
+ * A policy learner that learns policies through value iteration.
+ * The process's transitions are read once into a transition table.
+ * Without a pool each sweep updates the values in place; with one
+ * the states are swept in parallel blocks, each reading the values
+ * of the last sweep, so the values don't depend on the pool.
  * @author Andrew Guillory gtg008g@mail.gatech.edu
  * @version 1.0
  */
@@ -18,14 +24,37 @@ public class ValueIteration implements PolicyLearner {
      * The values
      */
     private double[] values;
+    /**
+     * The values being worked out in a parallel sweep
+     */
+    private double[] next;
+    /**
+     * The transitions of the process, built on the first sweep
+     */
+    private TransitionTable table;
+    /**
+     * The pool to sweep on, or null
+     */
+    private ForkJoinPool pool;
     
     /**
      * Make a new value iteration
      * @param gamma the gamma decay value
      */
     public ValueIteration(double gamma, MarkovDecisionProcess process) {
+        this(gamma, process, null);
+    }
+    
+    /**
+     * Make a new value iteration
+     * @param gamma the gamma decay value
+     * @param process the process
+     * @param pool the pool to sweep on, or null
+     */
+    public ValueIteration(double gamma, MarkovDecisionProcess process, ForkJoinPool pool) {
         this.gamma = gamma;
         this.process = process;
+        this.pool = pool;
         // the values
         values = new double[process.getStateCount()];
         for (int i = 0; i < process.getStateCount(); i++) {
@@ -37,64 +66,111 @@ public class ValueIteration implements PolicyLearner {
         }
     }
     
+    /**
+     * Set the pool to sweep on.  Without a pool each sweep updates
+     * the values in place, so later states see the new values of
+     * earlier ones (Gauss-Seidel).  With a pool every state reads the
+     * values of the last sweep (Jacobi), which may take more sweeps
+     * and stops at slightly different values, within the threshold.
+     * @param pool the pool, or null to sweep in place on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Get the transition table, building it if need be
+     * @return the table
+     */
+    private TransitionTable getTable() {
+        if (table == null) {
+            table = new TransitionTable(process, pool);
+        }
+        return table;
+    }
+    
     /**
      * @see shared.Trainer#train()
      */
     public double train() {
-        int stateCount = process.getStateCount();
-        int actionCount = process.getActionCount();
-        double difference = 0;
-        // loop through all the states
-        for (int i = 0; i < stateCount; i++) {
-            // utility never changes in terminal states
-            if (!process.isTerminalState(i)) {
-                // find the maximum action
-                double maxActionVal = -Double.MAX_VALUE;
-                int maxAction = 0;
-                for (int a = 0; a < actionCount; a++) {
-                    double actionVal = 0;
-                    for (int j = 0; j < stateCount; j++) {
-                        actionVal += process.transitionProbability(i, j, a) * values[j];
+        final TransitionTable table = getTable();
+        final int actionCount = table.getActionCount();
+        final double[] current = values;
+        final double[] target;
+        if (pool == null) {
+            target = values;
+        } else {
+            if (next == null) {
+                next = new double[values.length];
+            }
+            target = next;
+        }
+        double difference = TransitionTable.sweep(pool, values.length, new StateSweep() {
+            public double sweep(int start, int end) {
+                double difference = 0;
+                // loop through the states
+                for (int i = start; i < end; i++) {
+                    // utility never changes in terminal states
+                    if (table.isTerminalState(i)) {
+                        target[i] = current[i];
+                        continue;
                     }
-                    actionVal = process.reward(i, a) + gamma * actionVal;
-                    if (actionVal > maxActionVal) {
-                        maxActionVal = actionVal;
-                        maxAction = a;
+                    // find the maximum action
+                    double maxActionVal = -Double.MAX_VALUE;
+                    for (int a = 0; a < actionCount; a++) {
+                        double actionVal = table.actionValue(i, a, gamma, current);
+                        if (actionVal > maxActionVal) {
+                            maxActionVal = actionVal;
+                        }
                     }
+                    // check if we're done
+                    difference = Math.max(Math.abs(current[i] - maxActionVal), difference);
+                    target[i] = maxActionVal;
                 }
-                // check if we're done
-                difference = Math.max(Math.abs(values[i] - maxActionVal), difference);
-                values[i] = maxActionVal;
+                return difference;
             }
+        });
+        if (target != values) {
+            next = values;
+            values = target;
         }
         return difference;
     }
+    /**
+     * Get the values
+     * @return the values
+     */
+    public double[] getValues() {
+        return values;
+    }
+
     /**
      * @see rl.PolicyLearner#getPolicy()
      */
     public Policy getPolicy() {
-        int stateCount = process.getStateCount();
-        int actionCount = process.getActionCount();
+        final TransitionTable table = getTable();
+        final int actionCount = table.getActionCount();
+        final double[] values = this.values;
         // calculate the policy based on the values
-        int[] policy = new int[stateCount];
-        for (int i = 0; i < stateCount; i++) {
-            // find the maximum action
-            double maxActionVal = -Double.MAX_VALUE;
-            int maxAction = 0;
-            for (int a = 0; a < actionCount; a++) {
-                double actionVal = 0;
-                for (int j = 0; j < stateCount; j++) {
-                    actionVal += process.transitionProbability(i, j, a)
-                       * values[j];
-                }
-                actionVal = process.reward(i, a) + gamma * actionVal;
-                if (actionVal > maxActionVal) {
-                    maxActionVal = actionVal;
-                    maxAction = a;
+        final int[] policy = new int[values.length];
+        TransitionTable.sweep(pool, values.length, new StateSweep() {
+            public double sweep(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    // find the maximum action
+                    double maxActionVal = -Double.MAX_VALUE;
+                    int maxAction = 0;
+                    for (int a = 0; a < actionCount; a++) {
+                        double actionVal = table.actionValue(i, a, gamma, values);
+                        if (actionVal > maxActionVal) {
+                            maxActionVal = actionVal;
+                            maxAction = a;
+                        }
+                    }
+                    policy[i] = maxAction;
                 }
+                return 0;
             }
-            policy[i] = maxAction;
-        }
+        });
         return new Policy(policy);
     }
 
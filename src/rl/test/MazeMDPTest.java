@@ -1,10 +1,14 @@
 package rl.test;
 
+import java.util.concurrent.ForkJoinPool;
+
 import rl.EpsilonGreedyStrategy;
 import rl.MazeMarkovDecisionProcess;
 import rl.MazeMarkovDecisionProcessVisualization;
+import rl.ParallelQLearning;
 import rl.Policy;
 import rl.PolicyIteration;
+import rl.PrioritizedValueIteration;
 import rl.QLambda;
 import rl.SarsaLambda;
 import rl.ValueIteration;
@@ -39,6 +43,17 @@ public class MazeMDPTest {
             new MazeMarkovDecisionProcessVisualization(maze);
         System.out.println(mazeVis.toString(p));
 
+        PrioritizedValueIteration pvi = new PrioritizedValueIteration(.95, maze);
+        tt = new ThresholdTrainer(pvi);
+        startTime = System.currentTimeMillis();
+        tt.train();
+        p = pvi.getPolicy();
+        finishTime = System.currentTimeMillis();
+        System.out.println("Prioritized value iteration learned : " + p);
+        System.out.println("in " + pvi.getBackupCount() + " backups");
+        System.out.println("and " + (finishTime - startTime) + " ms");
+        System.out.println(mazeVis.toString(p));
+
         PolicyIteration pi = new PolicyIteration(.95, maze);
         tt = new ThresholdTrainer(pi);
         startTime = System.currentTimeMillis();
@@ -75,6 +90,20 @@ public class MazeMDPTest {
         System.out.println("Acquiring " + sl.getTotalReward() + " reward");
         System.out.println(mazeVis.toString(p));
 
+        int agents = 4;
+        ParallelQLearning pql = new ParallelQLearning(.95, .2, 1, new EpsilonGreedyStrategy(.3),
+            maze, agents, 1000, ForkJoinPool.commonPool());
+        fit = new FixedIterationTrainer(pql, iterations / (agents * 1000));
+        startTime = System.currentTimeMillis();
+        fit.train();
+        p = pql.getPolicy();
+        finishTime = System.currentTimeMillis();
+        System.out.println("Parallel Q learning learned : " + p);
+        System.out.println("in " + iterations + " iterations by " + agents + " agents");
+        System.out.println("and " + (finishTime - startTime) + " ms");
+        System.out.println("Acquiring " + pql.getTotalReward() + " reward");
+        System.out.println(mazeVis.toString(p));
+
     }
 
 }
@@ -0,0 +1,108 @@
+package rl.test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import rl.MazeMarkovDecisionProcess;
+import rl.Policy;
+import rl.PolicyIteration;
+import rl.TransitionTable;
+import rl.ValueIteration;
+import shared.ThresholdTrainer;
+
+/**
+ * Solves a maze by value and policy iteration with and without
+ * a pool.  The pooled sweeps read the values of the last sweep
+ * instead of updating in place, so the values may differ within
+ * the threshold but the policies should earn the same return.
+ * @version 1.0
+ */
+public class ParallelSweepTest {
+    /** The decay value */
+    private static final double GAMMA = .95;
+    /** The convergence threshold */
+    private static final double THRESHOLD = 1E-6;
+    /** The size of the maze */
+    private static final int SIZE = 25;
+
+    /**
+     * The test main
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        char[][] grid = new char[SIZE][SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                grid[y][x] = random.nextDouble() < .2
+                    ? MazeMarkovDecisionProcess.OBSTACLE : MazeMarkovDecisionProcess.EMPTY;
+            }
+        }
+        // clear a staircase from the start so that the goal can be reached
+        for (int i = 0; i < SIZE; i++) {
+            grid[i][i] = MazeMarkovDecisionProcess.EMPTY;
+            grid[i][Math.min(i + 1, SIZE - 1)] = MazeMarkovDecisionProcess.EMPTY;
+        }
+        MazeMarkovDecisionProcess maze = new MazeMarkovDecisionProcess(grid,
+            SIZE - 1, SIZE - 1, 0, 0, .1);
+        TransitionTable table = new TransitionTable(maze);
+        // the values are within about threshold / (1 - gamma) of the
+        // true values for either kind of sweep
+        double tolerance = 2 * THRESHOLD / (1 - GAMMA);
+        ForkJoinPool pool = new ForkJoinPool();
+
+        ValueIteration serialVI = new ValueIteration(GAMMA, maze);
+        ValueIteration pooledVI = new ValueIteration(GAMMA, maze, pool);
+        new ThresholdTrainer(serialVI, THRESHOLD, Integer.MAX_VALUE).train();
+        new ThresholdTrainer(pooledVI, THRESHOLD, Integer.MAX_VALUE).train();
+        double[] serialValues = serialVI.getValues();
+        double[] pooledValues = pooledVI.getValues();
+        double difference = 0;
+        for (int i = 0; i < serialValues.length; i++) {
+            difference = Math.max(difference, Math.abs(serialValues[i] - pooledValues[i]));
+        }
+        System.out.println("Value iteration values differ by " + difference
+            + ", within tolerance: " + (difference <= tolerance));
+
+        PolicyIteration serialPI = new PolicyIteration(GAMMA, maze);
+        PolicyIteration pooledPI = new PolicyIteration(GAMMA, maze, pool);
+        new ThresholdTrainer(serialPI, THRESHOLD, Integer.MAX_VALUE).train();
+        new ThresholdTrainer(pooledPI, THRESHOLD, Integer.MAX_VALUE).train();
+        pool.shutdown();
+
+        Policy[] policies = { serialVI.getPolicy(), pooledVI.getPolicy(),
+            serialPI.getPolicy(), pooledPI.getPolicy() };
+        String[] names = { "serial value iteration", "pooled value iteration",
+            "serial policy iteration", "pooled policy iteration" };
+        double[] returns = new double[policies.length];
+        boolean same = true;
+        for (int p = 0; p < policies.length; p++) {
+            returns[p] = expectedReturn(table, policies[p], maze.sampleInitialState());
+            System.out.println("Expected return of " + names[p] + ": " + returns[p]);
+            same &= Math.abs(returns[p] - returns[0]) <= tolerance;
+        }
+        System.out.println("Same expected return: " + same);
+    }
+
+    /**
+     * Evaluate a policy exactly enough to compare returns
+     * @param table the transitions of the process
+     * @param policy the policy
+     * @param state the state to start from
+     * @return the expected discounted return
+     */
+    private static double expectedReturn(TransitionTable table, Policy policy, int state) {
+        double[] values = new double[table.getStateCount()];
+        double difference;
+        do {
+            difference = 0;
+            for (int i = 0; i < values.length; i++) {
+                double value = table.isTerminalState(i) ? table.getReward(i, 0)
+                    : table.actionValue(i, policy.getAction(i), GAMMA, values);
+                difference = Math.max(difference, Math.abs(value - values[i]));
+                values[i] = value;
+            }
+        } while (difference > 1E-12);
+        return values[state];
+    }
+}
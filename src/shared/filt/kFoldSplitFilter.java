@@ -1,10 +1,10 @@
 package shared.filt;
 
+import dist.Distribution;
 import shared.DataSet;
 import shared.Instance;
 
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * A filter that supports k-fold splitting of a dataset for cross validation
@@ -23,13 +23,12 @@ public class kFoldSplitFilter implements DataSetFilter {
 
     public void filter(DataSet data) {
         int foldSize = data.size() / foldCount;
-        Random rand = new Random();
 
         for (int currentFold = 0; currentFold < foldCount; currentFold++) {
             DataSet currentSet = new DataSet(new Instance[foldSize], data.getDescription());
             int i = 0;
             while (i < foldSize) {
-                int position = rand.nextInt(data.size());
+                int position = Distribution.random.nextInt(data.size());
                 Instance instance = data.get(position);
                 if (instance != null && instance.getData() != null) {
                     currentSet.set(i, instance);
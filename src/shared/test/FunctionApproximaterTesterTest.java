@@ -0,0 +1,84 @@
+package shared.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import shared.DataSet;
+import shared.EuclideanDistance;
+import shared.Instance;
+import shared.tester.AccuracyTestMetric;
+import shared.tester.ConfusionMatrixTestMetric;
+import shared.tester.FunctionApproximaterTester;
+import shared.tester.RawOutputTestMetric;
+import shared.tester.TestMetric;
+import func.KNNClassifier;
+
+/**
+ * Checks that testing on a pool gives the same totals as testing
+ * on one thread, including the raw output metric whose results are
+ * added in order after the chunks are done
+ * @version 1.0
+ */
+public class FunctionApproximaterTesterTest {
+
+    /**
+     * The test main
+     * @param args ignored parameters
+     */
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        DataSet training = new DataSet(makeInstances(random, 500));
+        Instance[] tests = makeInstances(random, 1000);
+        KNNClassifier knn = new KNNClassifier(5, new EuclideanDistance());
+        knn.estimate(training);
+        String serial = test(knn, tests, null);
+        ForkJoinPool pool = new ForkJoinPool();
+        String pooled = test(knn, tests, pool);
+        pool.shutdown();
+        System.out.println(serial.substring(0, serial.indexOf("Expected")));
+        System.out.println("serial equals pooled: " + serial.equals(pooled));
+    }
+
+    /**
+     * Make instances from two overlapping gaussian classes
+     * @param random the random number generator
+     * @param count the number of instances
+     * @return the instances
+     */
+    private static Instance[] makeInstances(Random random, int count) {
+        Instance[] instances = new Instance[count];
+        for (int i = 0; i < count; i++) {
+            int label = random.nextInt(2);
+            instances[i] = new Instance(new double[] {
+                random.nextGaussian() + label, random.nextGaussian() - label }, label);
+        }
+        return instances;
+    }
+
+    /**
+     * Test a classifier and capture the printed results
+     * @param knn the classifier
+     * @param tests the test instances
+     * @param pool the pool, or null
+     * @return what the metrics printed
+     */
+    private static String test(KNNClassifier knn, Instance[] tests, ForkJoinPool pool) {
+        TestMetric[] metrics = { new AccuracyTestMetric(),
+            new ConfusionMatrixTestMetric(new int[] { 0, 1 }),
+            new RawOutputTestMetric() };
+        new FunctionApproximaterTester(knn, pool, metrics).test(tests);
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes));
+        try {
+            for (int i = 0; i < metrics.length; i++) {
+                metrics[i].printResults();
+            }
+        } finally {
+            System.setOut(out);
+        }
+        return bytes.toString();
+    }
+}
@@ -8,7 +8,7 @@ import shared.Instance;
  * @author Jesse Rosalia <https://github.com/theJenix>
  * @date 2013-03-05
  */
-public class AccuracyTestMetric extends TestMetric {
+public class AccuracyTestMetric extends TestMetric implements MergeableTestMetric {
 
     private int count;    
     private int countCorrect;
@@ -23,6 +23,18 @@ public class AccuracyTestMetric extends TestMetric {
         }
     }
     
+    @Override
+    public MergeableTestMetric emptyCopy() {
+        return new AccuracyTestMetric();
+    }
+
+    @Override
+    public void merge(MergeableTestMetric other) {
+        AccuracyTestMetric a = (AccuracyTestMetric) other;
+        count        += a.count;
+        countCorrect += a.countCorrect;
+    }
+
     public double getPctCorrect() {
         return count > 0 ? ((double)countCorrect)/count : 1; //if count is 0, we consider it all correct
     }
@@ -16,7 +16,7 @@ import shared.reader.DataSetLabelBinarySeperator;
  * @author Jesse Rosalia <https://github.com/theJenix>
  * @date 2013-03-05
  */
-public class ConfusionMatrixTestMetric extends TestMetric {
+public class ConfusionMatrixTestMetric extends TestMetric implements MergeableTestMetric {
 
     /**
      * A matrix entry.  This class holds an expected and actual instance
@@ -70,6 +70,17 @@ public class ConfusionMatrixTestMetric extends TestMetric {
     
     private Map<MatrixEntry, Integer> matrix = new HashMap<MatrixEntry, Integer>();
 
+    /**
+     * Construct an empty test metric sharing the labels of another.
+     * 
+     * @param other
+     */
+    private ConfusionMatrixTestMetric(ConfusionMatrixTestMetric other) {
+        this.labels    = other.labels;
+        this.labelStrs = other.labelStrs;
+        this.nullLabel = other.nullLabel;
+    }
+
     /**
      * Construct the test metric with double valued labels.
      * 
@@ -140,11 +151,33 @@ public class ConfusionMatrixTestMetric extends TestMetric {
         //...this makes sure we work with homogeneous label values, so our
         // matrix is readable.
         Instance found = findLabel(this.labels, actual);
-        MatrixEntry e = new MatrixEntry(expected, found);
+        add(new MatrixEntry(expected, found), 1);
+    }
+
+    /**
+     * Add to the count of an entry in the matrix.
+     * 
+     * @param e
+     * @param count
+     */
+    private void add(MatrixEntry e, int count) {
         if (matrix.containsKey(e)) {
-            matrix.put(e, matrix.get(e) + 1);
+            matrix.put(e, matrix.get(e) + count);
         } else {
-            matrix.put(e, 1);
+            matrix.put(e, count);
+        }
+    }
+
+    @Override
+    public MergeableTestMetric emptyCopy() {
+        return new ConfusionMatrixTestMetric(this);
+    }
+
+    @Override
+    public void merge(MergeableTestMetric other) {
+        ConfusionMatrixTestMetric m = (ConfusionMatrixTestMetric) other;
+        for (Map.Entry<MatrixEntry, Integer> e : m.matrix.entrySet()) {
+            add(e.getKey(), e.getValue());
         }
     }
 
@@ -0,0 +1,110 @@
+package shared.tester;
+
+import java.util.concurrent.ForkJoinPool;
+
+import shared.Instance;
+import util.ParallelRange;
+import util.RangeTask;
+import func.FunctionApproximater;
+
+/**
+ * A tester for function approximaters, such as the k nearest neighbor
+ * classifier or support vector machines.  This will run each instance
+ * through the approximater and report the label and the approximater's
+ * value to any test metrics specified at instantiation.
+ * 
+ * Given a pool, the instances are split into chunks that are scored in
+ * parallel.  Each chunk adds its results to its own empty copies of the
+ * mergeable metrics, which are merged back in chunk order once every chunk
+ * is done, so the totals are the same as testing on one thread.  Metrics
+ * that aren't mergeable get their results afterwards, one at a time in order.
+ * The approximater must be safe to call from several threads at once.
+ * 
+ * @version 1.0
+ */
+public class FunctionApproximaterTester implements Tester {
+
+    /**
+     * The number of instances in a chunk
+     */
+    private static final int CHUNK = 256;
+
+    private FunctionApproximater approximater;
+    private TestMetric[] metrics;
+    private ForkJoinPool pool;
+
+    public FunctionApproximaterTester(FunctionApproximater approximater, TestMetric ... metrics) {
+        this(approximater, null, metrics);
+    }
+
+    /**
+     * Construct a tester that scores instances on a pool.
+     * 
+     * @param approximater
+     * @param pool The pool, or null to test on the calling thread.
+     * @param metrics
+     */
+    public FunctionApproximaterTester(FunctionApproximater approximater, ForkJoinPool pool,
+            TestMetric ... metrics) {
+        this.approximater = approximater;
+        this.pool = pool;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void test(final Instance[] instances) {
+        final int chunkCount = (instances.length + CHUNK - 1) / CHUNK;
+        if (pool == null || chunkCount < 2) {
+            for (int i = 0; i < instances.length; i++) {
+                Instance actual = approximater.value(instances[i]);
+                for (TestMetric metric : metrics) {
+                    metric.addResult(instances[i].getLabel(), actual);
+                }
+            }
+            return;
+        }
+        //the copies of the mergeable metrics for each chunk, and the values
+        // for the metrics that have to see them in order
+        final MergeableTestMetric[][] copies =
+            new MergeableTestMetric[chunkCount][metrics.length];
+        boolean ordered = false;
+        for (int m = 0; m < metrics.length; m++) {
+            if (metrics[m] instanceof MergeableTestMetric) {
+                for (int c = 0; c < chunkCount; c++) {
+                    copies[c][m] = ((MergeableTestMetric) metrics[m]).emptyCopy();
+                }
+            } else {
+                ordered = true;
+            }
+        }
+        final Instance[] values = ordered ? new Instance[instances.length] : null;
+        ParallelRange.run(pool, instances.length, CHUNK, new RangeTask() {
+            public Object run(int start, int end) {
+                MergeableTestMetric[] chunk = copies[start / CHUNK];
+                for (int i = start; i < end; i++) {
+                    Instance actual = approximater.value(instances[i]);
+                    for (MergeableTestMetric copy : chunk) {
+                        if (copy != null) {
+                            copy.addResult(instances[i].getLabel(), actual);
+                        }
+                    }
+                    if (values != null) {
+                        values[i] = actual;
+                    }
+                }
+                return null;
+            }
+        });
+        for (int m = 0; m < metrics.length; m++) {
+            if (metrics[m] instanceof MergeableTestMetric) {
+                for (int c = 0; c < chunkCount; c++) {
+                    ((MergeableTestMetric) metrics[m]).merge(copies[c][m]);
+                }
+            } else {
+                for (int i = 0; i < instances.length; i++) {
+                    metrics[m].addResult(instances[i].getLabel(), values[i]);
+                }
+            }
+        }
+    }
+}
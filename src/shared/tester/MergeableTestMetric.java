@@ -0,0 +1,38 @@
+package shared.tester;
+
+import shared.Instance;
+
+/**
+ * This interface is for test metrics whose results don't depend on the order
+ * they are added in, so they can be collected separately and then combined.
+ * Testers use this to give each thread its own accumulator.  Metrics that
+ * don't implement it are given their results one at a time in order.
+ * 
+ * @version 1.0
+ */
+public interface MergeableTestMetric {
+
+    /**
+     * Add a test result to the metric.
+     * 
+     * @param expected The expected value (from the training set)
+     * @param actual The value produced by the classifier.
+     */
+    public void addResult(Instance expected, Instance actual);
+
+    /**
+     * Make an empty metric of the same kind, that results can be added to
+     * separately and then merged back into this one.
+     * 
+     * @return The empty metric.
+     */
+    public MergeableTestMetric emptyCopy();
+
+    /**
+     * Add the results collected by another metric to this one.  The other
+     * metric must have come from emptyCopy.
+     * 
+     * @param other The metric to merge in.
+     */
+    public void merge(MergeableTestMetric other);
+}
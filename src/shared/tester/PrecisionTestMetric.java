@@ -11,7 +11,7 @@ import shared.Instance;
  * @date 2014-03-23
  *
  */
-public class PrecisionTestMetric extends TestMetric {
+public class PrecisionTestMetric extends TestMetric implements MergeableTestMetric {
    
     private int truePositives;
     private int falsePositives;
@@ -32,6 +32,19 @@ public class PrecisionTestMetric extends TestMetric {
         totalCandidatePositives = truePositives + falsePositives;
     }
 
+    @Override
+    public MergeableTestMetric emptyCopy() {
+        return new PrecisionTestMetric();
+    }
+
+    @Override
+    public void merge(MergeableTestMetric other) {
+        PrecisionTestMetric p = (PrecisionTestMetric) other;
+        truePositives  += p.truePositives;
+        falsePositives += p.falsePositives;
+        totalCandidatePositives = truePositives + falsePositives;
+    }
+
     public double getPctPrecision() {
         return totalCandidatePositives > 0 ? ((double) truePositives) / totalCandidatePositives : 1; //if count is 0, we consider it all correct
     }
@@ -11,7 +11,7 @@ import shared.Instance;
  * @date 2014-03-23
  *
  */
-public class RecallTestMetric extends TestMetric {
+public class RecallTestMetric extends TestMetric implements MergeableTestMetric {
    
     private int truePositives;
     private int falseNegatives;
@@ -32,6 +32,19 @@ public class RecallTestMetric extends TestMetric {
         totalTargetPositives = truePositives + falseNegatives;
     }
 
+    @Override
+    public MergeableTestMetric emptyCopy() {
+        return new RecallTestMetric();
+    }
+
+    @Override
+    public void merge(MergeableTestMetric other) {
+        RecallTestMetric r = (RecallTestMetric) other;
+        truePositives  += r.truePositives;
+        falseNegatives += r.falseNegatives;
+        totalTargetPositives = truePositives + falseNegatives;
+    }
+
     public double getPctRecall() {
         return totalTargetPositives > 0 ? ((double) truePositives) / totalTargetPositives : 1; //if count is 0, we consider it all correct
     }
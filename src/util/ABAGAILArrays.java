@@ -9,8 +9,11 @@ import java.util.Random;
  * @version 1.0
  */
 public class ABAGAILArrays {
-    /** Random number generator */
-    public static final Random random = new Random();
+    /**
+     * Random number generator, with an independent
+     * stream per thread that can be seeded separately
+     */
+    public static final Random random = new PerThreadRandom();
     
     /**
      * Print out an array
@@ -236,6 +239,57 @@ public class ABAGAILArrays {
     public static double randomizedSelect(double[] a, int i) {
         return randomizedSelect(a, 0, a.length, i);
     }
+
+    /**
+     * Get the kth largest of the first n numbers in an array,
+     * keeping the k largest seen so far in a min heap.  The
+     * array is left as it is and no random numbers are used.
+     * @param a the array
+     * @param n the number of values to look at
+     * @param k the number to select, one for the largest
+     * @param heap an array of at least k values to work in
+     * @return the kth largest number
+     */
+    public static double selectLargest(double[] a, int n, int k, double[] heap) {
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("cannot select the " + k
+                + "th largest of " + n + " values");
+        }
+        System.arraycopy(a, 0, heap, 0, k);
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, k);
+        }
+        for (int i = k; i < n; i++) {
+            if (a[i] > heap[0]) {
+                heap[0] = a[i];
+                siftDown(heap, 0, k);
+            }
+        }
+        return heap[0];
+    }
+
+    /**
+     * Move a value down a min heap to its place
+     * @param heap the heap
+     * @param i the index of the value
+     * @param size the size of the heap
+     */
+    private static void siftDown(double[] heap, int i, int size) {
+        double value = heap[i];
+        int child = 2 * i + 1;
+        while (child < size) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+            child = 2 * i + 1;
+        }
+        heap[i] = value;
+    }
     
     /**
      * Swap two values in an array
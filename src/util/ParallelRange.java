@@ -0,0 +1,65 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a task over a range of indices split into chunks, either
+ * on a fork join pool or one chunk after another on the calling
+ * thread.  The results come back in chunk order whichever way the
+ * chunks are run, so callers that combine them in that order get
+ * the same answer with or without a pool.  A failure in a chunk
+ * run on the pool is rethrown on the calling thread as an illegal
+ * state exception wrapping its cause.
+ * @version 1.0
+ */
+public class ParallelRange {
+
+    /**
+     * Run a task over the indices from zero up to a count
+     * @param pool the pool, or null to run on the calling thread
+     * @param count the number of indices
+     * @param chunk the number of indices in each chunk
+     * @param task the task
+     * @return the result of each chunk, in chunk order
+     */
+    public static Object[] run(ForkJoinPool pool, int count, int chunk, final RangeTask task) {
+        if (chunk < 1) {
+            throw new IllegalArgumentException("the chunk size must be positive");
+        }
+        int chunkCount = (int) (((long) count + chunk - 1) / chunk);
+        Object[] results = new Object[chunkCount];
+        if (pool == null || chunkCount < 2) {
+            for (int c = 0; c < chunkCount; c++) {
+                results[c] = task.run(c * chunk, (int) Math.min(count, (long) (c + 1) * chunk));
+            }
+            return results;
+        }
+        List tasks = new ArrayList();
+        for (int c = 0; c < chunkCount; c++) {
+            final int start = c * chunk;
+            final int end = (int) Math.min(count, (long) (c + 1) * chunk);
+            tasks.add(new Callable() {
+                public Object call() {
+                    return task.run(start, end);
+                }
+            });
+        }
+        List futures = pool.invokeAll(tasks);
+        for (int c = 0; c < chunkCount; c++) {
+            try {
+                results[c] = ((Future) futures.get(c)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,191 @@
+package util;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A random number generator that hands every thread its own
+ * independent stream, so threads drawing numbers at the same
+ * time never contend on a shared seed.  Each stream is split off
+ * of a master generator the first time a thread uses it.
+ * Setting the seed only reseeds the stream of the calling thread,
+ * so a run on one thread can be replayed exactly by seeding at
+ * its start, no matter what other threads are doing.  A piece
+ * of work that moves between threads can carry its own stream
+ * and install it on whichever thread runs it.
+ * @version 1.0
+ */
+public class PerThreadRandom extends Random {
+
+    /**
+     * The generator new streams are split off of
+     */
+    private transient SplittableRandom master;
+
+    /**
+     * The stream of each thread
+     */
+    private transient ThreadLocal streams;
+
+    /**
+     * Make a new random number generator
+     */
+    public PerThreadRandom() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Make a new random number generator
+     * @param seed the seed of the master generator
+     */
+    public PerThreadRandom(long seed) {
+        master = new SplittableRandom(seed);
+        streams = new ThreadLocal() {
+            protected Object initialValue() {
+                return new Stream(split());
+            }
+        };
+    }
+
+    /**
+     * Split a new generator off of the master
+     * @return the new generator
+     */
+    private synchronized SplittableRandom split() {
+        return master.split();
+    }
+
+    /**
+     * Get the stream of the calling thread
+     * @return the stream
+     */
+    private Stream stream() {
+        return (Stream) streams.get();
+    }
+
+    /**
+     * Reseed the stream of the calling thread
+     * @param seed the new seed
+     */
+    public void setSeed(long seed) {
+        // the super constructor calls this before the streams exist
+        if (streams == null) {
+            return;
+        }
+        Stream s = stream();
+        s.random = new SplittableRandom(seed);
+        s.haveNextNextGaussian = false;
+    }
+
+    /**
+     * Make a new stream that is not used by any thread yet
+     * @param seed the seed of the stream
+     * @return the stream
+     */
+    public Stream newStream(long seed) {
+        return new Stream(new SplittableRandom(seed));
+    }
+
+    /**
+     * Make a stream the stream of the calling thread
+     * @param stream the stream, which no other thread may be using
+     * @return the stream the calling thread was using
+     */
+    public Stream setStream(Stream stream) {
+        Stream previous = stream();
+        streams.set(stream);
+        return previous;
+    }
+
+    /**
+     * @see java.util.Random#next(int)
+     */
+    protected int next(int bits) {
+        return (int) (stream().random.nextLong() >>> (64 - bits));
+    }
+
+    /**
+     * @see java.util.Random#nextInt()
+     */
+    public int nextInt() {
+        return stream().random.nextInt();
+    }
+
+    /**
+     * @see java.util.Random#nextInt(int)
+     */
+    public int nextInt(int bound) {
+        return stream().random.nextInt(bound);
+    }
+
+    /**
+     * @see java.util.Random#nextLong()
+     */
+    public long nextLong() {
+        return stream().random.nextLong();
+    }
+
+    /**
+     * @see java.util.Random#nextDouble()
+     */
+    public double nextDouble() {
+        return stream().random.nextDouble();
+    }
+
+    /**
+     * @see java.util.Random#nextBoolean()
+     */
+    public boolean nextBoolean() {
+        return stream().random.nextBoolean();
+    }
+
+    /**
+     * @see java.util.Random#nextGaussian()
+     */
+    public double nextGaussian() {
+        Stream s = stream();
+        if (s.haveNextNextGaussian) {
+            s.haveNextNextGaussian = false;
+            return s.nextNextGaussian;
+        }
+        // the polar method, as in java.util.Random
+        double v1, v2, r;
+        do {
+            v1 = 2 * s.random.nextDouble() - 1;
+            v2 = 2 * s.random.nextDouble() - 1;
+            r = v1 * v1 + v2 * v2;
+        } while (r >= 1 || r == 0);
+        double multiplier = Math.sqrt(-2 * Math.log(r) / r);
+        s.nextNextGaussian = v2 * multiplier;
+        s.haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * The state of one stream of random numbers
+     */
+    public static class Stream {
+        /**
+         * The generator
+         */
+        private SplittableRandom random;
+
+        /**
+         * The cached second gaussian from the polar method
+         */
+        private double nextNextGaussian;
+
+        /**
+         * Whether there is a cached gaussian
+         */
+        private boolean haveNextNextGaussian;
+
+        /**
+         * Make a new stream
+         * @param random the generator
+         */
+        private Stream(SplittableRandom random) {
+            this.random = random;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package util;
+
+/**
+ * A piece of work over a range of indices
+ * @version 1.0
+ */
+public interface RangeTask {
+
+    /**
+     * Do the work for a range
+     * @param start the first index
+     * @param end one past the last index
+     * @return the result for the range, or null
+     */
+    public Object run(int start, int end);
+}
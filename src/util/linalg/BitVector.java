@@ -0,0 +1,228 @@
+package util.linalg;
+
+import shared.Copyable;
+
+/**
+ * A vector of zeros and ones packed sixty four to a word.
+ * Bit i is bit i % 64 of word offset + i / 64, and the bits
+ * past the end of the last word are always zero.  The words
+ * may be one row of a larger array shared with other vectors.
+ * Only zero and one can be stored; arithmetic that makes
+ * other values returns a dense vector.
+ * @version 1.0
+ */
+public class BitVector extends Vector {
+
+    /**
+     * The words holding the bits
+     */
+    private long[] words;
+
+    /**
+     * The index of the first word
+     */
+    private int offset;
+
+    /**
+     * The number of bits
+     */
+    private int size;
+
+    /**
+     * Make a new vector of zeros
+     * @param size the number of bits
+     */
+    public BitVector(int size) {
+        this.size = size;
+        words = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Make a new vector around some words
+     * @param words the words, with the bits past size zero
+     * @param size the number of bits
+     */
+    public BitVector(long[] words, int size) {
+        this(words, 0, size);
+    }
+
+    /**
+     * Make a new vector over some of the words of an array
+     * @param words the array, with the bits past size zero
+     * @param offset the index of the first word
+     * @param size the number of bits
+     */
+    public BitVector(long[] words, int offset, int size) {
+        this.words = words;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Get the array holding the bits, which starts
+     * at the word given by getOffset
+     * @return the words
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * Get the index of the first word in the array
+     * @return the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the number of words holding the bits
+     * @return the number of words
+     */
+    public int getWordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * @see util.linalg.Vector#size()
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @see util.linalg.Vector#get(int)
+     */
+    public double get(int i) {
+        return getDiscrete(i);
+    }
+
+    /**
+     * @see util.linalg.Vector#getDiscrete(int)
+     */
+    public int getDiscrete(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i + " >= " + size);
+        }
+        return (int) (words[offset + (i >>> 6)] >>> i) & 1;
+    }
+
+    /**
+     * @see util.linalg.Vector#set(int, double)
+     */
+    public void set(int i, double d) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i + " >= " + size);
+        }
+        if (d == 1) {
+            words[offset + (i >>> 6)] |= 1L << i;
+        } else if (d == 0) {
+            words[offset + (i >>> 6)] &= ~(1L << i);
+        } else {
+            throw new IllegalArgumentException(d + " is not a bit");
+        }
+    }
+
+    /**
+     * Count the ones in the vector
+     * @return the count
+     */
+    public int countOnes() {
+        int count = 0;
+        int end = offset + getWordCount();
+        for (int i = offset; i < end; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Find the first zero at or after a position
+     * @param from the position
+     * @return the position of the zero, or size if there is none
+     */
+    public int nextClearBit(int from) {
+        if (from >= size) {
+            return size;
+        }
+        int w = from >>> 6;
+        int wordCount = getWordCount();
+        long word = ~words[offset + w] & (-1L << from);
+        while (word == 0) {
+            if (++w == wordCount) {
+                return size;
+            }
+            word = ~words[offset + w];
+        }
+        return Math.min(size, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Find the last one at or before a position
+     * @param from the position
+     * @return the position of the one, or -1 if there is none
+     */
+    public int previousSetBit(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[offset + w] & (-1L >>> (63 - (from & 63)));
+        while (word == 0) {
+            if (--w < 0) {
+                return -1;
+            }
+            word = words[offset + w];
+        }
+        return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * @see util.linalg.Vector#sum()
+     */
+    public double sum() {
+        return countOnes();
+    }
+
+    /**
+     * @see util.linalg.Vector#times(double)
+     */
+    public Vector times(double scale) {
+        return toDense().times(scale);
+    }
+
+    /**
+     * @see util.linalg.Vector#plus(util.linalg.Vector)
+     */
+    public Vector plus(Vector vector) {
+        return toDense().plus(vector);
+    }
+
+    /**
+     * @see util.linalg.Vector#minus(util.linalg.Vector)
+     */
+    public Vector minus(Vector vector) {
+        return toDense().minus(vector);
+    }
+
+    /**
+     * Make a dense copy of this vector
+     * @return the copy
+     */
+    private Vector toDense() {
+        double[] data = new double[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = getDiscrete(i);
+        }
+        return new DenseVector(data);
+    }
+
+    /**
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        long[] copy = new long[getWordCount()];
+        System.arraycopy(words, offset, copy, 0, copy.length);
+        return new BitVector(copy, size);
+    }
+}
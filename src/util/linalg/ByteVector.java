@@ -0,0 +1,118 @@
+package util.linalg;
+
+import shared.Copyable;
+
+/**
+ * A vector of small whole numbers, from 0 to 255,
+ * stored one byte each.  Arithmetic that makes other
+ * values returns a dense vector.
+ * @version 1.0
+ */
+public class ByteVector extends Vector {
+
+    /**
+     * The largest value that can be stored
+     */
+    public static final int MAX_VALUE = 255;
+
+    /**
+     * The values, read as unsigned
+     */
+    private byte[] data;
+
+    /**
+     * Make a new vector of zeros
+     * @param size the size
+     */
+    public ByteVector(int size) {
+        data = new byte[size];
+    }
+
+    /**
+     * Make a new vector around some bytes
+     * @param data the values, read as unsigned
+     */
+    public ByteVector(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Get the bytes holding the values
+     * @return the bytes
+     */
+    public byte[] getBytes() {
+        return data;
+    }
+
+    /**
+     * @see util.linalg.Vector#size()
+     */
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * @see util.linalg.Vector#get(int)
+     */
+    public double get(int i) {
+        return data[i] & 0xFF;
+    }
+
+    /**
+     * @see util.linalg.Vector#getDiscrete(int)
+     */
+    public int getDiscrete(int i) {
+        return data[i] & 0xFF;
+    }
+
+    /**
+     * @see util.linalg.Vector#set(int, double)
+     */
+    public void set(int i, double d) {
+        int value = (int) d;
+        if (value != d || value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException(d + " does not fit in a byte");
+        }
+        data[i] = (byte) value;
+    }
+
+    /**
+     * @see util.linalg.Vector#times(double)
+     */
+    public Vector times(double scale) {
+        return toDense().times(scale);
+    }
+
+    /**
+     * @see util.linalg.Vector#plus(util.linalg.Vector)
+     */
+    public Vector plus(Vector vector) {
+        return toDense().plus(vector);
+    }
+
+    /**
+     * @see util.linalg.Vector#minus(util.linalg.Vector)
+     */
+    public Vector minus(Vector vector) {
+        return toDense().minus(vector);
+    }
+
+    /**
+     * Make a dense copy of this vector
+     * @return the copy
+     */
+    private Vector toDense() {
+        double[] values = new double[data.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data[i] & 0xFF;
+        }
+        return new DenseVector(values);
+    }
+
+    /**
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        return new ByteVector((byte[]) data.clone());
+    }
+}
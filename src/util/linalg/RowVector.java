@@ -0,0 +1,76 @@
+package util.linalg;
+
+import shared.Copyable;
+
+/**
+ * A vector that is one row of values in a larger array,
+ * so that many vectors can share one block of memory
+ * @version 1.0
+ */
+public class RowVector extends Vector {
+
+    /**
+     * The array holding the row
+     */
+    private double[] data;
+
+    /**
+     * The index of the first value
+     */
+    private int offset;
+
+    /**
+     * The number of values
+     */
+    private int size;
+
+    /**
+     * Make a new row vector
+     * @param data the array holding the row
+     * @param offset the index of the first value
+     * @param size the number of values
+     */
+    public RowVector(double[] data, int offset, int size) {
+        this.data = data;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * @see util.linalg.Vector#size()
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @see util.linalg.Vector#get(int)
+     */
+    public double get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i + " >= " + size);
+        }
+        return data[offset + i];
+    }
+
+    /**
+     * @see util.linalg.Vector#set(int, double)
+     */
+    public void set(int i, double d) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i + " >= " + size);
+        }
+        data[offset + i] = d;
+    }
+
+    /**
+     * Make a dense copy of the row, which
+     * does not share the larger array
+     * @see shared.Copyable#copy()
+     */
+    public Copyable copy() {
+        double[] copy = new double[size];
+        System.arraycopy(data, offset, copy, 0, size);
+        return new DenseVector(copy);
+    }
+}
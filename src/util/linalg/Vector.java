@@ -26,6 +26,15 @@ public abstract class Vector implements Serializable, Copyable {
      * @return the element
      */
     public abstract double get(int i);
+
+    /**
+     * Get an element rounded to the nearest whole number
+     * @param i the element to get
+     * @return the element
+     */
+    public int getDiscrete(int i) {
+        return (int) Math.round(get(i));
+    }
     
     /**
      * Get some sub portion of the vector